@@ -2,13 +2,25 @@ package org.wildfly.bot;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkiverse.githubapp.GitHubEvent;
 import io.quarkiverse.githubapp.event.PullRequest;
 import io.quarkiverse.githubapp.runtime.UtilsProducer;
 import io.quarkiverse.githubapp.runtime.github.GitHubConfigFileProviderImpl;
+import org.wildfly.bot.delivery.BotEditDetector;
+import org.wildfly.bot.delivery.HeadResultCache;
+import org.wildfly.bot.delivery.PullRequestChanges;
+import org.wildfly.bot.delivery.PullRequestEventCoalescer;
+import org.wildfly.bot.delivery.PullRequestLanes;
+import org.wildfly.bot.history.GitMirror;
+import org.wildfly.bot.model.RegexDefinition;
 import org.wildfly.bot.model.RuntimeConstants;
 import org.wildfly.bot.model.WildFlyConfigFile;
+import org.wildfly.bot.rules.CompiledRule;
+import org.wildfly.bot.rules.Glob;
 import org.wildfly.bot.util.GithubProcessor;
+import org.wildfly.bot.util.PatternAnalyzer;
 import org.wildfly.bot.util.PullRequestLogger;
+import org.wildfly.bot.util.Strings;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
@@ -23,10 +35,13 @@ import org.kohsuke.github.HttpException;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
 import java.util.stream.Collectors;
 
 @RequestScoped
@@ -48,12 +63,44 @@ public class ConfigFileChangeProcessor {
     @Inject
     GithubProcessor githubProcessor;
 
+    @Inject
+    PullRequestEventCoalescer pullRequestEventCoalescer;
+
+    @Inject
+    BotEditDetector botEditDetector;
+
+    @Inject
+    PullRequestLanes pullRequestLanes;
+
+    @Inject
+    HeadResultCache headResultCache;
+
+    @Inject
+    GitMirror gitMirror;
+
     void onFileChanged(
             @PullRequest.Opened @PullRequest.Edited @PullRequest.Synchronize @PullRequest.Reopened @PullRequest.ReadyForReview GHEventPayload.PullRequest pullRequestPayload,
-            GitHub gitHub) throws IOException {
+            GitHub gitHub, GitHubEvent gitHubEvent) throws IOException {
         GHPullRequest pullRequest = pullRequestPayload.getPullRequest();
         LOG.setPullRequest(pullRequest);
 
+        if (botEditDetector.isBotEdit(gitHubEvent)) {
+            LOG.info("Skipping configuration file check, as the pull request has been edited by the bot");
+            return;
+        }
+
+        // the check is not run again for the same head commit, if the event can not change the files
+        boolean reuseResult = !PullRequestChanges.of(gitHubEvent).commitsMayHaveChanged();
+        pullRequestEventCoalescer.whenLatest(gitHubEvent, pullRequestPayload,
+                () -> pullRequestLanes.run(gitHubEvent, () -> headResultCache.get(gitHubEvent, CHECK_NAME, reuseResult,
+                        () -> {
+                            checkConfigFile(pullRequest, gitHub);
+                            return Boolean.TRUE;
+                        })),
+                () -> LOG.info("Skipping configuration file check, as there is a newer event of the pull request"));
+    }
+
+    private void checkConfigFile(GHPullRequest pullRequest, GitHub gitHub) throws IOException {
         GHRepository repository = pullRequest.getRepository();
         for (GHPullRequestFileDetail changedFile : pullRequest.listFiles()) {
             if (changedFile.getFilename().equals(fileProvider.getFilePath(RuntimeConstants.CONFIG_FILE_NAME))) {
@@ -101,6 +148,8 @@ public class ConfigFileChangeProcessor {
                 .stream()
                 .map(ghLabel -> ghLabel.getName())
                 .collect(Collectors.toSet());
+        // directories are looked up in the mirror of the repository, if there is any
+        String mirroredRepository = gitMirror.isEnabled() ? repository.getFullName() : null;
 
         if (file.wildfly.rules != null) {
             for (WildFlyConfigFile.WildFlyRule rule : file.wildfly.rules) {
@@ -122,8 +171,21 @@ public class ConfigFileChangeProcessor {
                 }
 
                 for (String directory : rule.directories) {
+                    // only the directory containing all files matched by a glob has to exist
+                    String existingDirectory = Glob.isGlob(directory) ? Glob.baseDirectory(directory) : directory;
+                    if (existingDirectory.isEmpty()) {
+                        continue;
+                    }
+                    Optional<Boolean> mirrored = gitMirror.exists(mirroredRepository, existingDirectory);
+                    if (mirrored.isPresent()) {
+                        if (!mirrored.get()) {
+                            problems.add(ERROR_RULE.formatted("Rule [" + rule.toPrettyString()
+                                    + "] has the following non-existing directory specified: " + directory));
+                        }
+                        continue;
+                    }
                     try {
-                        repository.getDirectoryContent(directory);
+                        repository.getDirectoryContent(existingDirectory);
                     } catch (IOException e) {
                         // Non-existing directory or it is not a file
                         if (e instanceof GHFileNotFoundException ||
@@ -135,9 +197,60 @@ public class ConfigFileChangeProcessor {
                         }
                     }
                 }
+
+                for (String keyword : Arrays.asList(rule.title, rule.body, rule.titleBody)) {
+                    if (Strings.isNotBlank(keyword)) {
+                        String subject = "Rule [" + rule.toPrettyString() + "]";
+                        try {
+                            problems.addAll(validatePattern(subject, CompiledRule.compileKeyword(keyword)));
+                        } catch (PatternSyntaxException e) {
+                            problems.add(ERROR_RULE.formatted(subject + " has an invalid regex pattern: " + keyword));
+                        }
+                    }
+                }
+            }
+        }
+
+        if (file.wildfly.format != null && file.wildfly.format.description != null
+                && file.wildfly.format.description.regexes != null) {
+            for (RegexDefinition regex : file.wildfly.format.description.regexes) {
+                if (regex.pattern != null) {
+                    problems.addAll(validatePattern("Description regex", regex.pattern));
+                }
             }
         }
 
+        if (file.wildfly.format != null && file.wildfly.format.enabled
+                && (file.wildfly.format.title.enabled || file.wildfly.format.commit.enabled)) {
+            // the title and commit message checks match the same pattern, built from the project key
+            problems.addAll(validatePattern("Title and commit message regex", file.wildfly.getProjectPattern()));
+        }
+
+        return problems;
+    }
+
+    /**
+     * Reports patterns prone to catastrophic backtracking. The cost is measured in steps of the regex engine on
+     * synthetic bodies, so the result does not depend on the load of the machine running the check.
+     */
+    private static List<String> validatePattern(String subject, Pattern pattern) {
+        List<String> problems = new ArrayList<>();
+        long steps = PatternAnalyzer.worstCaseSteps(pattern);
+        if (steps < 0) {
+            problems.add(ERROR_RULE.formatted("%s has a regex pattern [%s], which would be aborted on a body of %d characters"
+                    .formatted(subject, pattern.pattern(), PatternAnalyzer.SYNTHETIC_LENGTH)));
+            return problems;
+        }
+        for (String problem : PatternAnalyzer.findProblems(pattern)) {
+            problems.add(WARN_RULE.formatted("%s has a regex pattern prone to catastrophic backtracking, %s, "
+                    .formatted(subject, problem) + "its worst-case cost on a body of %d characters is %d steps"
+                            .formatted(PatternAnalyzer.SYNTHETIC_LENGTH, steps)));
+        }
+        if (steps > PatternAnalyzer.MAX_STEPS_PER_CHARACTER * PatternAnalyzer.SYNTHETIC_LENGTH) {
+            problems.add(WARN_RULE.formatted("%s has an expensive regex pattern [%s], matching it against a body of %d "
+                    .formatted(subject, pattern.pattern(), PatternAnalyzer.SYNTHETIC_LENGTH)
+                    + "characters takes %d steps".formatted(steps)));
+        }
         return problems;
     }
 }
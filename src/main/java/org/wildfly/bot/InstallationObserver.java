@@ -1,12 +1,14 @@
 package org.wildfly.bot;
 
 import io.quarkiverse.githubapp.event.Installation;
+import io.quarkiverse.githubapp.event.InstallationRepositories;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.inject.Inject;
 
 import org.jboss.logging.Logger;
 import org.kohsuke.github.GHAppInstallation;
 import org.kohsuke.github.GHEventPayload;
+import org.wildfly.bot.polling.EventPollingProcessor;
 import org.wildfly.bot.util.GitHubBotContextProvider;
 
 @ApplicationScoped
@@ -17,6 +19,17 @@ public class InstallationObserver {
     @Inject
     GitHubBotContextProvider botContextProvider;
 
+    @Inject
+    EventPollingProcessor eventPollingProcessor;
+
+    void installationChanged(@Installation GHEventPayload.Installation installationPayload) {
+        eventPollingProcessor.refreshRepositories();
+    }
+
+    void repositoriesChanged(@InstallationRepositories GHEventPayload.InstallationRepositories repositoriesPayload) {
+        eventPollingProcessor.refreshRepositories();
+    }
+
     void suspendedInstallation(@Installation.Suspend GHEventPayload.Installation installationPayload) {
         GHAppInstallation installation = installationPayload.getInstallation();
         LOG.infof(
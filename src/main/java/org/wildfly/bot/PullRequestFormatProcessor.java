@@ -1,6 +1,9 @@
 package org.wildfly.bot;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkiverse.githubapp.ConfigFile;
+import io.quarkiverse.githubapp.GitHubEvent;
 import io.quarkiverse.githubapp.event.PullRequest;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
@@ -10,14 +13,21 @@ import org.kohsuke.github.GHCommitStatus;
 import org.kohsuke.github.GHEventPayload;
 import org.kohsuke.github.GHPullRequest;
 import org.wildfly.bot.config.WildFlyBotConfig;
+import org.wildfly.bot.delivery.BotEditDetector;
+import org.wildfly.bot.delivery.HeadResultCache;
+import org.wildfly.bot.delivery.PullRequestChanges;
+import org.wildfly.bot.delivery.PullRequestEventCoalescer;
+import org.wildfly.bot.delivery.PullRequestLanes;
 import org.wildfly.bot.format.Check;
 import org.wildfly.bot.format.CommitMessagesCheck;
 import org.wildfly.bot.format.DescriptionCheck;
 import org.wildfly.bot.format.TitleCheck;
+import org.wildfly.bot.history.GitMirror;
 import org.wildfly.bot.model.RegexDefinition;
 import org.wildfly.bot.model.WildFlyConfigFile;
 import org.wildfly.bot.util.GitHubBotContextProvider;
 import org.wildfly.bot.util.GithubProcessor;
+import org.wildfly.bot.util.Patterns;
 import org.wildfly.bot.util.PullRequestDescriptionHandler;
 import org.wildfly.bot.util.PullRequestLogger;
 
@@ -44,12 +54,30 @@ public class PullRequestFormatProcessor {
     @Inject
     GithubProcessor githubProcessor;
 
+    @Inject
+    PullRequestEventCoalescer pullRequestEventCoalescer;
+
+    @Inject
+    BotEditDetector botEditDetector;
+
+    @Inject
+    PullRequestLanes pullRequestLanes;
+
+    @Inject
+    HeadResultCache headResultCache;
+
     @Inject
     WildFlyBotConfig wildFlyBotConfig;
 
     @Inject
     GitHubBotContextProvider botContextProvider;
 
+    @Inject
+    GitMirror gitMirror;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
     void postDependabotInfo(@PullRequest.Opened GHEventPayload.PullRequest pullRequestPayload,
             @ConfigFile(CONFIG_FILE_NAME) WildFlyConfigFile wildflyConfigFile) throws IOException {
         GHPullRequest pullRequest = pullRequestPayload.getPullRequest();
@@ -72,11 +100,25 @@ public class PullRequestFormatProcessor {
 
     void pullRequestFormatCheck(
             @PullRequest.Edited @PullRequest.Opened @PullRequest.Synchronize @PullRequest.Reopened @PullRequest.ReadyForReview GHEventPayload.PullRequest pullRequestPayload,
-            @ConfigFile(CONFIG_FILE_NAME) WildFlyConfigFile wildflyConfigFile) throws IOException {
+            @ConfigFile(CONFIG_FILE_NAME) WildFlyConfigFile wildflyConfigFile,
+            GitHubEvent gitHubEvent) throws IOException {
         GHPullRequest pullRequest = pullRequestPayload.getPullRequest();
         LOG.setPullRequest(pullRequest);
         githubProcessor.LOG.setPullRequest(pullRequest);
 
+        if (botEditDetector.isBotEdit(gitHubEvent)) {
+            LOG.info("Skipping format, as the pull request has been edited by the bot");
+            return;
+        }
+
+        pullRequestEventCoalescer.whenLatest(gitHubEvent, pullRequestPayload,
+                () -> pullRequestLanes.run(gitHubEvent,
+                        () -> checkFormat(pullRequestPayload, pullRequest, wildflyConfigFile, gitHubEvent)),
+                () -> LOG.info("Skipping format, as there is a newer event of the pull request"));
+    }
+
+    private void checkFormat(GHEventPayload.PullRequest pullRequestPayload, GHPullRequest pullRequest,
+            WildFlyConfigFile wildflyConfigFile, GitHubEvent gitHubEvent) throws IOException {
         String message = githubProcessor.skipPullRequest(pullRequest, wildflyConfigFile);
         if (message != null) {
             String sha = pullRequest.getHead().getSha();
@@ -103,17 +145,22 @@ public class PullRequestFormatProcessor {
             return;
         }
 
-        List<Check> checks = initializeChecks(wildflyConfigFile);
+        List<Check> checks = initializeChecks(wildflyConfigFile, gitHubEvent);
         Map<String, String> errors = new HashMap<>();
+        // checks of the commits are not run again, if the event can not change the commits
+        boolean reuseCommitResults = !PullRequestChanges.of(gitHubEvent).commitsMayHaveChanged();
 
         for (Check check : checks) {
-            String result = check.check(pullRequest);
+            String result = check.getCommitsCacheKey() == null ? check.check(pullRequest)
+                    : headResultCache.get(gitHubEvent, check.getCommitsCacheKey(), reuseCommitResults,
+                            () -> check.check(pullRequest));
             if (result != null) {
                 errors.put(check.getName(), result);
             }
         }
 
-        generateAppendedMessage(pullRequest, wildflyConfigFile.wildfly.getProjectPattern());
+        generateAppendedMessage(pullRequest, wildflyConfigFile.wildfly.getProjectPattern(), gitHubEvent,
+                reuseCommitResults);
 
         if (errors.isEmpty()) {
             githubProcessor.commitStatusSuccess(pullRequest, CHECK_NAME, "Valid");
@@ -123,8 +170,11 @@ public class PullRequestFormatProcessor {
         githubProcessor.formatComment(pullRequest, FAILED_FORMAT_COMMENT, errors.values());
     }
 
-    private void generateAppendedMessage(GHPullRequest pullRequest, Pattern projectPattern) {
-        new PullRequestDescriptionHandler(pullRequest, projectPattern, botContextProvider.getBotName())
+    private void generateAppendedMessage(GHPullRequest pullRequest, Pattern projectPattern, GitHubEvent gitHubEvent,
+            boolean reuseCommitResults) throws IOException {
+        List<String> commitIssueKeys = headResultCache.get(gitHubEvent, "commit-issue-keys#" + projectPattern.pattern(),
+                reuseCommitResults, () -> PullRequestDescriptionHandler.commitIssueKeys(pullRequest, projectPattern));
+        new PullRequestDescriptionHandler(pullRequest, projectPattern, commitIssueKeys, botContextProvider.getBotName())
                 .generateFullDescriptionBody()
                 .ifPresent(newBody -> {
                     if (wildFlyBotConfig.isDryRun()) {
@@ -141,25 +191,28 @@ public class PullRequestFormatProcessor {
                 });
     }
 
-    private List<Check> initializeChecks(WildFlyConfigFile wildflyConfigFile) {
+    private List<Check> initializeChecks(WildFlyConfigFile wildflyConfigFile, GitHubEvent gitHubEvent) {
         List<Check> checks = new ArrayList<>();
 
         if (wildflyConfigFile.wildfly.format == null) {
             return checks;
         }
 
+        Counter aborted = Patterns.abortedCounter(meterRegistry);
         if (wildflyConfigFile.wildfly.format.title.enabled) {
             checks.add(new TitleCheck(new RegexDefinition(wildflyConfigFile.wildfly.getProjectPattern(),
-                    wildflyConfigFile.wildfly.format.title.message)));
+                    wildflyConfigFile.wildfly.format.title.message), aborted));
         }
 
         if (wildflyConfigFile.wildfly.format.commit.enabled) {
             checks.add(new CommitMessagesCheck(new RegexDefinition(wildflyConfigFile.wildfly.getProjectPattern(),
-                    wildflyConfigFile.wildfly.format.commit.message)));
+                    wildflyConfigFile.wildfly.format.commit.message), aborted,
+                    () -> gitMirror.commits(gitHubEvent.getRepository().orElse(null), GitMirror.sha(gitHubEvent, "base"),
+                            GitMirror.sha(gitHubEvent, "head"))));
         }
 
         if (wildflyConfigFile.wildfly.format.description != null) {
-            checks.add(new DescriptionCheck(wildflyConfigFile.wildfly.format.description));
+            checks.add(new DescriptionCheck(wildflyConfigFile.wildfly.format.description, aborted));
         }
 
         return checks;
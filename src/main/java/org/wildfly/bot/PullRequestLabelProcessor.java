@@ -1,6 +1,8 @@
 package org.wildfly.bot;
 
+import io.quarkiverse.githubapp.GitHubEvent;
 import io.quarkiverse.githubapp.event.PullRequest;
+import org.wildfly.bot.delivery.PullRequestLanes;
 import org.wildfly.bot.util.GithubProcessor;
 import org.wildfly.bot.util.PullRequestLogger;
 import jakarta.inject.Inject;
@@ -22,12 +24,19 @@ public class PullRequestLabelProcessor {
     @Inject
     GithubProcessor githubProcessor;
 
-    void pullRequestLabelCheck(@PullRequest.Synchronize @PullRequest.Reopened GHEventPayload.PullRequest pullRequestPayload)
-            throws IOException {
+    @Inject
+    PullRequestLanes pullRequestLanes;
+
+    void pullRequestLabelCheck(@PullRequest.Synchronize @PullRequest.Reopened GHEventPayload.PullRequest pullRequestPayload,
+            GitHubEvent gitHubEvent) throws IOException {
         GHPullRequest pullRequest = pullRequestPayload.getPullRequest();
         LOG.setPullRequest(pullRequest);
         githubProcessor.LOG.setPullRequest(pullRequest);
 
+        pullRequestLanes.run(gitHubEvent, () -> checkLabels(pullRequest));
+    }
+
+    private void checkLabels(GHPullRequest pullRequest) throws IOException {
         String message = githubProcessor.skipPullRequest(pullRequest);
         if (message != null) {
             LOG.infof("Skipping labelling due to %s", message);
@@ -1,7 +1,9 @@
 package org.wildfly.bot;
 
+import io.quarkiverse.githubapp.GitHubEvent;
 import io.quarkiverse.githubapp.event.PullRequestReview;
 import org.wildfly.bot.config.WildFlyBotConfig;
+import org.wildfly.bot.delivery.PullRequestLanes;
 import org.wildfly.bot.model.RuntimeConstants;
 import org.wildfly.bot.util.GithubProcessor;
 import org.wildfly.bot.util.PullRequestLogger;
@@ -29,14 +31,21 @@ public class PullRequestReviewProcessor {
     @Inject
     WildFlyBotConfig wildFlyBotConfig;
 
+    @Inject
+    PullRequestLanes pullRequestLanes;
+
     void pullRequestReviewCheck(
-            @PullRequestReview.Submitted GHEventPayload.PullRequestReview pullRequestPayload)
-            throws IOException {
+            @PullRequestReview.Submitted GHEventPayload.PullRequestReview pullRequestPayload,
+            GitHubEvent gitHubEvent) throws IOException {
         GHPullRequestReview pullRequestReview = pullRequestPayload.getReview();
         GHPullRequest pullRequest = pullRequestPayload.getPullRequest();
         LOG.setPullRequest(pullRequest);
         githubProcessor.LOG.setPullRequest(pullRequest);
 
+        pullRequestLanes.run(gitHubEvent, () -> checkReview(pullRequestReview, pullRequest));
+    }
+
+    private void checkReview(GHPullRequestReview pullRequestReview, GHPullRequest pullRequest) throws IOException {
         String message = githubProcessor.skipPullRequest(pullRequest);
         if (message != null) {
             LOG.infof("Skipping format due to %s", message);
@@ -1,11 +1,27 @@
 package org.wildfly.bot;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import io.quarkiverse.githubapp.ConfigFile;
+import io.quarkiverse.githubapp.GitHubEvent;
 import io.quarkiverse.githubapp.event.PullRequest;
+import io.vertx.core.json.JsonObject;
+import org.wildfly.bot.delivery.BotEditDetector;
+import org.wildfly.bot.delivery.HeadResultCache;
+import org.wildfly.bot.delivery.PullRequestChanges;
+import org.wildfly.bot.delivery.PullRequestEventCoalescer;
+import org.wildfly.bot.delivery.PullRequestLanes;
+import org.wildfly.bot.history.GitMirror;
 import org.wildfly.bot.model.RuntimeConstants;
 import org.wildfly.bot.model.WildFlyConfigFile;
+import org.wildfly.bot.rules.CompiledRule;
+import org.wildfly.bot.rules.CompiledRuleSet;
+import org.wildfly.bot.rules.CompiledRuleSetCache;
+import org.wildfly.bot.rules.PullRequestText;
+import org.wildfly.bot.rules.RuleEvaluation;
+import org.wildfly.bot.rules.RuleEvaluationCache;
 import org.wildfly.bot.util.GithubProcessor;
 import org.wildfly.bot.util.Matcher;
+import org.wildfly.bot.util.Patterns;
 import org.wildfly.bot.util.PullRequestLogger;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
@@ -18,77 +34,178 @@ import org.kohsuke.github.GitHub;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Optional;
 import java.util.SequencedMap;
 import java.util.Set;
 
 @RequestScoped
 public class PullRequestRuleProcessor {
     private static final Logger LOG_DELEGATE = Logger.getLogger(PullRequestRuleProcessor.class);
+
+    private static final String DUPLICATE_COMMIT = "duplicate-commit";
+
     private final PullRequestLogger LOG = new PullRequestLogger(LOG_DELEGATE);
 
     @Inject
     GithubProcessor githubProcessor;
 
+    @Inject
+    PullRequestEventCoalescer pullRequestEventCoalescer;
+
+    @Inject
+    BotEditDetector botEditDetector;
+
+    @Inject
+    PullRequestLanes pullRequestLanes;
+
+    @Inject
+    CompiledRuleSetCache compiledRuleSetCache;
+
+    @Inject
+    HeadResultCache headResultCache;
+
+    @Inject
+    RuleEvaluationCache ruleEvaluationCache;
+
+    @Inject
+    GitMirror gitMirror;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
     void pullRequestRuleCheck(
             @PullRequest.Edited @PullRequest.Opened @PullRequest.Synchronize @PullRequest.Reopened @PullRequest.ReadyForReview GHEventPayload.PullRequest pullRequestPayload,
             @ConfigFile(RuntimeConstants.CONFIG_FILE_NAME) WildFlyConfigFile wildflyBotConfigFile,
-            GitHub gitHub) throws IOException {
+            GitHub gitHub, GitHubEvent gitHubEvent) throws IOException {
         GHPullRequest pullRequest = pullRequestPayload.getPullRequest();
         LOG.setPullRequest(pullRequest);
         githubProcessor.LOG.setPullRequest(pullRequest);
 
+        if (botEditDetector.isBotEdit(gitHubEvent)) {
+            LOG.info("Skipping rules, as the pull request has been edited by the bot");
+            return;
+        }
+
+        pullRequestEventCoalescer.whenLatest(gitHubEvent, pullRequestPayload,
+                () -> pullRequestLanes.run(gitHubEvent,
+                        () -> checkRules(pullRequestPayload, pullRequest, wildflyBotConfigFile, gitHub, gitHubEvent)),
+                () -> LOG.info("Skipping rules, as there is a newer event of the pull request"));
+    }
+
+    private void checkRules(GHEventPayload.PullRequest pullRequestPayload, GHPullRequest pullRequest,
+            WildFlyConfigFile wildflyBotConfigFile, GitHub gitHub, GitHubEvent gitHubEvent) throws IOException {
         String message = githubProcessor.skipPullRequest(pullRequest, wildflyBotConfigFile);
         if (message != null) {
             LOG.infof("Skipping rules due to %s", message);
             return;
         }
 
-        if (githubProcessor.hasDuplicateCommitInBase(pullRequest, pullRequestPayload.getRepository())) {
+        // the commits are not listed again, if the event can not change them
+        boolean reuseCommitResults = !PullRequestChanges.of(gitHubEvent).commitsMayHaveChanged();
+        if (headResultCache.get(gitHubEvent, DUPLICATE_COMMIT, reuseCommitResults,
+                () -> githubProcessor.hasDuplicateCommitInBase(pullRequest, pullRequestPayload.getRepository(),
+                        gitHubEvent))) {
             return;
         }
 
         GHRepository repository = pullRequest.getRepository();
+        CompiledRuleSet ruleSet = compiledRuleSetCache.get(wildflyBotConfigFile);
+        RuleEvaluation evaluation = ruleEvaluationCache.get(gitHubEvent, ruleSet,
+                () -> evaluateRules(pullRequest, ruleSet, gitHubEvent));
+        SequencedMap<String, List<String>> ccMentionsWithRules = evaluation.ccMentionsWithRules();
+        Set<String> reviewers = evaluation.reviewers();
+        Set<String> labels = evaluation.labels();
+
+        ccMentionsWithRules.remove(pullRequest.getUser().getLogin());
+        reviewers.remove(pullRequest.getUser().getLogin());
+
+        githubProcessor.createLabelsIfMissing(repository, labels);
+
+        List<String> currentLabels = pullRequest.getLabels().stream()
+                .map(GHLabel::getName)
+                .toList();
+        labels.removeIf(currentLabels::contains);
+
+        if (!labels.isEmpty()) {
+            LOG.debugf("Adding following labels: %s.", labels);
+            pullRequest.addLabels(labels.toArray(String[]::new));
+        }
+
+        githubProcessor.processNotifies(pullRequest, gitHub, ccMentionsWithRules, reviewers,
+                wildflyBotConfigFile.wildfly.emails);
+    }
+
+    private RuleEvaluation evaluateRules(GHPullRequest pullRequest, CompiledRuleSet ruleSet, GitHubEvent gitHubEvent)
+            throws IOException {
         SequencedMap<String, List<String>> ccMentionsWithRules = new LinkedHashMap<>();
         Set<String> reviewers = new HashSet<>();
         Set<String> labels = new HashSet<>();
+        BitSet matchedRules = new BitSet();
 
-        for (WildFlyConfigFile.WildFlyRule rule : wildflyBotConfigFile.wildfly.rules) {
-            if (Matcher.notifyRequestReview(pullRequest, rule)) {
+        PullRequestText text = new PullRequestText(pullRequest);
+        // the changed files are not listed again, if the event can not change them
+        String directoryMatchesName = "directories#" + ruleSet.digest();
+        BitSet directoryMatches = headResultCache.get(gitHubEvent, directoryMatchesName,
+                !PullRequestChanges.of(gitHubEvent).commitsMayHaveChanged(),
+                () -> directoryMatches(pullRequest, ruleSet, directoryMatchesName, gitHubEvent));
+        BitSet textMatches = ruleSet.matchText(text, Patterns.abortedCounter(meterRegistry));
+        for (CompiledRule compiledRule : ruleSet.rules()) {
+            WildFlyConfigFile.WildFlyRule rule = compiledRule.rule();
+            if (directoryMatches.get(compiledRule.index())) {
+                matchedRules.set(compiledRule.index());
                 if (!rule.notify.isEmpty()) {
                     LOG.infof("title \"%s\" was matched with a rule, containing notify, with the id: %s.",
-                            pullRequest.getTitle(), rule.id != null ? rule.id : "N/A");
+                            text.title(), rule.id != null ? rule.id : "N/A");
                     reviewers.addAll(rule.notify);
                 }
                 labels.addAll(rule.labels);
-            } else if (Matcher.notifyComment(pullRequest, rule)) {
+            } else if (textMatches.get(compiledRule.index())) {
+                matchedRules.set(compiledRule.index());
                 if (!rule.notify.isEmpty()) {
                     LOG.infof("title \"%s\" was matched with a rule, containing notify, with the id: %s.",
-                            pullRequest.getTitle(), rule.id != null ? rule.id : "N/A");
+                            text.title(), rule.id != null ? rule.id : "N/A");
                     rule.notify.forEach(user -> ccMentionsWithRules.computeIfAbsent(user, v -> new ArrayList<>()).add(rule.id));
                 }
                 labels.addAll(rule.labels);
             }
         }
+        return new RuleEvaluation(matchedRules, ccMentionsWithRules, reviewers, labels);
+    }
 
-        ccMentionsWithRules.remove(pullRequest.getUser().getLogin());
-        reviewers.remove(pullRequest.getUser().getLogin());
-
-        githubProcessor.createLabelsIfMissing(repository, labels);
-
-        List<String> currentLabels = pullRequest.getLabels().stream()
-                .map(GHLabel::getName)
-                .toList();
-        labels.removeIf(currentLabels::contains);
-
-        if (!labels.isEmpty()) {
-            LOG.debugf("Adding following labels: %s.", labels);
-            pullRequest.addLabels(labels.toArray(String[]::new));
+    /**
+     * The changed files are taken from the {@link GitMirror}, if it is enabled. On synchronize, only the files
+     * changed by the pushed commits are matched, if the rules matched by the previous head are known. Otherwise,
+     * all files of the pull request are listed.
+     */
+    private BitSet directoryMatches(GHPullRequest pullRequest, CompiledRuleSet ruleSet, String name,
+            GitHubEvent gitHubEvent) throws IOException {
+        if (ruleSet.hasDirectoryRules() && gitMirror.isEnabled()) {
+            Optional<List<String>> changedFiles = gitMirror.changedFiles(gitHubEvent.getRepository().orElse(null),
+                    GitMirror.sha(gitHubEvent, "base"), GitMirror.sha(gitHubEvent, "head"));
+            if (changedFiles.isPresent()) {
+                return Matcher.notifyRequestReview(changedFiles.get(), ruleSet);
+            }
         }
 
-        githubProcessor.processNotifies(pullRequest, gitHub, ccMentionsWithRules, reviewers,
-                wildflyBotConfigFile.wildfly.emails);
+        JsonObject payload = gitHubEvent.getParsedPayload();
+        if (PullRequest.Synchronize.NAME.equals(gitHubEvent.getAction())) {
+            String before = payload.getString("before");
+            String after = payload.getString("after");
+            BitSet previous = headResultCache.remembered(gitHubEvent, before, name);
+            if (previous != null && after != null) {
+                Optional<BitSet> matched = Matcher.notifyRequestReview(pullRequest.getRepository(), before, after,
+                        ruleSet, previous);
+                if (matched.isPresent()) {
+                    LOG.debugf("Matched directories of the files changed between %s and %s", before, after);
+                    return matched.get();
+                }
+                LOG.debugf("Unable to match directories incrementally between %s and %s", before, after);
+            }
+        }
+        return Matcher.notifyRequestReview(pullRequest, ruleSet);
     }
 }
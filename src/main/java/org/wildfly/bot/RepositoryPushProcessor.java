@@ -1,6 +1,9 @@
 package org.wildfly.bot;
 
+import io.quarkiverse.githubapp.GitHubEvent;
 import io.quarkiverse.githubapp.event.Push;
+import org.wildfly.bot.history.BaseBranchIndex;
+import org.wildfly.bot.history.GitMirror;
 import org.wildfly.bot.util.PullRequestMergableProcessor;
 import jakarta.enterprise.context.RequestScoped;
 import jakarta.inject.Inject;
@@ -13,9 +16,17 @@ public class RepositoryPushProcessor {
     @Inject
     PullRequestMergableProcessor pullRequestMergableProcessor;
 
-    void branchUpdated(@Push GHEventPayload.Push pushPayload) {
+    @Inject
+    BaseBranchIndex baseBranchIndex;
+
+    @Inject
+    GitMirror gitMirror;
+
+    void branchUpdated(@Push GHEventPayload.Push pushPayload, GitHubEvent gitHubEvent) {
+        baseBranchIndex.update(gitHubEvent, pushPayload.getRepository());
+        gitMirror.fetch(gitHubEvent.getRepository().orElse(null));
         if (pushPayload.getRef().equals(RuntimeConstants.MAIN_BRANCH_REF)) {
-            pullRequestMergableProcessor.addPushPayload(pushPayload);
+            pullRequestMergableProcessor.addPushPayload(pushPayload, gitHubEvent.getRepository().orElse(""));
         }
     }
 }
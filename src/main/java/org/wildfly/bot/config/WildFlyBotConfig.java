@@ -18,4 +18,70 @@ public interface WildFlyBotConfig {
     @WithName("mergable-status-update.timeout")
     @WithDefault("30")
     int timeout();
+
+    @WithName("mergable-status-update.local")
+    @WithDefault("false")
+    boolean mergableStatusUpdateLocal();
+
+    @WithName("polling.state-file")
+    @WithDefault(".wildfly-bot/polling-state.json")
+    String pollingStateFile();
+
+    @WithName("polling.conditional-requests")
+    @WithDefault("true")
+    boolean pollingConditionalRequests();
+
+    @WithName("polling.max-concurrency")
+    @WithDefault("16")
+    int pollingMaxConcurrency();
+
+    @WithName("polling.max-concurrency-per-installation")
+    @WithDefault("4")
+    int pollingMaxConcurrencyPerInstallation();
+
+    @WithName("polling.min-interval")
+    @WithDefault("30")
+    long pollingMinInterval();
+
+    @WithName("polling.max-interval")
+    @WithDefault("900")
+    long pollingMaxInterval();
+
+    @WithName("polling.repositories-refresh")
+    @WithDefault("600")
+    long pollingRepositoriesRefresh();
+
+    @WithName("deduplication.enabled")
+    @WithDefault("true")
+    boolean deduplicationEnabled();
+
+    @WithName("deduplication.window")
+    @WithDefault("3600")
+    long deduplicationWindow();
+
+    @WithName("deduplication.max-entries")
+    @WithDefault("10000")
+    int deduplicationMaxEntries();
+
+    @WithName("deduplication.spill-file")
+    Optional<String> deduplicationSpillFile();
+
+    @WithName("coalescing.quiet-window")
+    @WithDefault("3")
+    long coalescingQuietWindow();
+
+    @WithName("base-index.directory")
+    Optional<String> baseIndexDirectory();
+
+    @WithName("mirror.enabled")
+    @WithDefault("false")
+    boolean mirrorEnabled();
+
+    @WithName("mirror.directory")
+    @WithDefault(".wildfly-bot/mirrors")
+    String mirrorDirectory();
+
+    @WithName("mirror.url")
+    @WithDefault("https://github.com/%s.git")
+    String mirrorUrl();
 }
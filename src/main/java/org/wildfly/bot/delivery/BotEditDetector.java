@@ -0,0 +1,50 @@
+package org.wildfly.bot.delivery;
+
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.event.PullRequest;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.wildfly.bot.util.GitHubBotContextProvider;
+import org.wildfly.bot.util.PullRequestDescriptionHandler;
+
+import java.util.Objects;
+
+/**
+ * Recognizes {@code edited} events caused by the bot itself, i.e. by appending the issue links to the description
+ * of the pull request. Evaluating such events again would only repeat the evaluation of the event, which has
+ * caused the edit, thus the processors skip them before making any request to GitHub.
+ */
+@ApplicationScoped
+public class BotEditDetector {
+
+    @Inject
+    GitHubBotContextProvider botContextProvider;
+
+    /**
+     * @return true if the event is an edit of the pull request made by the bot, or an edit changing only the
+     *         section of the description managed by the bot. Deleting the section is not a bot edit, the
+     *         event is evaluated again to restore the section.
+     */
+    public boolean isBotEdit(GitHubEvent gitHubEvent) {
+        JsonObject payload = gitHubEvent.getParsedPayload();
+        if (payload == null || !PullRequest.NAME.equals(gitHubEvent.getEvent())
+                || !PullRequest.Edited.NAME.equals(gitHubEvent.getAction())) {
+            return false;
+        }
+
+        if (payload.getValue("sender") instanceof JsonObject sender
+                && botContextProvider.getBotName().equals(sender.getString("login"))) {
+            return true;
+        }
+
+        if (!(payload.getValue("changes") instanceof JsonObject changes) || changes.size() != 1
+                || !(changes.getValue("body") instanceof JsonObject bodyChange)
+                || !(payload.getValue("pull_request") instanceof JsonObject pullRequest)
+                || !PullRequestDescriptionHandler.hasBotBody(pullRequest.getString("body"))) {
+            return false;
+        }
+        return Objects.equals(PullRequestDescriptionHandler.userBody(bodyChange.getString("from")),
+                PullRequestDescriptionHandler.userBody(pullRequest.getString("body")));
+    }
+}
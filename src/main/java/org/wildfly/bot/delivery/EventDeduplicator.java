@@ -0,0 +1,331 @@
+package org.wildfly.bot.delivery;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.vertx.core.json.JsonObject;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Remembers the events handled within the last {@link WildFlyBotConfig#deduplicationWindow()} seconds,
+ * so that the same event is not handled twice. Events are remembered by two kinds of keys:
+ * <ul>
+ * <li>the {@code X-GitHub-Delivery} id of webhook deliveries, which is kept by GitHub on redeliveries,
+ * see {@link WebhookDeliveryFilter}</li>
+ * <li>a logical key derived from the payload of pull request, review and push events, which is the same
+ * for the webhook delivery and the polled event. This lets us run polling and webhooks side by side and
+ * skip the polled events already delivered by a webhook, or delivered by a previous, overlapping poll.</li>
+ * </ul>
+ * At most {@link WildFlyBotConfig#deduplicationMaxEntries()} keys are remembered, the oldest ones are
+ * forgotten first. If {@link WildFlyBotConfig#deduplicationSpillFile()} is set, the keys are written to the
+ * file on shutdown and read back on startup, so that redeliveries are recognized across restarts.
+ * <p>
+ * Every suppressed duplicate increments the {@code wildfly.bot.events.duplicates} counter.
+ */
+@ApplicationScoped
+public class EventDeduplicator {
+
+    private static final Logger LOG = Logger.getLogger(EventDeduplicator.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Long>> SPILL_TYPE = new TypeReference<>() {
+    };
+
+    private static final String DELIVERY_PREFIX = "delivery#";
+
+    public static final String SOURCE_WEBHOOK = "webhook";
+    public static final String SOURCE_POLLING = "polling";
+
+    // keys in the order they were first seen, mapped to the epoch milliseconds they were seen at
+    private final LinkedHashMap<String, Long> seen = new LinkedHashMap<>();
+
+    private final Set<String> deliveriesInProgress = ConcurrentHashMap.newKeySet();
+
+    // deliveries still being handled after the response, see PullRequestEventCoalescer
+    private final Map<String, DeferredDelivery> deferredDeliveries = new HashMap<>();
+
+    @Inject
+    WildFlyBotConfig wildFlyBotConfig;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @PostConstruct
+    void load() {
+        Path spillFile = spillFile();
+        if (spillFile == null || !Files.isRegularFile(spillFile)) {
+            return;
+        }
+        try {
+            Map<String, Long> spilled = objectMapper.readValue(spillFile.toFile(), SPILL_TYPE);
+            synchronized (this) {
+                spilled.entrySet().stream()
+                        .sorted(Map.Entry.comparingByValue())
+                        .forEach(entry -> seen.put(entry.getKey(), entry.getValue()));
+                evict(System.currentTimeMillis());
+            }
+            LOG.infof("Loaded %d recently handled events from %s", seen.size(), spillFile);
+        } catch (IOException e) {
+            LOG.warnf(e, "Unable to read recently handled events from %s", spillFile);
+        }
+    }
+
+    @PreDestroy
+    synchronized void spill() {
+        Path spillFile = spillFile();
+        if (spillFile == null) {
+            return;
+        }
+        try {
+            evict(System.currentTimeMillis());
+            Path parent = spillFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            objectMapper.writeValue(spillFile.toFile(), seen);
+        } catch (IOException e) {
+            LOG.warnf(e, "Unable to write recently handled events to %s", spillFile);
+        }
+    }
+
+    /**
+     * Remembers the logical key of the polled event.
+     *
+     * @return true if the same event has already been handled and should be skipped
+     */
+    public boolean isDuplicate(GitHubEvent gitHubEvent) {
+        String key = logicalKey(gitHubEvent);
+        if (key == null || !wildFlyBotConfig.deduplicationEnabled()) {
+            return false;
+        }
+        if (markIfAbsent(key)) {
+            return false;
+        }
+        duplicate(SOURCE_POLLING, key);
+        return true;
+    }
+
+    /**
+     * Remembers the logical key of every event delivered by a webhook, so that polling does not handle
+     * them again.
+     */
+    void onEvent(@Observes GitHubEvent gitHubEvent) {
+        if (gitHubEvent.isReplayed() || !wildFlyBotConfig.deduplicationEnabled()) {
+            return;
+        }
+        String key = logicalKey(gitHubEvent);
+        if (key != null) {
+            markIfAbsent(key);
+        }
+    }
+
+    /**
+     * Starts handling of the webhook delivery.
+     *
+     * @return false if the delivery has already been accepted or is being handled right now
+     */
+    boolean beginDelivery(String deliveryId) {
+        if (!wildFlyBotConfig.deduplicationEnabled()) {
+            return true;
+        }
+        boolean known;
+        synchronized (this) {
+            known = seen.containsKey(DELIVERY_PREFIX + deliveryId);
+        }
+        if (known || !deliveriesInProgress.add(deliveryId)) {
+            duplicate(SOURCE_WEBHOOK, deliveryId);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finishes handling of the webhook delivery. Only accepted deliveries are remembered, so that GitHub is
+     * able to redeliver the failed ones. A deferred delivery is finished by its last deferred task instead,
+     * see {@link #finishDeferredDelivery(String, boolean)}.
+     */
+    void completeDelivery(String deliveryId, boolean accepted) {
+        if (!wildFlyBotConfig.deduplicationEnabled()) {
+            return;
+        }
+        synchronized (this) {
+            DeferredDelivery deferredDelivery = deferredDeliveries.get(deliveryId);
+            if (deferredDelivery != null) {
+                deferredDelivery.failed |= !accepted;
+                return;
+            }
+        }
+        if (accepted) {
+            markIfAbsent(DELIVERY_PREFIX + deliveryId);
+        }
+        deliveriesInProgress.remove(deliveryId);
+    }
+
+    /**
+     * Keeps the webhook delivery in progress until every task deferred beyond the response has called
+     * {@link #finishDeferredDelivery(String, boolean)}. The delivery is forgotten, if the response has
+     * already been sent, so that it is remembered only once the deferred tasks succeed.
+     */
+    synchronized void deferDelivery(String deliveryId) {
+        if (deliveryId == null || !wildFlyBotConfig.deduplicationEnabled()) {
+            return;
+        }
+        deferredDeliveries.computeIfAbsent(deliveryId, id -> new DeferredDelivery()).pending++;
+        deliveriesInProgress.add(deliveryId);
+        seen.remove(DELIVERY_PREFIX + deliveryId);
+    }
+
+    /**
+     * Finishes a task of the deferred webhook delivery. The last one remembers the delivery, unless any
+     * of its tasks or the response has failed.
+     */
+    synchronized void finishDeferredDelivery(String deliveryId, boolean succeeded) {
+        DeferredDelivery deferredDelivery = deliveryId == null ? null : deferredDeliveries.get(deliveryId);
+        if (deferredDelivery == null) {
+            return;
+        }
+        deferredDelivery.failed |= !succeeded;
+        if (--deferredDelivery.pending > 0) {
+            return;
+        }
+        deferredDeliveries.remove(deliveryId);
+        if (!deferredDelivery.failed) {
+            markIfAbsent(DELIVERY_PREFIX + deliveryId);
+        }
+        deliveriesInProgress.remove(deliveryId);
+    }
+
+    /**
+     * Forgets all remembered events.
+     */
+    public synchronized void clear() {
+        seen.clear();
+        deliveriesInProgress.clear();
+        deferredDeliveries.clear();
+    }
+
+    private synchronized boolean markIfAbsent(String key) {
+        long now = System.currentTimeMillis();
+        evict(now);
+        if (seen.containsKey(key)) {
+            return false;
+        }
+        seen.put(key, now);
+        if (seen.size() > wildFlyBotConfig.deduplicationMaxEntries()) {
+            seen.remove(seen.keySet().iterator().next());
+        }
+        return true;
+    }
+
+    private void evict(long now) {
+        long expiredBefore = now - wildFlyBotConfig.deduplicationWindow() * 1000L;
+        Iterator<Long> iterator = seen.values().iterator();
+        while (iterator.hasNext() && iterator.next() < expiredBefore) {
+            iterator.remove();
+        }
+    }
+
+    private void duplicate(String source, String key) {
+        LOG.infof("Skipping already handled %s event [%s]", source, key);
+        Counter.builder("wildfly.bot.events.duplicates")
+                .description("Number of suppressed duplicate events")
+                .tag("source", source)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    private Path spillFile() {
+        return wildFlyBotConfig.deduplicationSpillFile().map(Path::of).orElse(null);
+    }
+
+    /**
+     * @return key identifying the event regardless of the way it was delivered, or null if the event is
+     *         not supported
+     * @implNote The push payloads retrieved from the events API contain the pushed commit in {@code head},
+     *           whereas webhook payloads contain it in {@code after}. The {@code updated_at} of pull requests has
+     *           a resolution of one second, thus the key of pull request events contains the head commit and the
+     *           subject of the action as well, e.g. the label or the requested reviewer, so that distinct events
+     *           within the same second are not mistaken for duplicates.
+     */
+    public static String logicalKey(GitHubEvent gitHubEvent) {
+        JsonObject payload = gitHubEvent.getParsedPayload();
+        String repository = gitHubEvent.getRepository().orElse(null);
+        if (payload == null || repository == null || gitHubEvent.getEvent() == null) {
+            return null;
+        }
+        return switch (gitHubEvent.getEvent()) {
+            case "pull_request" -> {
+                JsonObject pullRequest = payload.getJsonObject("pull_request");
+                yield pullRequest == null ? null
+                        : String.join("#", "pull_request", repository, String.valueOf(pullRequest.getValue("number")),
+                                gitHubEvent.getAction(), pullRequest.getString("updated_at"), headSha(pullRequest),
+                                subject(gitHubEvent.getAction(), payload, pullRequest));
+            }
+            case "pull_request_review" -> {
+                JsonObject review = payload.getJsonObject("review");
+                yield review == null ? null
+                        : String.join("#", "pull_request_review", repository, String.valueOf(review.getValue("id")),
+                                review.getString("state"), review.getString("submitted_at"));
+            }
+            case "push" -> {
+                String after = payload.getString("after", payload.getString("head"));
+                yield after == null ? null : String.join("#", "push", repository, payload.getString("ref"), after);
+            }
+            default -> null;
+        };
+    }
+
+    private static final class DeferredDelivery {
+
+        private int pending;
+        private boolean failed;
+    }
+
+    private static String headSha(JsonObject pullRequest) {
+        return pullRequest.getValue("head") instanceof JsonObject head ? head.getString("sha") : null;
+    }
+
+    /**
+     * @return what the action has been applied to, e.g. the name of the added label, or the new title and
+     *         body of an edited pull request
+     */
+    private static String subject(String action, JsonObject payload, JsonObject pullRequest) {
+        if (action == null) {
+            return "";
+        }
+        return switch (action) {
+            case "labeled", "unlabeled" -> field(payload, "label", "name");
+            case "assigned", "unassigned" -> field(payload, "assignee", "login");
+            case "review_requested", "review_request_removed" -> payload.containsKey("requested_team")
+                    ? "team:" + field(payload, "requested_team", "slug")
+                    : field(payload, "requested_reviewer", "login");
+            case "edited" -> Integer.toHexString(Objects.hash(pullRequest.getString("title"),
+                    pullRequest.getString("body"), field(pullRequest, "base", "ref")));
+            default -> "";
+        };
+    }
+
+    private static String field(JsonObject payload, String object, String field) {
+        return payload.getValue(object) instanceof JsonObject value ? value.getString(field) : null;
+    }
+}
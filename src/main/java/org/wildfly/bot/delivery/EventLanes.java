@@ -0,0 +1,32 @@
+package org.wildfly.bot.delivery;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.RequestScoped;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Lanes of {@link PullRequestLanes} the event of the current request is in. The event leaves them once the request
+ * ends, i.e. once all processors have handled the event.
+ */
+@RequestScoped
+public class EventLanes {
+
+    // keys of the pull requests mapped to the callbacks leaving their lanes
+    private final Map<String, Runnable> lanes = new HashMap<>();
+
+    synchronized boolean isIn(String pullRequestKey) {
+        return lanes.containsKey(pullRequestKey);
+    }
+
+    synchronized void entered(String pullRequestKey, Runnable leave) {
+        lanes.put(pullRequestKey, leave);
+    }
+
+    @PreDestroy
+    synchronized void leave() {
+        lanes.values().forEach(Runnable::run);
+        lanes.clear();
+    }
+}
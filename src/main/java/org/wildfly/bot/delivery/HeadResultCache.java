@@ -0,0 +1,104 @@
+package org.wildfly.bot.delivery;
+
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.vertx.core.json.JsonObject;
+import jakarta.enterprise.context.ApplicationScoped;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Keeps the results computed from the commits or changed files of a pull request, e.g. the rules matched by
+ * directories, the commit message check, the configuration file check, whether a commit is already in the base
+ * branch or the issue keys of the commit messages, by the head commit of the pull request. Events, which can not
+ * change the commits, see {@link PullRequestChanges#commitsMayHaveChanged()}, reuse the results instead of listing
+ * the commits or files again. Only the most recently used results are kept.
+ */
+@ApplicationScoped
+public class HeadResultCache {
+
+    private static final int MAX_RESULTS = 1024;
+
+    private static final Object NULL = new Object();
+
+    private final Map<String, Object> results = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Object> eldest) {
+            return size() > MAX_RESULTS;
+        }
+    };
+
+    /**
+     * Computes the result and remembers it for the head commit of the event's pull request.
+     *
+     * @param name identifies the result and the configuration it has been computed with
+     * @param reuse true to return the result remembered for the same head commit, if there is any
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T get(GitHubEvent gitHubEvent, String name, boolean reuse, Computation<T> computation)
+            throws IOException {
+        String key = key(gitHubEvent, name);
+        if (key == null) {
+            return computation.compute();
+        }
+        if (reuse) {
+            Object result;
+            synchronized (results) {
+                result = results.get(key);
+            }
+            if (result != null) {
+                return result == NULL ? null : (T) result;
+            }
+        }
+
+        T result = computation.compute();
+        synchronized (results) {
+            results.put(key, result == null ? NULL : result);
+        }
+        return result;
+    }
+
+    /**
+     * @param headSha head commit of the event's pull request, the result has been computed for
+     * @return result remembered for the head commit, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T remembered(GitHubEvent gitHubEvent, String headSha, String name) {
+        String pullRequestKey = PullRequestLanes.pullRequestKey(gitHubEvent);
+        if (pullRequestKey == null || headSha == null) {
+            return null;
+        }
+        Object result;
+        synchronized (results) {
+            result = results.get(String.join("#", pullRequestKey, headSha, name));
+        }
+        return result == NULL ? null : (T) result;
+    }
+
+    /**
+     * Forgets all results.
+     */
+    public void clear() {
+        synchronized (results) {
+            results.clear();
+        }
+    }
+
+    private static String key(GitHubEvent gitHubEvent, String name) {
+        String pullRequestKey = PullRequestLanes.pullRequestKey(gitHubEvent);
+        if (pullRequestKey == null) {
+            return null;
+        }
+        JsonObject pullRequest = gitHubEvent.getParsedPayload().getJsonObject("pull_request");
+        JsonObject head = pullRequest.getValue("head") instanceof JsonObject object ? object : null;
+        String sha = head != null ? head.getString("sha") : null;
+        return sha == null ? null : String.join("#", pullRequestKey, sha, name);
+    }
+
+    @FunctionalInterface
+    public interface Computation<T> {
+
+        T compute() throws IOException;
+    }
+}
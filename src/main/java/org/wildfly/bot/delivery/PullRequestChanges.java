@@ -0,0 +1,35 @@
+package org.wildfly.bot.delivery;
+
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.event.PullRequest;
+import io.vertx.core.json.JsonObject;
+
+/**
+ * Parts of the pull request changed by the event. Only {@code edited} events tell what has changed, in
+ * their {@code changes} object, every other event is considered to change everything.
+ *
+ * @param title true if the title may have changed
+ * @param body true if the body may have changed
+ * @param base true if the base branch may have changed, and thus the commits and files of the pull request
+ */
+public record PullRequestChanges(boolean title, boolean body, boolean base) {
+
+    private static final PullRequestChanges ALL = new PullRequestChanges(true, true, true);
+
+    public static PullRequestChanges of(GitHubEvent gitHubEvent) {
+        JsonObject payload = gitHubEvent.getParsedPayload();
+        if (payload == null || !PullRequest.Edited.NAME.equals(gitHubEvent.getAction())
+                || !(payload.getValue("changes") instanceof JsonObject changes)) {
+            return ALL;
+        }
+        return new PullRequestChanges(changes.containsKey("title"), changes.containsKey("body"),
+                changes.containsKey("base"));
+    }
+
+    /**
+     * @return true if the commits and changed files of the pull request may differ from the previous event
+     */
+    public boolean commitsMayHaveChanged() {
+        return base;
+    }
+}
@@ -0,0 +1,236 @@
+package org.wildfly.bot.delivery;
+
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.error.ErrorHandler;
+import io.quarkiverse.githubapp.event.PullRequest;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ArcContainer;
+import io.quarkus.arc.ManagedContext;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.kohsuke.github.GHEventPayload;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Folds bursts of pull request events, e.g. {@code synchronize} after a force-push followed by two
+ * {@code edited} events, into a single evaluation of the latest event. The processors checking the
+ * whole pull request hand their work to
+ * {@link #whenLatest(GitHubEvent, GHEventPayload, PullRequestLanes.LaneTask, Runnable)}, which skips the
+ * events superseded by a newer event of the same pull request.
+ * <p>
+ * An event delivered by a webhook is considered the latest one only after no other event of the same
+ * pull request has arrived within the {@link WildFlyBotConfig#coalescingQuietWindow()} seconds. The quiet
+ * window is awaited by a timer, not by the thread handling the event. Meanwhile the request of the webhook
+ * ends, thus the deferred tasks of all processors handling the event run together in a request context of their
+ * own, in which the event enters the lane of its pull request only once, see {@link PullRequestLanes}. The delivery
+ * is remembered by the {@link EventDeduplicator} only once all the tasks succeed. Polled events are all known up
+ * front, they are announced by {@link #announce(GitHubEvent)} before being fired and thus do not wait.
+ */
+@ApplicationScoped
+public class PullRequestEventCoalescer {
+
+    private static final Set<String> COALESCED_ACTIONS = Set.of(PullRequest.Opened.NAME, PullRequest.Edited.NAME,
+            PullRequest.Synchronize.NAME, PullRequest.Reopened.NAME, PullRequest.ReadyForReview.NAME);
+
+    private static final long RETENTION_MILLIS = Duration.ofMinutes(10).toMillis();
+
+    private final Map<String, PullRequestEvents> pullRequestEvents = new ConcurrentHashMap<>();
+
+    // events awaiting the quiet window, keyed by their logical keys
+    private final Map<String, PendingEvent> pendingEvents = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("wildfly-bot-coalescer").daemon().factory());
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Inject
+    WildFlyBotConfig wildFlyBotConfig;
+
+    @Inject
+    BotEditDetector botEditDetector;
+
+    @Inject
+    EventDeduplicator eventDeduplicator;
+
+    @Inject
+    ErrorHandler errorHandler;
+
+    /**
+     * Makes the event the latest event of its pull request, unless it has been announced already.
+     */
+    public void announce(GitHubEvent gitHubEvent) {
+        String pullRequestKey = pullRequestKey(gitHubEvent);
+        String eventKey = EventDeduplicator.logicalKey(gitHubEvent);
+        if (pullRequestKey != null && eventKey != null) {
+            announce(pullRequestKey, eventKey);
+        }
+    }
+
+    /**
+     * Runs the task, if the event is the latest event of its pull request, or the {@code superseded} callback
+     * otherwise. Events delivered by a webhook are decided only after the quiet window, in the meantime the
+     * caller is not blocked and the task runs later on a virtual thread. Failures of such a task are reported
+     * to the {@link ErrorHandler} with the {@code payload}, like failures of the processors themselves.
+     */
+    public void whenLatest(GitHubEvent gitHubEvent, GHEventPayload payload, PullRequestLanes.LaneTask task,
+            Runnable superseded) throws IOException {
+        String pullRequestKey = pullRequestKey(gitHubEvent);
+        String eventKey = EventDeduplicator.logicalKey(gitHubEvent);
+        if (pullRequestKey == null || eventKey == null) {
+            task.run();
+            return;
+        }
+
+        PullRequestEvents events = announce(pullRequestKey, eventKey);
+        long quietWindow = wildFlyBotConfig.coalescingQuietWindow() * 1000L;
+        if (gitHubEvent.isReplayed() || quietWindow <= 0) {
+            if (events.isLatest(eventKey)) {
+                task.run();
+            } else {
+                superseded.run();
+            }
+            return;
+        }
+        eventDeduplicator.deferDelivery(gitHubEvent.getDeliveryId());
+        PendingTask pendingTask = new PendingTask(gitHubEvent, payload, task, superseded);
+        PendingEvent created = new PendingEvent(events, eventKey, new ArrayList<>());
+        // the other processors of the event join the pending event, until it is decided
+        PendingEvent pendingEvent = pendingEvents.compute(eventKey, (key, pending) -> {
+            PendingEvent joined = pending == null ? created : pending;
+            joined.tasks().add(pendingTask);
+            return joined;
+        });
+        if (pendingEvent == created) {
+            schedule(created, quietWindow, quietWindow);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    private void schedule(PendingEvent pendingEvent, long delay, long quietWindow) {
+        scheduler.schedule(() -> {
+            if (!pendingEvent.events().isLatest(pendingEvent.eventKey())) {
+                pendingEvents.remove(pendingEvent.eventKey(), pendingEvent);
+                executor.execute(() -> pendingEvent.tasks().forEach(this::supersede));
+                return;
+            }
+            // a newer announcement of the same event, e.g. a redelivery, restarts the quiet window
+            long remaining = pendingEvent.events().announcedAt() + quietWindow - System.currentTimeMillis();
+            if (remaining > 0) {
+                schedule(pendingEvent, remaining, quietWindow);
+                return;
+            }
+            pendingEvents.remove(pendingEvent.eventKey(), pendingEvent);
+            executor.execute(() -> run(pendingEvent.tasks()));
+        }, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void supersede(PendingTask pendingTask) {
+        try {
+            pendingTask.superseded().run();
+        } finally {
+            eventDeduplicator.finishDeferredDelivery(pendingTask.gitHubEvent().getDeliveryId(), true);
+        }
+    }
+
+    private void run(List<PendingTask> pendingTasks) {
+        // the request context of the webhook has been terminated already, there is none outside the container
+        ArcContainer container = Arc.container();
+        ManagedContext requestContext = container == null ? null : container.requestContext();
+        if (requestContext != null) {
+            requestContext.activate();
+        }
+        List<PendingTask> succeeded = new ArrayList<>();
+        try {
+            for (PendingTask pendingTask : pendingTasks) {
+                try {
+                    pendingTask.task().run();
+                    succeeded.add(pendingTask);
+                } catch (IOException | RuntimeException e) {
+                    errorHandler.handleError(pendingTask.gitHubEvent(), pendingTask.payload(), e);
+                }
+            }
+        } finally {
+            if (requestContext != null) {
+                requestContext.terminate();
+            }
+            pendingTasks.forEach(pendingTask -> eventDeduplicator.finishDeferredDelivery(
+                    pendingTask.gitHubEvent().getDeliveryId(), succeeded.contains(pendingTask)));
+        }
+    }
+
+    /**
+     * Forgets all announced events.
+     */
+    public void clear() {
+        pullRequestEvents.clear();
+    }
+
+    private PullRequestEvents announce(String pullRequestKey, String eventKey) {
+        long now = System.currentTimeMillis();
+        pullRequestEvents.values().removeIf(events -> events.announcedAt() < now - RETENTION_MILLIS);
+        return pullRequestEvents.computeIfAbsent(pullRequestKey, key -> new PullRequestEvents())
+                .announce(eventKey, now);
+    }
+
+    // edits made by the bot are skipped by the processors, thus they must not supersede any other event
+    private String pullRequestKey(GitHubEvent gitHubEvent) {
+        if (!PullRequest.NAME.equals(gitHubEvent.getEvent()) || !COALESCED_ACTIONS.contains(gitHubEvent.getAction())
+                || botEditDetector.isBotEdit(gitHubEvent)) {
+            return null;
+        }
+        return PullRequestLanes.pullRequestKey(gitHubEvent);
+    }
+
+    private record PendingEvent(PullRequestEvents events, String eventKey, List<PendingTask> tasks) {
+    }
+
+    private record PendingTask(GitHubEvent gitHubEvent, GHEventPayload payload, PullRequestLanes.LaneTask task,
+            Runnable superseded) {
+    }
+
+    /**
+     * Events of a single pull request, which have been announced so far.
+     */
+    private static final class PullRequestEvents {
+
+        private final Set<String> announced = new HashSet<>();
+        private String latest;
+        private long announcedAt;
+
+        synchronized PullRequestEvents announce(String eventKey, long now) {
+            if (announced.add(eventKey)) {
+                latest = eventKey;
+                announcedAt = now;
+            }
+            return this;
+        }
+
+        synchronized boolean isLatest(String eventKey) {
+            return eventKey.equals(latest);
+        }
+
+        synchronized long announcedAt() {
+            return announcedAt;
+        }
+    }
+}
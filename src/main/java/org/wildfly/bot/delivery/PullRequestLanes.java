@@ -0,0 +1,142 @@
+package org.wildfly.bot.delivery;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkus.arc.Arc;
+import io.quarkus.arc.ArcContainer;
+import io.vertx.core.json.JsonObject;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Serializes the handling of events of the same pull request, while events of different pull requests are
+ * handled in parallel. Every pull request, identified by its repository and number, has a lane of its own, which
+ * its events enter one by one in the order they arrived. Thus, for example, reading the current labels or comments
+ * and then updating them never interleaves with another event of the same pull request.
+ * <p>
+ * An event enters the lane only once, the first processor handling it waits for the previous events of the pull
+ * request to leave the lane, the other processors of the event run directly. The event leaves the lane at the end of
+ * its request, see {@link EventLanes}, i.e. after all processors have handled it. The tasks run on the thread of the
+ * processor, which has nothing else to do while waiting, and thus their failures are thrown to the processor as usual.
+ * The lane of a pull request exists only while any of its events is in it.
+ * <p>
+ * The number of events waiting for a lane is exposed as the {@code wildfly.bot.lanes.queue} gauge.
+ */
+@ApplicationScoped
+public class PullRequestLanes {
+
+    private static final ThreadLocal<String> CURRENT_LANE = new ThreadLocal<>();
+
+    // the last event, which has entered the lane of every pull request, completed once the event leaves the lane
+    private final Map<String, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    EventLanes eventLanes;
+
+    @PostConstruct
+    void init() {
+        Gauge.builder("wildfly.bot.lanes.queue", queued::get)
+                .description("Number of events waiting for the lane of their pull request")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs the task in the lane of the event's pull request. The task runs directly if the event does not belong
+     * to any pull request, or if the event is in the lane already.
+     */
+    public void run(GitHubEvent gitHubEvent, LaneTask task) throws IOException {
+        ArcContainer container = Arc.container();
+        run(gitHubEvent, task, container != null && container.requestContext().isActive() ? eventLanes : null);
+    }
+
+    /**
+     * @param eventLanes lanes the event is in, or null if there is no request, in which case the event leaves the
+     *        lane right after the task
+     */
+    void run(GitHubEvent gitHubEvent, LaneTask task, EventLanes eventLanes) throws IOException {
+        String pullRequestKey = pullRequestKey(gitHubEvent);
+        if (pullRequestKey == null || pullRequestKey.equals(CURRENT_LANE.get())
+                || (eventLanes != null && eventLanes.isIn(pullRequestKey))) {
+            task.run();
+            return;
+        }
+
+        Runnable leave = enter(pullRequestKey);
+        if (eventLanes != null) {
+            eventLanes.entered(pullRequestKey, leave);
+            task.run();
+            return;
+        }
+        CURRENT_LANE.set(pullRequestKey);
+        try {
+            task.run();
+        } finally {
+            CURRENT_LANE.remove();
+            leave.run();
+        }
+    }
+
+    /**
+     * Waits for the previous events of the pull request to leave its lane.
+     *
+     * @return callback leaving the lane
+     */
+    private Runnable enter(String pullRequestKey) throws IOException {
+        CompletableFuture<Void> entered = new CompletableFuture<>();
+        CompletableFuture<Void> previous = tails.put(pullRequestKey, entered);
+        Runnable leave = () -> {
+            entered.complete(null);
+            tails.remove(pullRequestKey, entered);
+        };
+        if (previous == null) {
+            return leave;
+        }
+
+        queued.incrementAndGet();
+        try {
+            previous.get();
+            return leave;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // the following events must not overtake the previous ones
+            previous.whenComplete((result, failure) -> leave.run());
+            throw new IOException("Interrupted while waiting for the lane of " + pullRequestKey, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    /**
+     * @return key of the pull request the event belongs to, i.e. {@code <repository>#<number>}, or null if
+     *         the event does not belong to any pull request
+     */
+    public static String pullRequestKey(GitHubEvent gitHubEvent) {
+        JsonObject payload = gitHubEvent.getParsedPayload();
+        if (payload == null || !(payload.getValue("pull_request") instanceof JsonObject pullRequest)) {
+            return null;
+        }
+        return gitHubEvent.getRepository().orElse("") + "#" + pullRequest.getValue("number");
+    }
+
+    @FunctionalInterface
+    public interface LaneTask {
+
+        void run() throws IOException;
+    }
+}
@@ -0,0 +1,47 @@
+package org.wildfly.bot.delivery;
+
+import io.vertx.ext.web.Router;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+/**
+ * Acknowledges webhook redeliveries, which have already been accepted, without dispatching them again.
+ * The delivery is remembered only once the webhook handler responds with 2xx, so that redeliveries of
+ * failed deliveries are still handled.
+ */
+@ApplicationScoped
+public class WebhookDeliveryFilter {
+
+    private static final String X_GITHUB_DELIVERY = "X-GitHub-Delivery";
+
+    // runs before the webhook route of quarkus-github-app
+    private static final int ORDER = -100;
+
+    @Inject
+    EventDeduplicator eventDeduplicator;
+
+    @ConfigProperty(name = "quarkus.github-app.webhook-url-path", defaultValue = "/")
+    String webhookUrlPath;
+
+    void init(@Observes Router router) {
+        router.post(webhookUrlPath).order(ORDER).handler(routingContext -> {
+            String deliveryId = routingContext.request().getHeader(X_GITHUB_DELIVERY);
+            if (deliveryId == null) {
+                routingContext.next();
+                return;
+            }
+            if (!eventDeduplicator.beginDelivery(deliveryId)) {
+                routingContext.response().setStatusCode(200).end();
+                return;
+            }
+            routingContext.addEndHandler(result -> {
+                int statusCode = routingContext.response().getStatusCode();
+                eventDeduplicator.completeDelivery(deliveryId,
+                        result.succeeded() && statusCode >= 200 && statusCode < 300);
+            });
+            routingContext.next();
+        });
+    }
+}
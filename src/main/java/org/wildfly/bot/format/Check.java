@@ -19,4 +19,12 @@ public interface Check {
     String check(GHPullRequest pullRequest) throws IOException;
 
     String getName();
+
+    /**
+     * @return key identifying the check and its configuration, if the result depends only on the commits of
+     *         the pull request and thus can be reused as long as the commits stay the same, otherwise null
+     */
+    default String getCommitsCacheKey() {
+        return null;
+    }
 }
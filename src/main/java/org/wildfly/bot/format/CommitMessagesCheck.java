@@ -1,13 +1,24 @@
 package org.wildfly.bot.format;
 
+import io.micrometer.core.instrument.Counter;
+import org.wildfly.bot.history.GitMirror;
 import org.wildfly.bot.model.RegexDefinition;
 import org.wildfly.bot.util.Patterns;
+import org.wildfly.bot.util.RegexBudgetExceededException;
 import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHPullRequestCommitDetail;
 import org.kohsuke.github.PagedIterable;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
+import java.util.stream.StreamSupport;
 import java.io.IOException;
 
+import static org.wildfly.bot.model.RuntimeConstants.ABORTED_PATTERN_MESSAGE;
 import static org.wildfly.bot.model.RuntimeConstants.DEPENDABOT;
 
 public class CommitMessagesCheck implements Check {
@@ -17,13 +28,27 @@ public class CommitMessagesCheck implements Check {
 
     private final Pattern pattern;
     private final String message;
+    private final Counter aborted;
+    private final Supplier<Optional<List<GitMirror.Commit>>> mirroredCommits;
 
     public CommitMessagesCheck(RegexDefinition description) {
+        this(description, null, Optional::empty);
+    }
+
+    /**
+     * @param aborted counter of the aborted matches of the pattern, see {@link Patterns#abortedCounter}
+     * @param mirroredCommits commits of the pull request from the {@link GitMirror}, the commits are listed by
+     *        the REST API if it returns an empty optional
+     */
+    public CommitMessagesCheck(RegexDefinition description, Counter aborted,
+            Supplier<Optional<List<GitMirror.Commit>>> mirroredCommits) {
         if (description.pattern == null) {
             throw new IllegalArgumentException("Input argument cannot be null");
         }
         pattern = description.pattern;
         message = description.message;
+        this.aborted = aborted;
+        this.mirroredCommits = mirroredCommits;
     }
 
     @Override
@@ -33,28 +58,38 @@ public class CommitMessagesCheck implements Check {
             return null;
         }
 
+        Optional<List<GitMirror.Commit>> mirrored = mirroredCommits.get();
+        if (mirrored.isPresent()) {
+            return check(mirrored.get().iterator());
+        }
+
         PagedIterable<GHPullRequestCommitDetail> commits = pullRequest.listCommits();
-        if (commits != null) {
-            boolean oneMatched = false;
-            for (GHPullRequestCommitDetail commit : commits) {
-                if (commit.getCommit() != null) {
-                    String commitMessage = commit.getCommit().getMessage();
-                    if (commitMessage.isEmpty()) {
-                        return commit.getSha() + ": Commit message is Empty";
-                    }
+        if (commits == null) {
+            return null;
+        }
+        // the commits are mapped lazily, so that no further pages are listed once a message matches
+        return check(StreamSupport.stream(Spliterators.spliteratorUnknownSize(commits.iterator(), Spliterator.ORDERED), false)
+                .filter(commit -> commit.getCommit() != null)
+                .map(commit -> new GitMirror.Commit(commit.getSha(), commit.getCommit().getMessage()))
+                .iterator());
+    }
 
-                    if (Patterns.matches(pattern, commitMessage)) {
-                        oneMatched = true;
-                        break;
-                    }
-                }
+    private String check(Iterator<GitMirror.Commit> commits) {
+        while (commits.hasNext()) {
+            GitMirror.Commit commit = commits.next();
+            if (commit.message().isEmpty()) {
+                return commit.sha() + ": Commit message is Empty";
             }
-            if (!oneMatched) {
-                return formatMessageWithDetailsIfNeeded(String.format(this.message, pattern.pattern()));
+
+            try {
+                if (Patterns.matches(pattern, commit.message(), aborted)) {
+                    return null;
+                }
+            } catch (RegexBudgetExceededException e) {
+                return ABORTED_PATTERN_MESSAGE.formatted(getName(), pattern.pattern());
             }
         }
-
-        return null;
+        return formatMessageWithDetailsIfNeeded(String.format(this.message, pattern.pattern()));
     }
 
     @Override
@@ -62,6 +97,11 @@ public class CommitMessagesCheck implements Check {
         return "commit";
     }
 
+    @Override
+    public String getCommitsCacheKey() {
+        return String.join("#", getName(), pattern.pattern(), String.valueOf(message));
+    }
+
     private String formatMessageWithDetailsIfNeeded(String message) {
         if (message.length() > MAX_COMMIT_MESSAGE_LENGTH) {
             return new StringBuilder()
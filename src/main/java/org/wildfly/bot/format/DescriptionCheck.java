@@ -1,19 +1,33 @@
 package org.wildfly.bot.format;
 
+import io.micrometer.core.instrument.Counter;
 import org.wildfly.bot.model.Description;
 import org.wildfly.bot.model.RegexDefinition;
+import org.wildfly.bot.util.Patterns;
+import org.wildfly.bot.util.RegexBudgetExceededException;
 import org.kohsuke.github.GHPullRequest;
 
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import static org.wildfly.bot.model.RuntimeConstants.ABORTED_PATTERN_MESSAGE;
+
 public class DescriptionCheck implements Check {
     static final String DEFAULT_MESSAGE = "Invalid description content";
 
     private Description description;
     private String message = DEFAULT_MESSAGE;
+    private final Counter aborted;
 
     public DescriptionCheck(Description description) {
+        this(description, null);
+    }
+
+    /**
+     * @param aborted counter of the aborted matches of the patterns, see {@link Patterns#abortedCounter}
+     */
+    public DescriptionCheck(Description description, Counter aborted) {
+        this.aborted = aborted;
         if (description == null) {
             throw new IllegalArgumentException("At least one regex definition must be provided");
         }
@@ -38,12 +52,16 @@ public class DescriptionCheck implements Check {
                 Pattern pattern = regexDefinition.pattern;
 
                 boolean regexMatched = false;
-                for (String line : lines) {
-                    Matcher matcher = pattern.matcher(line);
-                    if (matcher.find()) {
-                        regexMatched = true;
-                        break;
+                try {
+                    for (String line : lines) {
+                        Matcher matcher = Patterns.matcher(pattern, line, aborted);
+                        if (matcher.find()) {
+                            regexMatched = true;
+                            break;
+                        }
                     }
+                } catch (RegexBudgetExceededException e) {
+                    return ABORTED_PATTERN_MESSAGE.formatted(getName(), pattern.pattern());
                 }
 
                 if (!regexMatched) {
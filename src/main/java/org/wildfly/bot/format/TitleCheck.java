@@ -1,28 +1,45 @@
 package org.wildfly.bot.format;
 
+import io.micrometer.core.instrument.Counter;
 import org.wildfly.bot.model.RegexDefinition;
 import org.wildfly.bot.util.Patterns;
+import org.wildfly.bot.util.RegexBudgetExceededException;
 import org.kohsuke.github.GHPullRequest;
 
 import java.util.regex.Pattern;
 
+import static org.wildfly.bot.model.RuntimeConstants.ABORTED_PATTERN_MESSAGE;
+
 public class TitleCheck implements Check {
 
     private final Pattern pattern;
     private final String message;
+    private final Counter aborted;
 
     public TitleCheck(RegexDefinition title) {
+        this(title, null);
+    }
+
+    /**
+     * @param aborted counter of the aborted matches of the pattern, see {@link Patterns#abortedCounter}
+     */
+    public TitleCheck(RegexDefinition title, Counter aborted) {
         if (title.pattern == null) {
             throw new IllegalArgumentException("Input argument cannot be null");
         }
         pattern = title.pattern;
         message = title.message;
+        this.aborted = aborted;
     }
 
     @Override
     public String check(GHPullRequest pullRequest) {
-        if (!Patterns.matches(pattern, pullRequest.getTitle())) {
-            return message.formatted(pattern.pattern());
+        try {
+            if (!Patterns.matches(pattern, pullRequest.getTitle(), aborted)) {
+                return message.formatted(pattern.pattern());
+            }
+        } catch (RegexBudgetExceededException e) {
+            return ABORTED_PATTERN_MESSAGE.formatted(getName(), pattern.pattern());
         }
 
         return null;
@@ -0,0 +1,249 @@
+package org.wildfly.bot.history;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.kohsuke.github.GHCommit;
+import org.kohsuke.github.GHCompare;
+import org.kohsuke.github.GHRepository;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Knows the commits of the base branches of pull requests, so that checking whether a commit of a pull request
+ * is already in its base branch is a single lookup instead of listing the whole history of the branch.
+ * <p>
+ * The history of a branch is listed once, when a pull request against the branch is checked for the first time.
+ * Afterwards the index is extended by the commits of {@code push} events to the branch, or by comparing the last
+ * indexed commit with the base commit of a pull request, if a push has been missed, e.g. in the polling mode.
+ * Forced pushes and pushes, which do not continue the indexed history, drop the index of the branch, which is
+ * then listed again.
+ * <p>
+ * Lookups are counted by the {@code wildfly.bot.base.index.lookups} counter, tagged by {@code result}, which is
+ * {@code indexed} if the branch has been indexed already, {@code seeded} if the history has been listed by the
+ * lookup, or {@code cold} if the history is being listed by another event.
+ * <p>
+ * The commits are kept in a {@link CommitSet} per branch, i.e. in memory-mapped files, so the heap usage does
+ * not grow with the length of the histories.
+ */
+@ApplicationScoped
+public class BaseBranchIndex {
+
+    private static final Logger LOG = Logger.getLogger(BaseBranchIndex.class);
+
+    private static final String BRANCH_REF_PREFIX = "refs/heads/";
+
+    // push payloads list at most 2048 commits, longer pushes are truncated
+    private static final int MAX_PUSH_COMMITS = 2048;
+
+    private final Map<String, Commits> branches = new ConcurrentHashMap<>();
+    private final Set<String> seeding = ConcurrentHashMap.newKeySet();
+
+    private Counter indexed;
+    private Counter seeded;
+    private Counter cold;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @Inject
+    WildFlyBotConfig wildFlyBotConfig;
+
+    private Path directory;
+
+    @PostConstruct
+    void init() {
+        directory = wildFlyBotConfig.baseIndexDirectory().map(Path::of).orElse(null);
+        indexed = counter("indexed");
+        seeded = counter("seeded");
+        cold = counter("cold");
+    }
+
+    /**
+     * @return the commits of the branch, or null if the branch has not been indexed yet
+     */
+    public Commits get(String repository, String branch) {
+        Commits commits = branches.get(key(repository, branch));
+        if (commits != null) {
+            indexed.increment();
+        }
+        return commits;
+    }
+
+    /**
+     * Indexes the history of the branch, unless another event is doing so already.
+     *
+     * @param history commits of the branch, starting with the most recent one
+     * @return the commits of the branch, or null if the history is being indexed by another event
+     */
+    public Commits seed(String repository, String branch, Iterable<GHCommit> history) throws IOException {
+        String key = key(repository, branch);
+        if (!seeding.add(key)) {
+            cold.increment();
+            return null;
+        }
+        try (CommitSet.Builder builder = CommitSet.builder(directory)) {
+            String head = null;
+            for (GHCommit commit : history) {
+                if (head == null) {
+                    head = commit.getSHA1();
+                }
+                builder.add(commit.getSHA1());
+            }
+            Commits commits = new Commits(builder.build(), head);
+            Commits previous = branches.put(key, commits);
+            if (previous != null) {
+                previous.close();
+            }
+            seeded.increment();
+            LOG.debugf("Indexed %d commits of the branch %s in %s", commits.shas.size(), branch, repository);
+            return commits;
+        } finally {
+            seeding.remove(key);
+        }
+    }
+
+    /**
+     * Extends the index of the branch, so that it contains the commit, by comparing the commit with the last
+     * indexed one. Drops the index, if the commit does not continue the indexed history.
+     *
+     * @return the commits of the branch including the given one, or null if the index has been dropped
+     */
+    public Commits catchUp(String repository, String branch, Commits commits, String sha, GHRepository gitHubRepository)
+            throws IOException {
+        if (sha == null || commits.contains(sha)) {
+            return commits;
+        }
+        String head = commits.head;
+        GHCompare compare = head == null ? null : gitHubRepository.getCompare(head, sha);
+        synchronized (commits) {
+            if (compare != null && compare.getStatus() == GHCompare.Status.ahead && head.equals(commits.head)
+                    && compare.getTotalCommits() == compare.getCommits().length) {
+                for (GHCompare.Commit commit : compare.getCommits()) {
+                    commits.add(commit.getSHA1());
+                }
+                commits.head = sha;
+                return commits;
+            }
+        }
+        drop(repository, branch, commits);
+        return null;
+    }
+
+    /**
+     * Adds the commits pushed to an indexed branch. The commits of push payloads retrieved from the events API are
+     * truncated to the 20 most recent ones, and the payloads do not tell forced pushes, therefore such pushes are
+     * verified by {@link #catchUp} instead.
+     *
+     * @implNote Webhook payloads contain the pushed commit in {@code after} and the commits' SHAs in {@code id},
+     *           whereas payloads from the events API contain them in {@code head} and {@code sha}.
+     */
+    public void update(GitHubEvent gitHubEvent, GHRepository gitHubRepository) {
+        JsonObject payload = gitHubEvent.getParsedPayload();
+        String repository = gitHubEvent.getRepository().orElse(null);
+        String ref = payload.getString("ref");
+        if (repository == null || ref == null || !ref.startsWith(BRANCH_REF_PREFIX)) {
+            return;
+        }
+        String branch = ref.substring(BRANCH_REF_PREFIX.length());
+        Commits commits = branches.get(key(repository, branch));
+        if (commits == null) {
+            return;
+        }
+        if (payload.getBoolean("deleted", false) || payload.getBoolean("forced", false)) {
+            drop(repository, branch, commits);
+            return;
+        }
+
+        String after = payload.getString("after", payload.getString("head"));
+        JsonArray pushed = payload.getJsonArray("commits");
+        boolean complete = pushed != null && pushed.size() < MAX_PUSH_COMMITS
+                && payload.getInteger("size", pushed.size()) == pushed.size();
+        if (complete && payload.containsKey("forced")) {
+            synchronized (commits) {
+                if (payload.getString("before", "").equals(commits.head)) {
+                    for (int i = 0; i < pushed.size(); i++) {
+                        JsonObject commit = pushed.getJsonObject(i);
+                        commits.add(commit.getString("id", commit.getString("sha")));
+                    }
+                    commits.head = after;
+                    return;
+                }
+            }
+        }
+
+        try {
+            catchUp(repository, branch, commits, after, gitHubRepository);
+        } catch (IOException e) {
+            LOG.debugf(e, "Unable to compare the branch %s in %s with the pushed commit %s", branch, repository, after);
+            drop(repository, branch, commits);
+        }
+    }
+
+    /**
+     * Forgets all indexed branches and releases their files.
+     */
+    public void clear() {
+        branches.values().removeIf(commits -> {
+            commits.close();
+            return true;
+        });
+    }
+
+    private void drop(String repository, String branch, Commits commits) {
+        if (branches.remove(key(repository, branch), commits)) {
+            commits.close();
+            LOG.debugf("Dropped the index of the branch %s in %s, as its history has been rewritten", branch,
+                    repository);
+        }
+    }
+
+    private Counter counter(String result) {
+        return Counter.builder("wildfly.bot.base.index.lookups")
+                .description("Number of lookups of the commits of base branches")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String key(String repository, String branch) {
+        return repository + "#" + branch;
+    }
+
+    /**
+     * Commits of an indexed branch.
+     */
+    public static final class Commits {
+
+        private final CommitSet shas;
+        // the most recent indexed commit of the branch
+        private volatile String head;
+
+        private Commits(CommitSet shas, String head) {
+            this.shas = shas;
+            this.head = head;
+        }
+
+        public boolean contains(String sha) {
+            return shas.contains(sha);
+        }
+
+        private void add(String sha) {
+            shas.add(sha);
+        }
+
+        private void close() {
+            shas.close();
+        }
+    }
+}
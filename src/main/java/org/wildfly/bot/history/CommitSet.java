@@ -0,0 +1,332 @@
+package org.wildfly.bot.history;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Set of commit SHAs, which keeps the heap usage flat regardless of the length of the history.
+ * <p>
+ * The SHAs are stored as 20 bytes each, sorted, in a memory-mapped file, and looked up by binary search. A Bloom
+ * filter, which is stored in the same file behind the SHAs, answers most lookups of commits not in the set without
+ * touching the SHAs at all. The file is deleted as soon as it is mapped, so nothing is left behind, when the set is
+ * dropped or the application stops. Commits added later, i.e. by pushes, are kept in a small in-memory delta, which
+ * is merged into a new file, once it grows over {@value #MAX_DELTA} commits.
+ * <p>
+ * Closing the set drops the mapped file, so that it is unmapped as soon as the buffer is collected, even if the set
+ * is still referenced, e.g. by an event being processed, which then does not find any commits in the set anymore.
+ */
+final class CommitSet implements AutoCloseable {
+
+    private static final int SHA_LENGTH = 20;
+    private static final int SHA_HEX_LENGTH = 2 * SHA_LENGTH;
+
+    // about 1% false positives
+    private static final int BLOOM_BITS_PER_COMMIT = 10;
+    private static final int BLOOM_HASHES = 7;
+
+    static final int MAX_DELTA = 4096;
+
+    private static final Snapshot EMPTY = new Snapshot(null, 0, 0);
+
+    private final Path directory;
+    private final Set<String> delta = ConcurrentHashMap.newKeySet();
+    private volatile Snapshot snapshot;
+    private volatile boolean closed;
+
+    private CommitSet(Path directory, Snapshot snapshot) {
+        this.directory = directory;
+        this.snapshot = snapshot;
+    }
+
+    boolean contains(String sha) {
+        if (sha == null) {
+            return false;
+        }
+        if (delta.contains(sha)) {
+            return true;
+        }
+        byte[] binary = toBinary(sha);
+        return binary != null && snapshot.contains(binary);
+    }
+
+    /**
+     * @throws IllegalArgumentException if the SHA is not 40 hexadecimal characters
+     */
+    void add(String sha) {
+        if (sha == null || contains(sha) || closed) {
+            return;
+        }
+        requireBinary(sha);
+        delta.add(sha);
+        if (delta.size() >= MAX_DELTA) {
+            compact();
+        }
+    }
+
+    int size() {
+        return snapshot.count + delta.size();
+    }
+
+    // commits not merged into the file yet
+    int deltaSize() {
+        return delta.size();
+    }
+
+    /**
+     * Drops the reference to the mapped file, which is unmapped once the buffer is collected.
+     */
+    @Override
+    public synchronized void close() {
+        closed = true;
+        snapshot = EMPTY;
+        delta.clear();
+    }
+
+    private synchronized void compact() {
+        if (delta.size() < MAX_DELTA || closed) {
+            return;
+        }
+        List<String> merged = List.copyOf(delta);
+        Snapshot current = snapshot;
+        try (Builder builder = new Builder(directory)) {
+            builder.addAll(current);
+            for (String sha : merged) {
+                builder.add(sha);
+            }
+            snapshot = builder.snapshot();
+        } catch (IOException | UncheckedIOException e) {
+            // keep the delta, the compaction is tried again on the next commit added
+            return;
+        }
+        // the merged commits are in the new snapshot already, thus are never missing for a concurrent lookup
+        merged.forEach(delta::remove);
+    }
+
+    private static byte[] requireBinary(String sha) {
+        byte[] binary = toBinary(sha);
+        if (binary == null) {
+            throw new IllegalArgumentException("Not a commit SHA: " + sha);
+        }
+        return binary;
+    }
+
+    private static byte[] toBinary(String sha) {
+        if (sha == null || sha.length() != SHA_HEX_LENGTH) {
+            return null;
+        }
+        try {
+            return HexFormat.of().parseHex(sha);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @param directory where the file is created, the default temporary directory if null
+     */
+    static Builder builder(Path directory) throws IOException {
+        return new Builder(directory);
+    }
+
+    private record Snapshot(MappedByteBuffer buffer, int count, long bloomBits) {
+
+        private boolean contains(byte[] sha) {
+            if (count == 0) {
+                return false;
+            }
+            long h1 = ByteBuffer.wrap(sha).getLong(0);
+            long h2 = ByteBuffer.wrap(sha).getLong(8) | 1;
+            long bloom = (long) count * SHA_LENGTH;
+            for (int i = 0; i < BLOOM_HASHES; i++) {
+                long bit = Math.floorMod(h1 + i * h2, bloomBits);
+                if ((buffer.get((int) (bloom + bit / 8)) & (1 << (bit % 8))) == 0) {
+                    return false;
+                }
+            }
+
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int middle = (low + high) >>> 1;
+                int comparison = compare(buffer, middle, sha);
+                if (comparison < 0) {
+                    low = middle + 1;
+                } else if (comparison > 0) {
+                    high = middle - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private static int compare(ByteBuffer buffer, int record, byte[] sha) {
+            int offset = record * SHA_LENGTH;
+            for (int i = 0; i < SHA_LENGTH; i++) {
+                int comparison = Byte.compareUnsigned(buffer.get(offset + i), sha[i]);
+                if (comparison != 0) {
+                    return comparison;
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * Writes the SHAs to a temporary file and sorts them in place, so that building the set does not need
+     * the whole history on the heap either.
+     */
+    static final class Builder implements AutoCloseable {
+
+        private final Path directory;
+        private final Path file;
+        private final FileChannel channel;
+        private final ByteBuffer pending = ByteBuffer.allocate(512 * SHA_LENGTH);
+        private int count;
+
+        private Builder(Path directory) throws IOException {
+            this.directory = directory;
+            file = directory == null ? Files.createTempFile("commits-", ".bin")
+                    : Files.createTempFile(Files.createDirectories(directory), "commits-", ".bin");
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the SHA is not 40 hexadecimal characters
+         */
+        Builder add(String sha) {
+            byte[] binary = requireBinary(sha);
+            if (!pending.hasRemaining()) {
+                flush();
+            }
+            pending.put(binary);
+            count++;
+            return this;
+        }
+
+        CommitSet build() throws IOException {
+            return new CommitSet(directory, snapshot());
+        }
+
+        private void addAll(Snapshot snapshot) {
+            byte[] sha = new byte[SHA_LENGTH];
+            for (int i = 0; i < snapshot.count; i++) {
+                snapshot.buffer.get(i * SHA_LENGTH, sha);
+                if (!pending.hasRemaining()) {
+                    flush();
+                }
+                pending.put(sha);
+                count++;
+            }
+        }
+
+        private Snapshot snapshot() throws IOException {
+            flush();
+            long bloomBits = Math.max(64, (long) count * BLOOM_BITS_PER_COMMIT);
+            long size = (long) count * SHA_LENGTH + (bloomBits + 7) / 8;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            sort(buffer, count);
+            int unique = deduplicate(buffer, count);
+            long bloom = (long) unique * SHA_LENGTH;
+            for (long i = bloom; i < size; i++) {
+                buffer.put((int) i, (byte) 0);
+            }
+            byte[] sha = new byte[SHA_LENGTH];
+            for (int record = 0; record < unique; record++) {
+                buffer.get(record * SHA_LENGTH, sha);
+                long h1 = ByteBuffer.wrap(sha).getLong(0);
+                long h2 = ByteBuffer.wrap(sha).getLong(8) | 1;
+                for (int i = 0; i < BLOOM_HASHES; i++) {
+                    long bit = Math.floorMod(h1 + i * h2, bloomBits);
+                    int index = (int) (bloom + bit / 8);
+                    buffer.put(index, (byte) (buffer.get(index) | (1 << (bit % 8))));
+                }
+            }
+            return new Snapshot(buffer, unique, bloomBits);
+        }
+
+        @Override
+        public void close() throws IOException {
+            // the mapping stays valid after the file is deleted
+            channel.close();
+            Files.deleteIfExists(file);
+        }
+
+        private void flush() {
+            pending.flip();
+            try {
+                while (pending.hasRemaining()) {
+                    channel.write(pending);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            pending.clear();
+        }
+
+        // heap sort, as it needs no memory besides the file
+        private static void sort(ByteBuffer buffer, int count) {
+            byte[] a = new byte[SHA_LENGTH];
+            byte[] b = new byte[SHA_LENGTH];
+            for (int i = count / 2 - 1; i >= 0; i--) {
+                siftDown(buffer, i, count, a, b);
+            }
+            for (int end = count - 1; end > 0; end--) {
+                swap(buffer, 0, end, a, b);
+                siftDown(buffer, 0, end, a, b);
+            }
+        }
+
+        private static void siftDown(ByteBuffer buffer, int root, int count, byte[] a, byte[] b) {
+            while (2 * root + 1 < count) {
+                int child = 2 * root + 1;
+                if (child + 1 < count && compare(buffer, child, child + 1, a) < 0) {
+                    child++;
+                }
+                if (compare(buffer, root, child, a) >= 0) {
+                    return;
+                }
+                swap(buffer, root, child, a, b);
+                root = child;
+            }
+        }
+
+        private static int compare(ByteBuffer buffer, int left, int right, byte[] a) {
+            buffer.get(left * SHA_LENGTH, a);
+            return -Snapshot.compare(buffer, right, a);
+        }
+
+        private static void swap(ByteBuffer buffer, int left, int right, byte[] a, byte[] b) {
+            buffer.get(left * SHA_LENGTH, a);
+            buffer.get(right * SHA_LENGTH, b);
+            buffer.put(left * SHA_LENGTH, b);
+            buffer.put(right * SHA_LENGTH, a);
+        }
+
+        private static int deduplicate(ByteBuffer buffer, int count) {
+            if (count == 0) {
+                return 0;
+            }
+            byte[] sha = new byte[SHA_LENGTH];
+            int unique = 1;
+            for (int record = 1; record < count; record++) {
+                buffer.get(record * SHA_LENGTH, sha);
+                if (Snapshot.compare(buffer, unique - 1, sha) != 0) {
+                    buffer.put(unique * SHA_LENGTH, sha);
+                    unique++;
+                }
+            }
+            return unique;
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package org.wildfly.bot.history;
+
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.vertx.core.json.JsonObject;
+import jakarta.annotation.PreDestroy;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.jboss.logging.Logger;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Answers questions about commits, trees and merge bases from local bare mirrors of the repositories, instead of
+ * paginated REST calls. The mirrors are enabled by {@code wildfly-bot.mirror.enabled}, cloned on first use into
+ * {@code wildfly-bot.mirror.directory} from {@code wildfly-bot.mirror.url} and fetched on {@code push} events, or
+ * when a query refers to a commit, which has not been fetched yet. Cloning and fetching run on the worker pool,
+ * never on the thread handling the event, and requests to fetch a mirror, which is being fetched already, are
+ * coalesced into a single fetch.
+ * <p>
+ * All queries return an empty optional, if the mirrors are disabled or unable to answer, e.g. as the mirror has
+ * not been cloned yet or the commits have not been fetched yet, in which case the caller falls back to the
+ * REST API.
+ */
+@ApplicationScoped
+public class GitMirror {
+
+    private static final Logger LOG = Logger.getLogger(GitMirror.class);
+
+    private final Map<String, Mirror> mirrors = new ConcurrentHashMap<>();
+    // mirrors with a fetch scheduled, which has not started yet
+    private final Set<String> fetching = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    WildFlyBotConfig wildFlyBotConfig;
+
+    public boolean isEnabled() {
+        return wildFlyBotConfig.mirrorEnabled();
+    }
+
+    /**
+     * Schedules a fetch of the changes of the repository, cloning it if it has not been mirrored yet.
+     */
+    public void fetch(String repository) {
+        if (!isEnabled() || repository == null) {
+            return;
+        }
+        fetch(repository, mirror(repository));
+    }
+
+    /**
+     * @return true if the commit is reachable from the base commit
+     */
+    public Optional<Boolean> isMerged(String repository, String sha, String baseSha) {
+        return query(repository, mirror -> mirror.isMerged(sha, baseSha));
+    }
+
+    /**
+     * @return paths of the files changed by a pull request with the given base and head commits
+     */
+    public Optional<List<String>> changedFiles(String repository, String baseSha, String headSha) {
+        return query(repository, mirror -> mirror.changedFiles(baseSha, headSha));
+    }
+
+    /**
+     * @return commits of a pull request with the given base and head commits, from the oldest one
+     */
+    public Optional<List<Commit>> commits(String repository, String baseSha, String headSha) {
+        return query(repository, mirror -> mirror.commits(baseSha, headSha));
+    }
+
+    /**
+     * @return true if the head commit of a pull request merges into the base commit without conflicts
+     */
+    public Optional<Boolean> isMergeable(String repository, String baseSha, String headSha) {
+        return query(repository, mirror -> mirror.isMergeable(baseSha, headSha));
+    }
+
+    /**
+     * @return true if the file or directory exists on the default branch of the repository
+     */
+    public Optional<Boolean> exists(String repository, String path) {
+        return query(repository, mirror -> mirror.exists(path));
+    }
+
+    @PreDestroy
+    void close() {
+        mirrors.values().forEach(Mirror::close);
+        mirrors.clear();
+    }
+
+    /**
+     * @param pointer either {@code base} or {@code head}
+     * @return SHA of the base or head commit of the event's pull request, or null if there is none
+     */
+    public static String sha(GitHubEvent gitHubEvent, String pointer) {
+        JsonObject payload = gitHubEvent.getParsedPayload();
+        if (payload == null || !(payload.getValue("pull_request") instanceof JsonObject pullRequest)) {
+            return null;
+        }
+        return pullRequest.getValue(pointer) instanceof JsonObject commit ? commit.getString("sha") : null;
+    }
+
+    private <T> Optional<T> query(String repository, Query<T> query) {
+        if (!isEnabled() || repository == null) {
+            return Optional.empty();
+        }
+        Mirror mirror = mirror(repository);
+        if (!mirror.isCloned()) {
+            fetch(repository, mirror);
+            return Optional.empty();
+        }
+        try {
+            T result = query.run(mirror);
+            if (result == null) {
+                // the commits may have been pushed after the last fetch
+                fetch(repository, mirror);
+            }
+            return Optional.ofNullable(result);
+        } catch (IOException | GitAPIException e) {
+            LOG.warnf(e, "Unable to query the mirror of %s", repository);
+            return Optional.empty();
+        }
+    }
+
+    private void fetch(String repository, Mirror mirror) {
+        if (!fetching.add(repository)) {
+            return;
+        }
+        Infrastructure.getDefaultWorkerPool().execute(() -> {
+            // changes pushed from now on are fetched by another fetch
+            fetching.remove(repository);
+            try {
+                mirror.fetch();
+            } catch (IOException | GitAPIException | RuntimeException e) {
+                LOG.warnf(e, "Unable to fetch the mirror of %s", repository);
+            }
+        });
+    }
+
+    private Mirror mirror(String repository) {
+        return mirrors.computeIfAbsent(repository, name -> new Mirror(wildFlyBotConfig.mirrorUrl().formatted(name),
+                Path.of(wildFlyBotConfig.mirrorDirectory()).resolve(name + ".git")));
+    }
+
+    /**
+     * Commit of a pull request with its full message.
+     */
+    public record Commit(String sha, String message) {
+    }
+
+    @FunctionalInterface
+    private interface Query<T> {
+
+        T run(Mirror mirror) throws IOException, GitAPIException;
+    }
+}
@@ -0,0 +1,238 @@
+package org.wildfly.bot.history;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.api.errors.GitAPIException;
+import org.eclipse.jgit.diff.DiffConfig;
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.errors.MissingObjectException;
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.merge.MergeStrategy;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevSort;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.eclipse.jgit.revwalk.filter.RevFilter;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+import org.eclipse.jgit.treewalk.TreeWalk;
+import org.eclipse.jgit.treewalk.filter.TreeFilter;
+import org.eclipse.jgit.util.FileUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bare mirror of a single repository. The mirror fetches all refs, including {@code refs/pull/*}, so the commits
+ * of pull requests from forks are available as well.
+ * <p>
+ * The queries return null if any of the given commits is not in the mirror, in which case the caller is expected
+ * to fetch and try again. Fetches are serialized against each other, but never block the queries, which read
+ * the repository while it is being fetched into.
+ */
+final class Mirror implements AutoCloseable {
+
+    private final String url;
+    private final Path directory;
+    // set once the repository has been cloned or opened
+    private volatile Repository repository;
+
+    final ReentrantLock fetchLock = new ReentrantLock();
+
+    Mirror(String url, Path directory) {
+        this.url = url;
+        this.directory = directory;
+    }
+
+    /**
+     * @return true if the repository has been cloned completely
+     */
+    boolean isCloned() {
+        return repository != null || Files.isDirectory(directory.resolve("objects"));
+    }
+
+    /**
+     * Clones the repository, if it has not been cloned yet, otherwise fetches the changes of all refs. The clone
+     * is moved into place once it is complete, so an interrupted clone is never taken for the mirror.
+     */
+    void fetch() throws IOException, GitAPIException {
+        fetchLock.lock();
+        try {
+            fetchLocked();
+        } finally {
+            fetchLock.unlock();
+        }
+    }
+
+    private void fetchLocked() throws IOException, GitAPIException {
+        if (!isCloned()) {
+            Path clone = directory.resolveSibling(directory.getFileName() + ".tmp");
+            Files.createDirectories(directory.getParent());
+            FileUtils.delete(clone.toFile(), FileUtils.RECURSIVE | FileUtils.SKIP_MISSING);
+            try (Git ignored = Git.cloneRepository()
+                    .setURI(url)
+                    .setDirectory(clone.toFile())
+                    .setBare(true)
+                    .setMirror(true)
+                    .call()) {
+                Files.move(clone, directory, StandardCopyOption.ATOMIC_MOVE);
+            }
+            openIfAbsent();
+            return;
+        }
+        try (Git git = Git.wrap(repository())) {
+            git.fetch()
+                    .setRemote(Constants.DEFAULT_REMOTE_NAME)
+                    .setRemoveDeletedRefs(true)
+                    .call();
+        }
+    }
+
+    /**
+     * @return true if the commit is reachable from the base commit, i.e. it is already in the base branch
+     */
+    Boolean isMerged(String sha, String baseSha) throws IOException, GitAPIException {
+        try (RevWalk walk = new RevWalk(repository())) {
+            RevCommit commit = parseCommit(walk, sha);
+            RevCommit base = parseCommit(walk, baseSha);
+            return commit == null || base == null ? null : walk.isMergedInto(commit, base);
+        }
+    }
+
+    /**
+     * @return paths of the files changed between the merge base of both commits and the head commit, like
+     *         the files of a pull request, i.e. renamed files are reported by their new path only
+     */
+    List<String> changedFiles(String baseSha, String headSha) throws IOException, GitAPIException {
+        try (RevWalk walk = new RevWalk(repository())) {
+            RevCommit base = parseCommit(walk, baseSha);
+            RevCommit head = parseCommit(walk, headSha);
+            if (base == null || head == null) {
+                return null;
+            }
+            walk.setRevFilter(RevFilter.MERGE_BASE);
+            walk.markStart(base);
+            walk.markStart(head);
+            RevCommit mergeBase = walk.next();
+            if (mergeBase == null) {
+                return null;
+            }
+
+            RenameDetector renameDetector = new RenameDetector(walk.getObjectReader(),
+                    repository().getConfig().get(DiffConfig.KEY));
+            try (TreeWalk treeWalk = new TreeWalk(walk.getObjectReader())) {
+                treeWalk.addTree(walk.parseCommit(mergeBase).getTree());
+                treeWalk.addTree(head.getTree());
+                treeWalk.setRecursive(true);
+                treeWalk.setFilter(TreeFilter.ANY_DIFF);
+                renameDetector.addAll(DiffEntry.scan(treeWalk));
+            }
+            List<String> files = new ArrayList<>();
+            for (DiffEntry entry : renameDetector.compute()) {
+                files.add(entry.getChangeType() == DiffEntry.ChangeType.DELETE ? entry.getOldPath() : entry.getNewPath());
+            }
+            files.sort(null);
+            return files;
+        }
+    }
+
+    /**
+     * @return commits reachable from the head commit, but not from the base commit, from the oldest one
+     */
+    List<GitMirror.Commit> commits(String baseSha, String headSha) throws IOException, GitAPIException {
+        try (RevWalk walk = new RevWalk(repository())) {
+            RevCommit base = parseCommit(walk, baseSha);
+            RevCommit head = parseCommit(walk, headSha);
+            if (base == null || head == null) {
+                return null;
+            }
+            walk.sort(RevSort.TOPO);
+            walk.sort(RevSort.REVERSE, true);
+            walk.markStart(head);
+            walk.markUninteresting(base);
+            List<GitMirror.Commit> commits = new ArrayList<>();
+            for (RevCommit commit : walk) {
+                commits.add(new GitMirror.Commit(commit.name(), commit.getFullMessage()));
+            }
+            return commits;
+        }
+    }
+
+    /**
+     * Merges the head commit into the base commit in an in-memory index, without any working tree.
+     *
+     * @return true if the commits merge without conflicts
+     */
+    Boolean isMergeable(String baseSha, String headSha) throws IOException, GitAPIException {
+        Repository repository = repository();
+        try (RevWalk walk = new RevWalk(repository)) {
+            RevCommit base = parseCommit(walk, baseSha);
+            RevCommit head = parseCommit(walk, headSha);
+            if (base == null || head == null) {
+                return null;
+            }
+            return MergeStrategy.RECURSIVE.newMerger(repository, true).merge(base, head);
+        }
+    }
+
+    /**
+     * @return true if the file or directory exists on the default branch
+     */
+    Boolean exists(String path) throws IOException, GitAPIException {
+        Repository repository = repository();
+        ObjectId head = repository.resolve(Constants.HEAD);
+        if (head == null) {
+            return null;
+        }
+        String normalized = path.endsWith("/") ? path.substring(0, path.length() - 1) : path;
+        try (RevWalk walk = new RevWalk(repository);
+                TreeWalk treeWalk = TreeWalk.forPath(repository, normalized, walk.parseCommit(head).getTree())) {
+            return treeWalk != null;
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        if (repository != null) {
+            repository.close();
+            repository = null;
+        }
+    }
+
+    private Repository repository() throws IOException, GitAPIException {
+        Repository current = repository;
+        if (current != null) {
+            return current;
+        }
+        if (!Files.isDirectory(directory.resolve("objects"))) {
+            fetch();
+        }
+        return openIfAbsent();
+    }
+
+    private synchronized Repository openIfAbsent() throws IOException {
+        if (repository == null) {
+            repository = new FileRepositoryBuilder()
+                    .setGitDir(directory.toFile())
+                    .setMustExist(true)
+                    .build();
+        }
+        return repository;
+    }
+
+    private static RevCommit parseCommit(RevWalk walk, String sha) throws IOException {
+        if (sha == null || !ObjectId.isId(sha)) {
+            return null;
+        }
+        try {
+            return walk.parseCommit(ObjectId.fromString(sha));
+        } catch (MissingObjectException e) {
+            return null;
+        }
+    }
+}
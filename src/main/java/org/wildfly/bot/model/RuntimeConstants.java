@@ -8,6 +8,8 @@ public class RuntimeConstants {
 
     public static final String DEFAULT_TITLE_MESSAGE = "Wrong content of the title. It does not satisfy the following regex pattern: [%s]";
 
+    public static final String ABORTED_PATTERN_MESSAGE = "Matching of the %s against [%s] has been aborted, as it takes too long";
+
     public static final String DEFAULT_PROJECT_KEY = "WFLY";
 
     public static final String LABEL_NEEDS_REBASE = "rebase-this";
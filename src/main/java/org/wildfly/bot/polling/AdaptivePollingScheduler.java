@@ -0,0 +1,67 @@
+package org.wildfly.bot.polling;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides when a repository should be polled next. Repositories with recent pull request, review or push
+ * events are polled every {@link WildFlyBotConfig#pollingMinInterval()} seconds. Every poll without such
+ * events doubles the interval up to {@link WildFlyBotConfig#pollingMaxInterval()} seconds, and the interval
+ * snaps back to the minimum as soon as the activity resumes. The interval GitHub asks for in the
+ * {@code X-Poll-Interval} header is never undercut.
+ * <p>
+ * The current interval of every repository is exposed as the {@code wildfly.bot.polling.interval} gauge.
+ */
+@ApplicationScoped
+public class AdaptivePollingScheduler {
+
+    // tolerates scheduling jitter, so that a repository due right after the tick does not wait for the next one
+    private static final long TOLERANCE_MILLIS = 5000L;
+
+    private final Set<String> monitoredRepositories = ConcurrentHashMap.newKeySet();
+
+    @Inject
+    WildFlyBotConfig wildFlyBotConfig;
+
+    @Inject
+    PollingStateStore pollingStateStore;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    public boolean isDue(String repository) {
+        return pollingStateStore.get(repository).notBefore() - System.currentTimeMillis() <= TOLERANCE_MILLIS;
+    }
+
+    /**
+     * Schedules the next poll of the repository.
+     *
+     * @param repository full name of the repository
+     * @param repositoryEvents result of the current poll
+     * @param active true if the current poll found new pull request, review or push events
+     * @param polledAt epoch milliseconds when the current poll started
+     */
+    public void reschedule(String repository, RepositoryEvents repositoryEvents, boolean active, long polledAt) {
+        long previousInterval = pollingStateStore.get(repository).interval();
+        long interval = active || previousInterval == 0
+                ? wildFlyBotConfig.pollingMinInterval()
+                : Math.min(previousInterval * 2, wildFlyBotConfig.pollingMaxInterval());
+        long notBefore = polledAt + Math.max(interval, repositoryEvents.pollInterval()) * 1000L;
+
+        pollingStateStore.updateFeed(repository, repositoryEvents.etag(), notBefore, interval);
+
+        if (monitoredRepositories.add(repository)) {
+            Gauge.builder("wildfly.bot.polling.interval", () -> pollingStateStore.get(repository).interval())
+                    .description("Current polling interval of the repository")
+                    .baseUnit("seconds")
+                    .tag("repository", repository)
+                    .register(meterRegistry);
+        }
+    }
+}
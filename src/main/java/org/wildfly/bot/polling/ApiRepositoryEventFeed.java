@@ -0,0 +1,55 @@
+package org.wildfly.bot.polling;
+
+import io.quarkus.runtime.StartupEvent;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.enterprise.event.Observes;
+import jakarta.inject.Inject;
+import org.kohsuke.github.GHAppInstallation;
+import org.kohsuke.github.GHEventInfo;
+import org.kohsuke.github.GHRepository;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * Retrieves the events by {@link GHRepository#listEvents()}. Every request counts against the rate limit,
+ * as github-api does not allow us to send conditional requests. See {@link ConditionalRepositoryEventFeed}.
+ */
+@ApplicationScoped
+public class ApiRepositoryEventFeed implements RepositoryEventFeed {
+
+    private static final int EVENTS_PAGE_SIZE = 100;
+
+    @Inject
+    WildFlyBotConfig wildFlyBotConfig;
+
+    // fails the startup, if the payloads of the events can not be read
+    void onStart(@Observes StartupEvent event) {
+        if (!wildFlyBotConfig.pollingConditionalRequests()) {
+            GHEventInfoPayloadAccessor.initialize();
+        }
+    }
+
+    @Override
+    public RepositoryEvents fetch(GHAppInstallation installation, GHRepository repository, RepositoryPollingState state)
+            throws IOException {
+        Iterable<GHEventInfo> eventInfos = repository.listEvents().withPageSize(EVENTS_PAGE_SIZE);
+        Iterable<PolledEvent> events = () -> new Iterator<>() {
+            private final Iterator<GHEventInfo> delegate = eventInfos.iterator();
+
+            @Override
+            public boolean hasNext() {
+                return delegate.hasNext();
+            }
+
+            @Override
+            public PolledEvent next() {
+                GHEventInfo eventInfo = delegate.next();
+                return new PolledEvent(eventInfo.getId(), eventInfo.getType(), eventInfo.getCreatedAt().toEpochMilli(),
+                        GHEventInfoPayloadAccessor.payload(eventInfo));
+            }
+        };
+        return new RepositoryEvents(true, events, null, 0);
+    }
+}
@@ -0,0 +1,188 @@
+package org.wildfly.bot.polling;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.quarkiverse.githubapp.runtime.github.GitHubService;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.kohsuke.github.GHAppInstallation;
+import org.kohsuke.github.GHEvent;
+import org.kohsuke.github.GHRepository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Retrieves the events by sending conditional requests to GitHub's events API. The ETag of the first
+ * page is sent back in the {@code If-None-Match} header, so that GitHub responds with 304 Not Modified
+ * if there are no new events. Such responses do not count against the rate limit.
+ * <p>
+ * github-api does not allow us to send conditional requests, nor does it expose the response headers of
+ * {@link GHRepository#listEvents()}, thus we request the events API directly with the installation token
+ * managed by {@link GitHubService}, i.e. the same token the installation clients use.
+ * The raw response already contains the payloads, so there is no need to read them back from
+ * {@code org.kohsuke.github.GHEventInfo}.
+ *
+ * @see <a href="https://docs.github.com/en/rest/activity/events?apiVersion=2022-11-28">Events API</a>
+ */
+@ApplicationScoped
+public class ConditionalRepositoryEventFeed implements RepositoryEventFeed {
+
+    private static final Logger LOG = Logger.getLogger(ConditionalRepositoryEventFeed.class);
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final int EVENTS_PAGE_SIZE = 100;
+
+    // GitHub's events API returns at most 300 events
+    private static final int MAX_PAGES = 3;
+
+    private static final String ETAG = "ETag";
+    private static final String IF_NONE_MATCH = "If-None-Match";
+    private static final String POLL_INTERVAL = "X-Poll-Interval";
+    private static final String EVENT_SUFFIX = "Event";
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(10))
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    @Inject
+    GitHubService gitHubService;
+
+    @Override
+    public RepositoryEvents fetch(GHAppInstallation installation, GHRepository repository, RepositoryPollingState state)
+            throws IOException {
+        URI eventsUri = URI.create(repository.getUrl().toString() + "/events");
+
+        HttpResponse<InputStream> firstPage = get(installation, eventsUri, 1, state.etag());
+        String etag = firstPage.headers().firstValue(ETAG).orElse(null);
+        int pollInterval = pollInterval(firstPage);
+
+        if (firstPage.statusCode() == 304) {
+            firstPage.body().close();
+            return new RepositoryEvents(false, Collections.emptyList(), state.etag(), pollInterval);
+        }
+
+        List<PolledEvent> firstEvents = readEvents(repository, firstPage);
+        Iterable<PolledEvent> events = () -> new Iterator<>() {
+            private Iterator<PolledEvent> page = firstEvents.iterator();
+            private int pageNumber = 1;
+            private boolean lastPage = firstEvents.size() < EVENTS_PAGE_SIZE;
+
+            @Override
+            public boolean hasNext() {
+                while (!page.hasNext() && !lastPage) {
+                    pageNumber++;
+                    try {
+                        List<PolledEvent> nextEvents = readEvents(repository,
+                                get(installation, eventsUri, pageNumber, null));
+                        lastPage = nextEvents.size() < EVENTS_PAGE_SIZE || pageNumber >= MAX_PAGES;
+                        page = nextEvents.iterator();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                return page.hasNext();
+            }
+
+            @Override
+            public PolledEvent next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return page.next();
+            }
+        };
+
+        return new RepositoryEvents(true, events, etag, pollInterval);
+    }
+
+    private HttpResponse<InputStream> get(GHAppInstallation installation, URI eventsUri, int page, String etag)
+            throws IOException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(
+                URI.create(eventsUri + "?per_page=%d&page=%d".formatted(EVENTS_PAGE_SIZE, page)))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/vnd.github+json")
+                .header("Authorization", "Bearer " + gitHubService.getInstallationToken(installation.getId()))
+                .GET();
+        if (etag != null) {
+            request.header(IF_NONE_MATCH, etag);
+        }
+
+        try {
+            HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+            if (response.statusCode() != 200 && response.statusCode() != 304) {
+                response.body().close();
+                throw new IOException("Unexpected response code %d for %s".formatted(response.statusCode(),
+                        response.uri()));
+            }
+            return response;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while retrieving events from " + eventsUri, e);
+        }
+    }
+
+    /**
+     * @return number of seconds GitHub asks us to wait before polling again, 0 if the header is missing or malformed
+     */
+    private static int pollInterval(HttpResponse<?> response) {
+        String pollInterval = response.headers().firstValue(POLL_INTERVAL).orElse(null);
+        if (pollInterval == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(pollInterval.trim()));
+        } catch (NumberFormatException e) {
+            LOG.debugf("Ignoring malformed %s header [%s] of %s", POLL_INTERVAL, pollInterval, response.uri());
+            return 0;
+        }
+    }
+
+    private static List<PolledEvent> readEvents(GHRepository repository, HttpResponse<InputStream> response)
+            throws IOException {
+        List<PolledEvent> events = new ArrayList<>();
+        try (InputStream body = response.body()) {
+            for (JsonNode event : objectMapper.readTree(body)) {
+                String type = event.path("type").asText();
+                GHEvent ghEvent = toGHEvent(type);
+                if (ghEvent == GHEvent.UNKNOWN) {
+                    LOG.debugf("Unknown event type [%s] retrieved for repository %s", type, repository.getFullName());
+                }
+                long createdAt = event.hasNonNull("created_at")
+                        ? Instant.parse(event.get("created_at").asText()).toEpochMilli()
+                        : 0L;
+                events.add(new PolledEvent(event.path("id").asLong(), ghEvent, createdAt, event.path("payload")));
+            }
+        }
+        return events;
+    }
+
+    /**
+     * Converts type of the event as returned by the events API, e.g. {@code PullRequestReviewEvent},
+     * to {@link GHEvent}, e.g. {@link GHEvent#PULL_REQUEST_REVIEW}.
+     */
+    static GHEvent toGHEvent(String type) {
+        String name = type.endsWith(EVENT_SUFFIX) ? type.substring(0, type.length() - EVENT_SUFFIX.length()) : type;
+        try {
+            return GHEvent.valueOf(name.replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ENGLISH));
+        } catch (IllegalArgumentException e) {
+            return GHEvent.UNKNOWN;
+        }
+    }
+}
@@ -2,28 +2,38 @@ package org.wildfly.bot.polling;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.quarkiverse.githubapp.GitHubEvent;
-import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
 import io.quarkiverse.githubapp.runtime.github.GitHubService;
 import io.quarkus.scheduler.Scheduled;
 import io.smallrye.mutiny.tuples.Tuple2;
-import io.vertx.core.json.Json;
-import io.vertx.core.json.JsonObject;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import jakarta.enterprise.context.ApplicationScoped;
 import jakarta.enterprise.event.Event;
 import jakarta.inject.Inject;
 import org.jboss.logging.Logger;
 import org.kohsuke.github.GHAppInstallation;
 import org.kohsuke.github.GHEvent;
-import org.kohsuke.github.GHEventInfo;
 import org.kohsuke.github.GHRepository;
 import org.kohsuke.github.GitHub;
+import org.wildfly.bot.config.WildFlyBotConfig;
+import org.wildfly.bot.delivery.EventDeduplicator;
+import org.wildfly.bot.delivery.PullRequestEventCoalescer;
 import org.wildfly.bot.polling.processors.PushEventPreprocessor;
 
 import java.io.IOException;
-import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
 
 @ApplicationScoped
 public class EventPollingProcessor implements GitHubEventEmitter<Throwable> {
@@ -43,8 +53,6 @@ public class EventPollingProcessor implements GitHubEventEmitter<Throwable> {
     private static final Map<GHEvent, GitHubEventPreprocessor> eventProcessorMap = Map.of(
             GHEvent.PUSH, new PushEventPreprocessor());
 
-    private static final ObjectMapper objectMapper = new ObjectMapper();
-
     private static final Logger LOG = Logger.getLogger(EventPollingProcessor.class);
 
     @Inject
@@ -53,88 +61,290 @@ public class EventPollingProcessor implements GitHubEventEmitter<Throwable> {
     @Inject
     GitHubService gitHubService;
 
-    @Scheduled(every = "60s", delayed = "10s")
+    @Inject
+    PollingStateStore pollingStateStore;
+
+    @Inject
+    ConditionalRepositoryEventFeed conditionalEventFeed;
+
+    @Inject
+    ApiRepositoryEventFeed apiEventFeed;
+
+    @Inject
+    WildFlyBotConfig wildFlyBotConfig;
+
+    @Inject
+    AdaptivePollingScheduler adaptivePollingScheduler;
+
+    @Inject
+    EventDeduplicator eventDeduplicator;
+
+    @Inject
+    PullRequestEventCoalescer pullRequestEventCoalescer;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private final Set<String> repositoriesInProgress = ConcurrentHashMap.newKeySet();
+
+    private final Map<Long, Semaphore> installationPermits = new ConcurrentHashMap<>();
+
+    private final Map<Long, InstallationRepositories> installationRepositories = new ConcurrentHashMap<>();
+
+    private volatile Installations installations;
+
+    private Semaphore globalPermits;
+
+    @PostConstruct
+    void init() {
+        globalPermits = new Semaphore(wildFlyBotConfig.pollingMaxConcurrency());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Polls every repository of every installation in its own virtual thread. The number of repositories
+     * polled at the same time is limited globally by {@link WildFlyBotConfig#pollingMaxConcurrency()} and
+     * for a single installation by {@link WildFlyBotConfig#pollingMaxConcurrencyPerInstallation()}.
+     * The cycle finishes once all of its repositories are polled, thus it takes as long as the slowest
+     * repository. A repository still being polled by a previous cycle is skipped.
+     * <p>
+     * The cycle is triggered every {@code wildfly-bot.polling.tick}, but only repositories which are due
+     * according to {@link AdaptivePollingScheduler} are polled. The installations and their repositories are
+     * listed only every {@link WildFlyBotConfig#pollingRepositoriesRefresh()} seconds, see {@link #refreshRepositories()}.
+     */
+    @Scheduled(every = "${wildfly-bot.polling.tick:15s}", delayed = "10s")
     @Override
     public void fire() throws IOException {
-        for (GHAppInstallation app : gitHubService.getApplicationClient().getApp().listInstallations()) {
-            GitHub gitHub = gitHubService.getInstallationClient(app.getId());
-            for (GHRepository repository : gitHub.getInstallation().listRepositories()) {
-                for (GHEventInfo eventInfo : repository.listEvents()) {
+        List<Future<?>> polls = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (GHAppInstallation app : installations(now)) {
+            Semaphore permits = installationPermits.computeIfAbsent(app.getId(),
+                    id -> new Semaphore(wildFlyBotConfig.pollingMaxConcurrencyPerInstallation()));
+            for (GHRepository repository : repositories(app, now)) {
+                String repositoryName = repository.getFullName();
+                if (!adaptivePollingScheduler.isDue(repositoryName)) {
+                    continue;
+                }
+                if (!repositoriesInProgress.add(repositoryName)) {
+                    LOG.infof("Skipping polling of %s as the previous poll is still in progress", repositoryName);
+                    continue;
+                }
+                polls.add(executor.submit(() -> {
                     try {
-                        String payload = payload(eventInfo);
-                        Tuple2<String, String> eventTuple = getEventTuple(payload, eventInfo.getType());
-                        String type = eventTuple.getItem1();
-                        if (type == null) {
-                            LOG.infof("Unable to determine the type of event with payload\n%s", payload);
-                            continue;
-                        }
-                        GitHubEvent gitHubEvent = new SimpleGitHubEvent(app.getId(),
-                                null, null, eventInfo.getRepository().getFullName(),
-                                type,
-                                eventTuple.getItem2(),
-                                payload,
-                                (JsonObject) Json.decodeValue(payload), true);
-
+                        permits.acquire();
                         try {
-                            GitHubEvent processedGitHubEvent = eventProcessorMap
-                                    .getOrDefault(eventInfo.getType(), GitHubEventPreprocessor.INSTANCE)
-                                    .process(gitHubEvent, repository);
-                            gitHubEventEmitter.fire(processedGitHubEvent);
-                        } catch (JsonProcessingException e) {
-                            LOG.warnf(e, "The preprocessors failed to process [%s] event with the payload [%s]",
-                                    eventInfo.getType(), payload);
+                            globalPermits.acquire();
+                            try {
+                                pollRepository(app, repository);
+                            } finally {
+                                globalPermits.release();
+                            }
+                        } finally {
+                            permits.release();
                         }
-
-                        // TODO logic for saving parsed events
-                        return;
-                    } catch (NoSuchFieldException | IllegalAccessException e) {
-                        throw new RuntimeException(e);
+                    } finally {
+                        repositoriesInProgress.remove(repositoryName);
                     }
+                    return null;
+                }));
+            }
+        }
+
+        awaitAll(polls);
+    }
+
+    /**
+     * Forgets the listed installations and repositories, so that the next cycle lists them again, e.g. after
+     * the app has been installed to another repository.
+     */
+    public void refreshRepositories() {
+        installations = null;
+        installationRepositories.clear();
+    }
+
+    private List<GHAppInstallation> installations(long now) throws IOException {
+        Installations current = installations;
+        if (current == null || isStale(current.listedAt(), now)) {
+            List<GHAppInstallation> apps = new ArrayList<>();
+            for (GHAppInstallation app : gitHubService.getApplicationClient().getApp().listInstallations()) {
+                apps.add(app);
+            }
+            current = new Installations(apps, now);
+            installations = current;
+        }
+        return current.installations();
+    }
+
+    /**
+     * @implNote The repositories are bound to the installation client, which is replaced by {@link GitHubService}
+     *           once its token expires, thus they are listed again together with a new client.
+     */
+    private List<GHRepository> repositories(GHAppInstallation app, long now) throws IOException {
+        GitHub gitHub = gitHubService.getInstallationClient(app.getId());
+        InstallationRepositories current = installationRepositories.get(app.getId());
+        if (current == null || current.gitHub() != gitHub || isStale(current.listedAt(), now)) {
+            List<GHRepository> repositories = new ArrayList<>();
+            for (GHRepository repository : gitHub.getInstallation().listRepositories()) {
+                repositories.add(repository);
+            }
+            current = new InstallationRepositories(gitHub, repositories, now);
+            installationRepositories.put(app.getId(), current);
+        }
+        return current.repositories();
+    }
+
+    private boolean isStale(long listedAt, long now) {
+        return now - listedAt >= wildFlyBotConfig.pollingRepositoriesRefresh() * 1000L;
+    }
+
+    /**
+     * Waits for all polls of the cycle. If any of them has failed, the first failure is rethrown
+     * with the other ones suppressed.
+     */
+    private static void awaitAll(List<Future<?>> polls) throws IOException {
+        IOException failure = null;
+        for (Future<?> poll : polls) {
+            try {
+                poll.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for the polling cycle to finish", e);
+            } catch (ExecutionException e) {
+                IOException cause = e.getCause() instanceof IOException ioException ? ioException
+                        : new IOException(e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
                 }
             }
         }
+        if (failure != null) {
+            throw failure;
+        }
     }
 
     /**
-     * Retrieves the event name and event action, if applicable
+     * Pages through the events of the repository only until the polling cursor is reached and
+     * emits the newly found events from the oldest to the newest one. The cursor is moved in memory
+     * after every emitted event and persisted once all of them have been emitted.
      *
-     * @return Tuple2 of event name and event action, if event contains action
+     * @implNote If there is no cursor for the repository yet, e.g. the repository has been newly
+     *           installed, only the latest event is emitted, as we are unable to tell which of the
+     *           older events have been already handled.
      */
-    private static Tuple2<String, String> getEventTuple(String payload, GHEvent event) {
-        EventInfo eventInfo = typeToEventMap.getOrDefault(event, new EventInfo(null, false));
-        Tuple2<String, String> noActionTuple = Tuple2.of(eventInfo.name(), null);
-        if (!eventInfo.hasAction()) {
-            return noActionTuple;
+    private void pollRepository(GHAppInstallation app, GHRepository repository) throws IOException {
+        String repositoryName = repository.getFullName();
+        RepositoryPollingState state = pollingStateStore.get(repositoryName);
+        long now = System.currentTimeMillis();
+
+        RepositoryEvents repositoryEvents = eventFeed().fetch(app, repository, state);
+        if (!repositoryEvents.modified()) {
+            LOG.debugf("No new events for %s", repositoryName);
+            adaptivePollingScheduler.reschedule(repositoryName, repositoryEvents, false, now);
+            return;
+        }
+
+        List<PolledEvent> newEvents = new ArrayList<>();
+        for (PolledEvent event : repositoryEvents.events()) {
+            if (state.hasCursor() && !state.isAfterCursor(event.id(), event.createdAt())) {
+                break;
+            }
+            newEvents.add(event);
+            if (!state.hasCursor()) {
+                break;
+            }
+        }
+
+        List<PolledEvent> orderedEvents = newEvents.reversed();
+        List<GitHubEvent> gitHubEvents = new ArrayList<>();
+        // the repository is serialized at most once per cycle and the node is shared by all of its events
+        RepositoryNode repositoryNode = new RepositoryNode(repository);
+        for (PolledEvent event : orderedEvents) {
+            gitHubEvents.add(prepareEvent(app, repository, repositoryName, repositoryNode, event));
         }
-        try {
-            JsonNode jsonNode = objectMapper.readTree(payload);
 
-            if (!jsonNode.has(ACTION)) {
-                LOG.warnf(
-                        "For event [%s] there was an \"%s\" attribute in the json expected, but none found. Make sure, this attribute is defined",
-                        eventInfo.name(), ACTION);
-                return noActionTuple;
+        // the pull request processors evaluate only the latest of the polled events of the same pull request
+        gitHubEvents.stream().filter(Objects::nonNull).forEach(pullRequestEventCoalescer::announce);
+
+        for (int i = 0; i < orderedEvents.size(); i++) {
+            if (gitHubEvents.get(i) != null) {
+                gitHubEventEmitter.fire(gitHubEvents.get(i));
             }
+            pollingStateStore.advance(repositoryName, orderedEvents.get(i).id(), orderedEvents.get(i).createdAt());
+        }
 
-            return Tuple2.of(eventInfo.name(), jsonNode.get(ACTION).asText());
+        // the ETag is stored only after all events were emitted, otherwise we could miss them on the next poll,
+        // the moved cursor is persisted together with it
+        adaptivePollingScheduler.reschedule(repositoryName, repositoryEvents,
+                newEvents.stream().anyMatch(event -> typeToEventMap.containsKey(event.type())), now);
+    }
+
+    /**
+     * Runs the preprocessors of the event.
+     *
+     * @return the event to be fired, or null if the event should be skipped
+     */
+    private GitHubEvent prepareEvent(GHAppInstallation app, GHRepository repository, String repositoryName,
+            RepositoryNode repositoryNode, PolledEvent event) {
+        JsonNode payload = event.payload();
+        Tuple2<String, String> eventTuple = getEventTuple(payload, event.type());
+        String type = eventTuple.getItem1();
+        if (type == null || !(payload instanceof ObjectNode objectPayload)) {
+            LOG.infof("Unable to determine the type of event with payload\n%s", payload);
+            return null;
+        }
+
+        GitHubEventEnvelope envelope = new GitHubEventEnvelope(app.getId(), repositoryName, type,
+                eventTuple.getItem2(), objectPayload, repositoryNode);
+        try {
+            eventProcessorMap
+                    .getOrDefault(event.type(), GitHubEventPreprocessor.INSTANCE)
+                    .process(envelope, repository);
+            GitHubEvent gitHubEvent = envelope.toGitHubEvent();
+            return eventDeduplicator.isDuplicate(gitHubEvent) ? null : gitHubEvent;
         } catch (JsonProcessingException e) {
-            return noActionTuple;
+            LOG.warnf(e, "The preprocessors failed to process [%s] event with the payload [%s]",
+                    event.type(), payload);
+            return null;
         }
     }
 
+    private RepositoryEventFeed eventFeed() {
+        return wildFlyBotConfig.pollingConditionalRequests() ? conditionalEventFeed : apiEventFeed;
+    }
+
     /**
-     * Retrieves payload from {@link GHEventInfo} using reflection. Unfortunately, there is no other way
-     * to retrieve this raw payload attribute
+     * Retrieves the event name and event action, if applicable
      *
-     * @return full String representation of the payload in Json.
+     * @return Tuple2 of event name and event action, if event contains action
      */
-    public static String payload(GHEventInfo ghEventInfo) throws NoSuchFieldException, IllegalAccessException {
-        Field payloadField = GHEventInfo.class.getDeclaredField("payload");
-        payloadField.setAccessible(true);
+    private static Tuple2<String, String> getEventTuple(JsonNode payload, GHEvent event) {
+        EventInfo eventInfo = typeToEventMap.getOrDefault(event, new EventInfo(null, false));
+        Tuple2<String, String> noActionTuple = Tuple2.of(eventInfo.name(), null);
+        if (!eventInfo.hasAction()) {
+            return noActionTuple;
+        }
+
+        if (!payload.has(ACTION)) {
+            LOG.warnf(
+                    "For event [%s] there was an \"%s\" attribute in the json expected, but none found. Make sure, this attribute is defined",
+                    eventInfo.name(), ACTION);
+            return noActionTuple;
+        }
 
-        return payloadField.get(ghEventInfo).toString();
+        return Tuple2.of(eventInfo.name(), payload.get(ACTION).asText());
     }
 
     private record EventInfo(String name, boolean hasAction) {
     }
+
+    private record Installations(List<GHAppInstallation> installations, long listedAt) {
+    }
+
+    private record InstallationRepositories(GitHub gitHub, List<GHRepository> repositories, long listedAt) {
+    }
 }
\ No newline at end of file
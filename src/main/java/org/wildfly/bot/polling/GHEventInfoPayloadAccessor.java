@@ -0,0 +1,60 @@
+package org.wildfly.bot.polling;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import io.quarkus.runtime.annotations.RegisterForReflection;
+import org.kohsuke.github.GHEventInfo;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Retrieves the raw payload from {@link GHEventInfo}. Unfortunately, there is no other way to retrieve this
+ * attribute, as github-api does not expose it. The field is looked up only once, every further access goes
+ * through a cached {@link MethodHandle}, which the JIT is able to inline. The field is looked up on startup, see
+ * {@link #initialize()}, thus an upgrade of github-api removing the field is detected before any event is polled.
+ *
+ * @implNote The field of {@link GHEventInfo} is registered for reflection, so that the lookup succeeds in
+ *           native mode as well.
+ */
+@RegisterForReflection(targets = GHEventInfo.class)
+public final class GHEventInfoPayloadAccessor {
+
+    private static final String PAYLOAD = "payload";
+
+    private static final MethodHandle PAYLOAD_GETTER = payloadGetter();
+
+    private GHEventInfoPayloadAccessor() {
+    }
+
+    /**
+     * Looks the field up, if it has not been looked up yet.
+     *
+     * @throws ExceptionInInitializerError if {@link GHEventInfo} does not have the field
+     */
+    public static void initialize() {
+        // the field is looked up by the static initializer, which runs before this method
+    }
+
+    /**
+     * @return the parsed payload of the event
+     */
+    public static JsonNode payload(GHEventInfo ghEventInfo) {
+        try {
+            return (JsonNode) PAYLOAD_GETTER.invokeExact(ghEventInfo);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Unable to retrieve payload of event " + ghEventInfo.getId(), e);
+        }
+    }
+
+    private static MethodHandle payloadGetter() {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(GHEventInfo.class, MethodHandles.lookup());
+            return lookup.unreflectGetter(GHEventInfo.class.getDeclaredField(PAYLOAD))
+                    .asType(MethodType.methodType(JsonNode.class, GHEventInfo.class));
+        } catch (NoSuchFieldException | IllegalAccessException e) {
+            throw new IllegalStateException("Unable to access the field " + PAYLOAD + " of " + GHEventInfo.class.getName()
+                    + ", polled events can not be processed with this version of github-api", e);
+        }
+    }
+}
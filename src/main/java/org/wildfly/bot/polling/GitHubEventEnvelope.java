@@ -0,0 +1,86 @@
+package org.wildfly.bot.polling;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
+import io.vertx.core.json.JsonObject;
+
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Carries a polled event through all {@link GitHubEventPreprocessor}s. The payload is parsed only once,
+ * preprocessors modify the parsed tree in place and the tree is serialized only once, when the
+ * {@link GitHubEvent} is about to be fired.
+ */
+public final class GitHubEventEnvelope {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private final long installationId;
+    private final String repository;
+    private final String event;
+    private final String action;
+    private final ObjectNode payload;
+    private final Supplier<JsonNode> repositoryNode;
+
+    public GitHubEventEnvelope(long installationId, String repository, String event, String action, ObjectNode payload,
+            Supplier<JsonNode> repositoryNode) {
+        this.installationId = installationId;
+        this.repository = repository;
+        this.event = event;
+        this.action = action;
+        this.payload = payload;
+        this.repositoryNode = repositoryNode;
+    }
+
+    public long installationId() {
+        return installationId;
+    }
+
+    public String repository() {
+        return repository;
+    }
+
+    public String event() {
+        return event;
+    }
+
+    public String action() {
+        return action;
+    }
+
+    /**
+     * @return mutable payload of the event
+     */
+    public ObjectNode payload() {
+        return payload;
+    }
+
+    /**
+     * @return the repository of the event serialized to Json. The node is shared by all events of the
+     *         repository retrieved in the same polling cycle, thus it must not be modified.
+     */
+    public JsonNode repositoryNode() {
+        return repositoryNode.get();
+    }
+
+    /**
+     * Serializes the payload in its compact form and creates the {@link GitHubEvent} to be fired.
+     *
+     * @implNote The parsed representation of the payload is converted from the tree directly,
+     *           without parsing the serialized payload again.
+     */
+    public GitHubEvent toGitHubEvent() throws JsonProcessingException {
+        return new SimpleGitHubEvent(installationId, null, null, repository, event, action,
+                objectMapper.writeValueAsString(payload),
+                new JsonObject(objectMapper.convertValue(payload, MAP_TYPE)), true);
+    }
+}
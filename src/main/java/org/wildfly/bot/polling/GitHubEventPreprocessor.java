@@ -1,15 +1,9 @@
 package org.wildfly.bot.polling;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ObjectNode;
-import io.quarkiverse.githubapp.GitHubEvent;
-import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
 import io.quarkus.arc.Arc;
 import io.quarkus.runtime.LaunchMode;
-import io.vertx.core.json.Json;
-import io.vertx.core.json.JsonObject;
 import org.kohsuke.github.GHRepository;
 
 /**
@@ -18,8 +12,9 @@ import org.kohsuke.github.GHRepository;
  * from SSE has some extra parameters, which are missing in the event retrieved
  * from GitHub's API and you are using these parameters in your reactive CDI
  * beans, you should manually update those fields.
- * For such cases, you receive a raw value of the created {@link GitHubEvent} and
- * you can then create a new object with updated values.
+ * For such cases, you receive the {@link GitHubEventEnvelope} with the parsed
+ * payload, which you can update in place. The payload is serialized only once,
+ * after all preprocessors are done.
  * You can expect an authenticated {@link GHRepository} instance for retrieving
  * the additional info.
  * This would usually involve static info, where there are no further requests made,
@@ -30,15 +25,7 @@ public interface GitHubEventPreprocessor {
     GitHubEventPreprocessor INSTANCE = new DefaultGitHubEventPreprocessor();
     ObjectMapper objectMapper = new ObjectMapper();
 
-    GitHubEvent process(GitHubEvent gitHubEvent, GHRepository repository) throws JsonProcessingException;
-
-    static GitHubEvent updatePayload(GitHubEvent event, JsonNode payload) {
-        String payloadJson = payload.toPrettyString();
-        return new SimpleGitHubEvent(event.getInstallationId(),
-                event.getAppName().orElse(null), event.getDeliveryId(), event.getRepositoryOrThrow(),
-                event.getEvent(), event.getAction(), payloadJson, (JsonObject) Json.decodeValue(payloadJson),
-                event.isReplayed());
-    }
+    void process(GitHubEventEnvelope envelope, GHRepository repository) throws JsonProcessingException;
 
     class DefaultGitHubEventPreprocessor implements GitHubEventPreprocessor {
 
@@ -47,19 +34,15 @@ public interface GitHubEventPreprocessor {
         LaunchMode launchMode;
 
         @Override
-        public GitHubEvent process(GitHubEvent gitHubEvent, GHRepository repository) throws JsonProcessingException {
+        public void process(GitHubEventEnvelope envelope, GHRepository repository) throws JsonProcessingException {
             // Due to static initialization in INSTANCE = new ... we need to inject programmatically
             if (launchMode == null) {
                 launchMode = Arc.container().instance(LaunchMode.class).get();
             }
             if (launchMode == LaunchMode.TEST) {
-                return gitHubEvent;
+                return;
             }
-            JsonNode payload = objectMapper.readTree(gitHubEvent.getPayload());
-            String repositoryValue = objectMapper.writeValueAsString(repository);
-            ((ObjectNode) payload).put(REPOSITORY, repositoryValue);
-
-            return updatePayload(gitHubEvent, payload);
+            envelope.payload().set(REPOSITORY, envelope.repositoryNode());
         }
     }
 }
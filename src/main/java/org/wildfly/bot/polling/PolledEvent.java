@@ -0,0 +1,15 @@
+package org.wildfly.bot.polling;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import org.kohsuke.github.GHEvent;
+
+/**
+ * Single event retrieved from the GitHub's events API, independent of the way it has been retrieved.
+ *
+ * @param id id of the event
+ * @param type type of the event
+ * @param createdAt creation time of the event in epoch milliseconds
+ * @param payload parsed payload of the event, which is further modified by {@link GitHubEventPreprocessor}s
+ */
+public record PolledEvent(long id, GHEvent type, long createdAt, JsonNode payload) {
+}
@@ -0,0 +1,134 @@
+package org.wildfly.bot.polling;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.jboss.logging.Logger;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * File-backed store of {@link RepositoryPollingState} keyed by the repository full name.
+ * The whole store is kept in memory and written to the file configured by
+ * {@link WildFlyBotConfig#pollingStateFile()} once per poll of a repository, after its events have been
+ * emitted, so that after a restart the polling resumes where it left off.
+ */
+@ApplicationScoped
+public class PollingStateStore {
+
+    private static final Logger LOG = Logger.getLogger(PollingStateStore.class);
+
+    private static final ObjectMapper objectMapper = JsonMapper.builder()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+
+    private static final TypeReference<Map<String, RepositoryPollingState>> STATE_TYPE = new TypeReference<>() {
+    };
+
+    private final Map<String, RepositoryPollingState> states = new ConcurrentHashMap<>();
+
+    // true if any cursor has moved since the store was persisted
+    private final AtomicBoolean cursorsMoved = new AtomicBoolean();
+
+    private Path stateFile;
+
+    @Inject
+    WildFlyBotConfig wildFlyBotConfig;
+
+    @PostConstruct
+    void load() {
+        stateFile = Path.of(wildFlyBotConfig.pollingStateFile());
+        if (!Files.isRegularFile(stateFile)) {
+            LOG.infof("No polling state found at %s, polling will start from the latest events.", stateFile);
+            return;
+        }
+        try {
+            states.putAll(objectMapper.readValue(stateFile.toFile(), STATE_TYPE));
+            LOG.infof("Loaded polling state for %d repositories from %s", states.size(), stateFile);
+        } catch (IOException e) {
+            LOG.warnf(e, "Unable to read polling state from %s, polling will start from the latest events.", stateFile);
+        }
+    }
+
+    /**
+     * @return state of the repository, {@link RepositoryPollingState#EMPTY} if the repository has not been polled yet
+     */
+    public RepositoryPollingState get(String repository) {
+        return states.getOrDefault(repository, RepositoryPollingState.EMPTY);
+    }
+
+    /**
+     * Moves the cursor of the repository to the given event. The cursor is persisted together with the feed,
+     * see {@link #updateFeed(String, String, long, long)}.
+     */
+    public void advance(String repository, long eventId, long eventCreatedAt) {
+        states.compute(repository, (key, state) -> (state == null ? RepositoryPollingState.EMPTY : state)
+                .withCursor(eventId, eventCreatedAt));
+        cursorsMoved.set(true);
+    }
+
+    /**
+     * Stores the ETag received with the latest response and the time of the next poll. The store is
+     * persisted only if the ETag has changed or any cursor has moved, as the schedule is not relevant
+     * after a restart.
+     */
+    public void updateFeed(String repository, String etag, long notBefore, long interval) {
+        RepositoryPollingState previous = states.get(repository);
+        states.compute(repository, (key, state) -> (state == null ? RepositoryPollingState.EMPTY : state)
+                .withFeed(etag, notBefore, interval));
+        if (previous == null || !Objects.equals(previous.etag(), etag) || cursorsMoved.get()) {
+            persist();
+        }
+    }
+
+    /**
+     * Forgets all cursors, including the persisted ones.
+     */
+    public synchronized void clear() {
+        states.clear();
+        cursorsMoved.set(false);
+        try {
+            Files.deleteIfExists(stateFile);
+        } catch (IOException e) {
+            LOG.warnf(e, "Unable to delete polling state at %s", stateFile);
+        }
+    }
+
+    /**
+     * @implNote The state is written to a temporary file first and then moved over the original
+     *           file, so that a crash during the write never leaves a truncated store behind.
+     */
+    private synchronized void persist() {
+        // cursors moved while writing are persisted the next time
+        cursorsMoved.set(false);
+        try {
+            Path parent = stateFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Path tmpFile = stateFile.resolveSibling(stateFile.getFileName() + ".tmp");
+            objectMapper.writeValue(tmpFile.toFile(), new TreeMap<>(states));
+            try {
+                Files.move(tmpFile, stateFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmpFile, stateFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException e) {
+            LOG.warnf(e, "Unable to persist polling state to %s", stateFile);
+        }
+    }
+}
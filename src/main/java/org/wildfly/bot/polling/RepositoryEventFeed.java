@@ -0,0 +1,20 @@
+package org.wildfly.bot.polling;
+
+import org.kohsuke.github.GHAppInstallation;
+import org.kohsuke.github.GHRepository;
+
+import java.io.IOException;
+
+/**
+ * Retrieves events of a repository from GitHub's events API.
+ */
+public interface RepositoryEventFeed {
+
+    /**
+     * @param installation installation the repository belongs to
+     * @param repository authenticated repository instance
+     * @param state current polling state of the repository
+     */
+    RepositoryEvents fetch(GHAppInstallation installation, GHRepository repository, RepositoryPollingState state)
+            throws IOException;
+}
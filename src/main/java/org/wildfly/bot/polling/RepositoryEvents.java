@@ -0,0 +1,12 @@
+package org.wildfly.bot.polling;
+
+/**
+ * Result of a single poll of the repository's events.
+ *
+ * @param modified false if GitHub responded with 304 Not Modified, in which case {@code events} is empty
+ * @param events events ordered from the newest to the oldest, further pages are retrieved lazily
+ * @param etag ETag to send with the next request, null if not provided by GitHub
+ * @param pollInterval number of seconds GitHub asks us to wait before polling again, 0 if not provided
+ */
+public record RepositoryEvents(boolean modified, Iterable<PolledEvent> events, String etag, int pollInterval) {
+}
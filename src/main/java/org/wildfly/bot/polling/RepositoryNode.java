@@ -0,0 +1,49 @@
+package org.wildfly.bot.polling;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.kohsuke.github.GHRepository;
+
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Converts the repository to the {@code repository} object of webhook payloads on the first request and returns
+ * the same tree afterwards. A new instance is created for every polled repository in every polling cycle, thus all
+ * events of the repository retrieved in the same cycle share a single conversion.
+ * <p>
+ * Only the fields used when parsing the payloads and by the handlers are set, named in snake case like in webhook
+ * payloads. Serializing {@link GHRepository} itself would name its getters in camel case instead.
+ */
+final class RepositoryNode implements Supplier<JsonNode> {
+
+    private final GHRepository repository;
+    private JsonNode node;
+
+    RepositoryNode(GHRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public synchronized JsonNode get() {
+        if (node == null) {
+            node = toNode(repository);
+        }
+        return node;
+    }
+
+    private static ObjectNode toNode(GHRepository repository) {
+        ObjectNode node = GitHubEventPreprocessor.objectMapper.createObjectNode();
+        node.put("id", repository.getId());
+        node.put("node_id", repository.getNodeId());
+        node.put("name", repository.getName());
+        node.put("full_name", repository.getFullName());
+        node.put("private", repository.isPrivate());
+        node.put("fork", repository.isFork());
+        node.put("default_branch", repository.getDefaultBranch());
+        node.put("url", Objects.toString(repository.getUrl(), null));
+        node.put("html_url", Objects.toString(repository.getHtmlUrl(), null));
+        node.putObject("owner").put("login", repository.getOwnerName());
+        return node;
+    }
+}
@@ -0,0 +1,37 @@
+package org.wildfly.bot.polling;
+
+/**
+ * Polling state of a single repository. The cursor points to the last event, which was
+ * already emitted to the CDI beans. Events retrieved from GitHub's API are ordered from
+ * the newest to the oldest, thus we can stop paging as soon as we reach the cursor.
+ *
+ * @param lastEventId id of the last processed event, 0 if no event has been processed yet
+ * @param lastEventCreatedAt creation time of the last processed event in epoch milliseconds
+ * @param etag ETag of the last retrieved first page of the repository's events, if any
+ * @param notBefore epoch milliseconds before which the repository should not be polled again
+ * @param interval current polling interval of the repository in seconds, 0 if not polled yet
+ */
+public record RepositoryPollingState(long lastEventId, long lastEventCreatedAt, String etag, long notBefore,
+        long interval) {
+
+    public static final RepositoryPollingState EMPTY = new RepositoryPollingState(0L, 0L, null, 0L, 0L);
+
+    public boolean hasCursor() {
+        return lastEventId > 0L;
+    }
+
+    /**
+     * @return true if the event was created after this cursor and should be processed
+     */
+    public boolean isAfterCursor(long eventId, long eventCreatedAt) {
+        return eventId > lastEventId && eventCreatedAt >= lastEventCreatedAt;
+    }
+
+    public RepositoryPollingState withCursor(long eventId, long eventCreatedAt) {
+        return new RepositoryPollingState(eventId, eventCreatedAt, etag, notBefore, interval);
+    }
+
+    public RepositoryPollingState withFeed(String etag, long notBefore, long interval) {
+        return new RepositoryPollingState(lastEventId, lastEventCreatedAt, etag, notBefore, interval);
+    }
+}
@@ -3,9 +3,9 @@ package org.wildfly.bot.polling.processors;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
-import io.quarkiverse.githubapp.GitHubEvent;
 import io.quarkus.logging.Log;
 import org.kohsuke.github.GHRepository;
+import org.wildfly.bot.polling.GitHubEventEnvelope;
 import org.wildfly.bot.polling.GitHubEventPreprocessor;
 
 public class PushEventPreprocessor implements GitHubEventPreprocessor {
@@ -21,10 +21,10 @@ public class PushEventPreprocessor implements GitHubEventPreprocessor {
      *           all the info and the received info is sufficient.
      */
     @Override
-    public GitHubEvent process(GitHubEvent gitHubEvent, GHRepository repository) throws JsonProcessingException {
-        GitHubEvent preprocessed = GitHubEventPreprocessor.INSTANCE.process(gitHubEvent, repository);
+    public void process(GitHubEventEnvelope envelope, GHRepository repository) throws JsonProcessingException {
+        GitHubEventPreprocessor.INSTANCE.process(envelope, repository);
 
-        JsonNode payload = objectMapper.readTree(preprocessed.getPayload());
+        ObjectNode payload = envelope.payload();
         JsonNode headCommit = null;
         for (JsonNode commit : payload.get(COMMITS)) {
             if (commit.has(SHA) && commit.get(SHA).asText().equals(payload.get(HEAD).asText())) {
@@ -37,9 +37,7 @@ public class PushEventPreprocessor implements GitHubEventPreprocessor {
             throw new RuntimeException("Unable to retrieve head commit from received payload [%s]".formatted(payload));
         }
 
-        ((ObjectNode) payload).remove(HEAD_COMMIT);
-        ((ObjectNode) payload).putIfAbsent(HEAD_COMMIT, headCommit);
-
-        return GitHubEventPreprocessor.updatePayload(preprocessed, payload);
+        payload.remove(HEAD_COMMIT);
+        payload.putIfAbsent(HEAD_COMMIT, headCommit);
     }
 }
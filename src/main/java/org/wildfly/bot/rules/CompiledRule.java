@@ -0,0 +1,44 @@
+package org.wildfly.bot.rules;
+
+import org.wildfly.bot.model.WildFlyConfigFile.WildFlyRule;
+
+import java.util.regex.Pattern;
+
+/**
+ * {@link WildFlyRule} at its position in the configuration file. The keywords and directories of all rules
+ * are matched together by their {@link CompiledRuleSet}.
+ */
+public final class CompiledRule {
+
+    private static final int FLAGS = Pattern.DOTALL | Pattern.CASE_INSENSITIVE;
+
+    private final int index;
+    private final WildFlyRule rule;
+
+    CompiledRule(int index, WildFlyRule rule) {
+        this.index = index;
+        this.rule = rule;
+    }
+
+    /**
+     * @return position of the rule in the configuration file
+     */
+    public int index() {
+        return index;
+    }
+
+    public WildFlyRule rule() {
+        return rule;
+    }
+
+    public boolean hasDirectories() {
+        return !rule.directories.isEmpty();
+    }
+
+    /**
+     * @return pattern matching the title, body or titleBody keyword of a rule as a whole word
+     */
+    public static Pattern compileKeyword(String keyword) {
+        return Pattern.compile("\\b(" + keyword + ")\\b", FLAGS);
+    }
+}
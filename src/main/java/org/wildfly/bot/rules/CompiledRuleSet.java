@@ -0,0 +1,108 @@
+package org.wildfly.bot.rules;
+
+import io.micrometer.core.instrument.Counter;
+import org.wildfly.bot.model.WildFlyConfigFile.WildFlyRule;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Immutable set of {@link CompiledRule}s of a single version of the configuration file, in the order
+ * the rules are defined in the file.
+ */
+public final class CompiledRuleSet {
+
+    private final String digest;
+    private final List<CompiledRule> rules;
+    private final DirectoryIndex directoryIndex;
+    private final GlobAutomaton globAutomaton;
+    private final BitSet directoryRules;
+    // title and titleBody keywords
+    private final KeywordMatcher titleMatcher;
+    // body and titleBody keywords
+    private final KeywordMatcher bodyMatcher;
+
+    CompiledRuleSet(String digest, List<WildFlyRule> rules) {
+        this.digest = digest;
+        List<CompiledRule> compiledRules = new ArrayList<>(rules.size());
+        KeywordMatcher.Builder titleKeywords = KeywordMatcher.builder();
+        KeywordMatcher.Builder bodyKeywords = KeywordMatcher.builder();
+        this.directoryIndex = new DirectoryIndex();
+        GlobAutomaton.Builder globs = GlobAutomaton.builder();
+        BitSet rulesWithDirectories = new BitSet(rules.size());
+        for (WildFlyRule rule : rules) {
+            int index = compiledRules.size();
+            compiledRules.add(new CompiledRule(index, rule));
+            if (!rule.directories.isEmpty()) {
+                rulesWithDirectories.set(index);
+            }
+            titleKeywords.add(rule.title, index).add(rule.titleBody, index);
+            bodyKeywords.add(rule.body, index).add(rule.titleBody, index);
+            for (String directory : rule.directories) {
+                if (Glob.isGlob(directory)) {
+                    globs.add(directory, index);
+                } else {
+                    directoryIndex.add(directory, index);
+                }
+            }
+        }
+        this.rules = List.copyOf(compiledRules);
+        this.globAutomaton = globs.build();
+        this.directoryRules = rulesWithDirectories;
+        this.titleMatcher = titleKeywords.build();
+        this.bodyMatcher = bodyKeywords.build();
+    }
+
+    /**
+     * @return digest of the rules this set was compiled from
+     */
+    public String digest() {
+        return digest;
+    }
+
+    public List<CompiledRule> rules() {
+        return rules;
+    }
+
+    /**
+     * @return true if any of the rules matches by directories
+     */
+    public boolean hasDirectoryRules() {
+        return !directoryRules.isEmpty();
+    }
+
+    /**
+     * Sets the bits of all rules with a directory containing the changed file, or with a {@link Glob} matching
+     * the file or any of its parent directories.
+     *
+     * @return true if all rules having directories are matched, thus the remaining files need not be looked at
+     */
+    public boolean matchFile(String filename, BitSet matched) {
+        directoryIndex.match(filename, matched);
+        if (!globAutomaton.isEmpty()) {
+            globAutomaton.match(filename, matched);
+        }
+        BitSet unmatched = (BitSet) directoryRules.clone();
+        unmatched.andNot(matched);
+        return unmatched.isEmpty();
+    }
+
+    /**
+     * Matches the title, body and titleBody keywords of all rules in a single pass over the title and a single
+     * pass over the body. The title or body is not retrieved at all if no rule has a keyword for it.
+     *
+     * @param aborted counter of the aborted matches of keywords with regular expression constructs
+     * @return {@link CompiledRule#index()}es of the rules with a keyword occurring in the pull request
+     */
+    public BitSet matchText(PullRequestText text, Counter aborted) {
+        BitSet matched = new BitSet(rules.size());
+        if (!titleMatcher.isEmpty()) {
+            titleMatcher.match(text.title(), matched, aborted);
+        }
+        if (!bodyMatcher.isEmpty()) {
+            bodyMatcher.match(text.body(), matched, aborted);
+        }
+        return matched;
+    }
+}
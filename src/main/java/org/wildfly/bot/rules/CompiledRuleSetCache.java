@@ -0,0 +1,87 @@
+package org.wildfly.bot.rules;
+
+import jakarta.enterprise.context.ApplicationScoped;
+import org.jboss.logging.Logger;
+import org.wildfly.bot.model.WildFlyConfigFile;
+import org.wildfly.bot.model.WildFlyConfigFile.WildFlyRule;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compiles the rules of every version of the configuration file only once. The compiled rule sets are
+ * kept by the digest of the rules, thus the same version of the configuration file used by multiple
+ * repositories or branches is compiled only once as well. Only the most recently used rule sets are kept.
+ *
+ * @implNote The configuration file is delivered already parsed by {@code io.quarkiverse.githubapp.ConfigFile},
+ *           therefore we do not know the SHA of its blob and use the digest of the parsed rules instead,
+ *           which does not need any request to GitHub.
+ */
+@ApplicationScoped
+public class CompiledRuleSetCache {
+
+    private static final Logger LOG = Logger.getLogger(CompiledRuleSetCache.class);
+
+    static final int MAX_RULE_SETS = 64;
+
+    private final Map<String, CompiledRuleSet> ruleSets = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledRuleSet> eldest) {
+            return size() > MAX_RULE_SETS;
+        }
+    };
+
+    public CompiledRuleSet get(WildFlyConfigFile configFile) {
+        List<WildFlyRule> rules = configFile.wildfly.rules;
+        String digest = digest(rules);
+        synchronized (ruleSets) {
+            CompiledRuleSet ruleSet = ruleSets.get(digest);
+            if (ruleSet != null) {
+                return ruleSet;
+            }
+        }
+
+        CompiledRuleSet ruleSet = new CompiledRuleSet(digest, rules);
+        LOG.debugf("Compiled %d rules with digest %s", rules.size(), digest);
+        synchronized (ruleSets) {
+            ruleSets.putIfAbsent(digest, ruleSet);
+        }
+        return ruleSet;
+    }
+
+    private static String digest(List<WildFlyRule> rules) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+            for (WildFlyRule rule : rules) {
+                update(messageDigest, rule.id);
+                update(messageDigest, rule.title);
+                update(messageDigest, rule.body);
+                update(messageDigest, rule.titleBody);
+                update(messageDigest, String.join("\0", rule.directories));
+                update(messageDigest, String.join("\0", rule.notify));
+                update(messageDigest, String.join("\0", rule.labels));
+            }
+            return HexFormat.of().formatHex(messageDigest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    // every value is prefixed by its length, so that values of neighbouring fields can not be confused
+    private static void update(MessageDigest messageDigest, String value) {
+        if (value == null) {
+            messageDigest.update((byte) 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        messageDigest.update((byte) 1);
+        messageDigest.update(ByteBuffer.allocate(Integer.BYTES).putInt(bytes.length).array());
+        messageDigest.update(bytes);
+    }
+}
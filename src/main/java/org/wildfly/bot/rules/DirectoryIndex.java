@@ -0,0 +1,48 @@
+package org.wildfly.bot.rules;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Trie of the rules' directories by their path segments. A file matches a directory if the directory,
+ * followed by {@code /}, is a prefix of the file's path, thus looking up a file takes one step per
+ * directory the file is placed in, regardless of the number of rules.
+ */
+final class DirectoryIndex {
+
+    private final Node root = new Node();
+
+    void add(String directory, int rule) {
+        String prefix = directory.endsWith("/") ? directory.substring(0, directory.length() - 1) : directory;
+        Node node = root;
+        for (String segment : prefix.split("/", -1)) {
+            node = node.children.computeIfAbsent(segment, s -> new Node());
+        }
+        node.rules.set(rule);
+    }
+
+    /**
+     * Sets the bits of all rules with a directory containing the file.
+     */
+    void match(String filename, BitSet matched) {
+        Node node = root;
+        int start = 0;
+        int end;
+        // the last segment is the name of the file itself
+        while ((end = filename.indexOf('/', start)) >= 0) {
+            node = node.children.get(filename.substring(start, end));
+            if (node == null) {
+                return;
+            }
+            matched.or(node.rules);
+            start = end + 1;
+        }
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        private final BitSet rules = new BitSet();
+    }
+}
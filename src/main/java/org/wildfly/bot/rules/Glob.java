@@ -0,0 +1,51 @@
+package org.wildfly.bot.rules;
+
+/**
+ * Glob syntax supported in the directories of rules:
+ * <ul>
+ * <li>{@code *} matches any number of characters within a single path segment</li>
+ * <li>{@code **} matches any number of characters across path segments, {@code **}{@code /} matches zero or more
+ * whole directories</li>
+ * <li>{@code ?} matches a single character other than {@code /}</li>
+ * <li>{@code [abc]}, {@code [a-z]}, {@code [!a-z]} or {@code [^a-z]} match a single character of the class</li>
+ * <li>{@code \} escapes the following character</li>
+ * </ul>
+ * A changed file matches a glob if the glob matches the path of the file or of any of its parent directories.
+ */
+public final class Glob {
+
+    private static final String METACHARACTERS = "*?[";
+
+    /**
+     * @return true if the directory contains any glob construct, otherwise it is a plain directory
+     */
+    public static boolean isGlob(String directory) {
+        return firstMetacharacter(directory) >= 0;
+    }
+
+    /**
+     * @return the longest directory containing all paths matched by the glob, empty if there is none, e.g.
+     *         {@code src/test/org/acme/resources} for {@code src/test/org/acme/resources/*}
+     */
+    public static String baseDirectory(String glob) {
+        int metacharacter = firstMetacharacter(glob);
+        String literal = metacharacter < 0 ? glob : glob.substring(0, metacharacter);
+        int slash = literal.lastIndexOf('/');
+        return slash < 0 ? "" : literal.substring(0, slash);
+    }
+
+    private static int firstMetacharacter(String directory) {
+        for (int i = 0; i < directory.length(); i++) {
+            char c = directory.charAt(i);
+            if (c == '\\') {
+                i++;
+            } else if (METACHARACTERS.indexOf(c) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private Glob() {
+    }
+}
@@ -0,0 +1,317 @@
+package org.wildfly.bot.rules;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Matches a path against the {@link Glob}s of all rules in a single traversal of the path. The globs are
+ * compiled into one nondeterministic automaton, which is turned into a deterministic one lazily, i.e. only
+ * the states and transitions reached by the matched paths are built, and these are then reused by the
+ * following paths. Paths in the same directories therefore mostly reuse transitions, which are already built.
+ */
+final class GlobAutomaton {
+
+    // upper bound of the deterministic states kept, further states are built for the current path only
+    static final int MAX_STATES = 4096;
+
+    private static final byte LITERAL = 0;
+    private static final byte ANY = 1;
+    private static final byte CLASS = 2;
+    // *
+    private static final byte STAR = 3;
+    // **
+    private static final byte DOUBLE_STAR = 4;
+    // **/ is made of two states, the first one is able to skip the whole token
+    private static final byte DIRECTORIES_START = 5;
+    private static final byte DIRECTORIES = 6;
+    private static final byte ACCEPT = 7;
+
+    private final byte[] kinds;
+    private final char[] literals;
+    private final CharClass[] classes;
+    private final int[] rules;
+
+    private final Map<StateSet, State> states = new ConcurrentHashMap<>();
+    private final State start;
+
+    private GlobAutomaton(Builder builder) {
+        kinds = new byte[builder.kinds.size()];
+        for (int i = 0; i < kinds.length; i++) {
+            kinds[i] = builder.kinds.get(i);
+        }
+        literals = new char[kinds.length];
+        for (int i = 0; i < kinds.length; i++) {
+            literals[i] = builder.literals.get(i);
+        }
+        classes = builder.classes.toArray(CharClass[]::new);
+        rules = builder.rules.stream().mapToInt(Integer::intValue).toArray();
+
+        BitSet initial = new BitSet(kinds.length);
+        for (int glob : builder.starts) {
+            initial.set(glob);
+        }
+        start = state(closure(initial));
+    }
+
+    boolean isEmpty() {
+        return kinds.length == 0;
+    }
+
+    /**
+     * @return number of the deterministic states kept
+     */
+    int size() {
+        return states.size();
+    }
+
+    /**
+     * Sets the bits of all rules with a glob matching the path or any of its parent directories.
+     */
+    void match(String path, BitSet matched) {
+        State state = start;
+        for (int i = 0; i < path.length() && !state.isDead(); i++) {
+            char c = path.charAt(i);
+            if (c == '/') {
+                matched.or(state.accepting);
+            }
+            state = next(state, c);
+        }
+        matched.or(state.accepting);
+    }
+
+    private State next(State state, char c) {
+        State next = state.transitions.get(c);
+        if (next == null) {
+            next = state(step(state.nfaStates, c));
+            if (states.size() < MAX_STATES) {
+                state.transitions.put(c, next);
+            }
+        }
+        return next;
+    }
+
+    private State state(int[] nfaStates) {
+        StateSet key = new StateSet(nfaStates);
+        State state = states.get(key);
+        if (state != null) {
+            return state;
+        }
+        BitSet accepting = new BitSet();
+        for (int nfaState : nfaStates) {
+            if (kinds[nfaState] == ACCEPT) {
+                accepting.set(rules[nfaState]);
+            }
+        }
+        state = new State(nfaStates, accepting);
+        if (states.size() >= MAX_STATES) {
+            return state;
+        }
+        State existing = states.putIfAbsent(key, state);
+        return existing != null ? existing : state;
+    }
+
+    private int[] step(int[] nfaStates, char c) {
+        BitSet next = new BitSet(kinds.length);
+        for (int nfaState : nfaStates) {
+            switch (kinds[nfaState]) {
+                case LITERAL -> {
+                    if (literals[nfaState] == c) {
+                        next.set(nfaState + 1);
+                    }
+                }
+                case ANY -> {
+                    if (c != '/') {
+                        next.set(nfaState + 1);
+                    }
+                }
+                case CLASS -> {
+                    if (c != '/' && classes[nfaState].matches(c)) {
+                        next.set(nfaState + 1);
+                    }
+                }
+                case STAR -> {
+                    if (c != '/') {
+                        next.set(nfaState);
+                    }
+                }
+                case DOUBLE_STAR -> next.set(nfaState);
+                case DIRECTORIES_START, DIRECTORIES -> {
+                    int directories = kinds[nfaState] == DIRECTORIES ? nfaState : nfaState + 1;
+                    next.set(directories);
+                    if (c == '/') {
+                        next.set(directories + 1);
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        return closure(next);
+    }
+
+    private int[] closure(BitSet nfaStates) {
+        Deque<Integer> pending = new ArrayDeque<>();
+        nfaStates.stream().forEach(pending::push);
+        while (!pending.isEmpty()) {
+            int nfaState = pending.pop();
+            int skipped = switch (kinds[nfaState]) {
+                case STAR, DOUBLE_STAR -> nfaState + 1;
+                case DIRECTORIES_START -> nfaState + 2;
+                default -> -1;
+            };
+            if (skipped >= 0 && !nfaStates.get(skipped)) {
+                nfaStates.set(skipped);
+                pending.push(skipped);
+            }
+        }
+        return nfaStates.stream().toArray();
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    private static final class State {
+
+        private final int[] nfaStates;
+        private final BitSet accepting;
+        private final Map<Character, State> transitions = new ConcurrentHashMap<>();
+
+        private State(int[] nfaStates, BitSet accepting) {
+            this.nfaStates = nfaStates;
+            this.accepting = accepting;
+        }
+
+        private boolean isDead() {
+            return nfaStates.length == 0;
+        }
+    }
+
+    private record StateSet(int[] nfaStates) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof StateSet other && Arrays.equals(nfaStates, other.nfaStates);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(nfaStates);
+        }
+    }
+
+    private record CharClass(boolean negated, char[] ranges) {
+
+        private boolean matches(char c) {
+            for (int i = 0; i < ranges.length; i += 2) {
+                if (c >= ranges[i] && c <= ranges[i + 1]) {
+                    return !negated;
+                }
+            }
+            return negated;
+        }
+    }
+
+    static final class Builder {
+
+        private final List<Byte> kinds = new ArrayList<>();
+        private final List<Character> literals = new ArrayList<>();
+        private final List<CharClass> classes = new ArrayList<>();
+        private final List<Integer> rules = new ArrayList<>();
+        private final List<Integer> starts = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the glob of the rule, a trailing {@code /} is ignored.
+         */
+        Builder add(String glob, int rule) {
+            String pattern = glob.endsWith("/") ? glob.substring(0, glob.length() - 1) : glob;
+            starts.add(kinds.size());
+            int i = 0;
+            while (i < pattern.length()) {
+                char c = pattern.charAt(i);
+                if (c == '\\' && i + 1 < pattern.length()) {
+                    add(LITERAL, pattern.charAt(i + 1), null);
+                    i += 2;
+                } else if (c == '*' && pattern.startsWith("**/", i)) {
+                    add(DIRECTORIES_START, c, null);
+                    add(DIRECTORIES, c, null);
+                    i += 3;
+                } else if (c == '*' && pattern.startsWith("**", i)) {
+                    add(DOUBLE_STAR, c, null);
+                    while (i < pattern.length() && pattern.charAt(i) == '*') {
+                        i++;
+                    }
+                } else if (c == '*') {
+                    add(STAR, c, null);
+                    i++;
+                } else if (c == '?') {
+                    add(ANY, c, null);
+                    i++;
+                } else if (c == '[' && classEnd(pattern, i) > 0) {
+                    int end = classEnd(pattern, i);
+                    add(CLASS, c, charClass(pattern.substring(i + 1, end)));
+                    i = end + 1;
+                } else {
+                    add(LITERAL, c, null);
+                    i++;
+                }
+            }
+            kinds.add(ACCEPT);
+            literals.add('\0');
+            classes.add(null);
+            rules.add(rule);
+            return this;
+        }
+
+        GlobAutomaton build() {
+            return new GlobAutomaton(this);
+        }
+
+        private void add(byte kind, char literal, CharClass charClass) {
+            kinds.add(kind);
+            literals.add(literal);
+            classes.add(charClass);
+            rules.add(-1);
+        }
+
+        /**
+         * @return index of the {@code ]} closing the class opened at the index, or -1 if the class is not closed
+         */
+        private static int classEnd(String pattern, int open) {
+            int i = open + 1;
+            if (i < pattern.length() && (pattern.charAt(i) == '!' || pattern.charAt(i) == '^')) {
+                i++;
+            }
+            // ] right after the opening bracket is a member of the class
+            if (i < pattern.length() && pattern.charAt(i) == ']') {
+                i++;
+            }
+            return pattern.indexOf(']', i);
+        }
+
+        private static CharClass charClass(String members) {
+            boolean negated = !members.isEmpty() && (members.charAt(0) == '!' || members.charAt(0) == '^');
+            String chars = negated ? members.substring(1) : members;
+            StringBuilder ranges = new StringBuilder();
+            for (int i = 0; i < chars.length(); i++) {
+                char from = chars.charAt(i);
+                if (i + 2 < chars.length() && chars.charAt(i + 1) == '-') {
+                    ranges.append(from).append(chars.charAt(i + 2));
+                    i += 2;
+                } else {
+                    ranges.append(from).append(from);
+                }
+            }
+            return new CharClass(negated, ranges.toString().toCharArray());
+        }
+    }
+}
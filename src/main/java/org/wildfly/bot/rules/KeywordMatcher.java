@@ -0,0 +1,251 @@
+package org.wildfly.bot.rules;
+
+import io.micrometer.core.instrument.Counter;
+import org.jboss.logging.Logger;
+import org.wildfly.bot.util.Patterns;
+import org.wildfly.bot.util.RegexBudgetExceededException;
+import org.wildfly.bot.util.Strings;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Finds all rules, whose keyword occurs in a text, in a single pass over the text. A keyword matches
+ * the same way as {@code Pattern.compile("\\b(" + keyword + ")\\b", DOTALL | CASE_INSENSITIVE).matcher(text).find()}.
+ * <p>
+ * Literal keywords, which are nearly all of them, are searched by an Aho-Corasick automaton over the ASCII
+ * case folded text, thus the cost grows with the length of the text and not with the number of rules.
+ * Keywords containing regular expression constructs are compiled to patterns and tried one by one, but only
+ * for the rules not matched already.
+ */
+final class KeywordMatcher {
+
+    private static final Logger LOG = Logger.getLogger(KeywordMatcher.class);
+
+    private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+    private static final Pattern WORD_BOUNDARY = Pattern.compile("\\b");
+
+    private static final int[] NO_KEYWORDS = new int[0];
+
+    // goto function of the automaton, labels of every node are sorted to allow binary search
+    private final char[][] labels;
+    private final int[][] targets;
+    private final int[] failure;
+    // ids of the literal keywords ending at the node, including the ones reachable by failure links
+    private final int[][] outputs;
+    private final int[] keywordLengths;
+    private final int[] keywordRules;
+
+    private final List<Pattern> patterns;
+    private final int[] patternRules;
+
+    private KeywordMatcher(Builder builder) {
+        int nodes = builder.trie.size();
+        labels = new char[nodes][];
+        targets = new int[nodes][];
+        failure = new int[nodes];
+        outputs = new int[nodes][];
+        for (int node = 0; node < nodes; node++) {
+            TreeMap<Character, Integer> children = builder.trie.get(node);
+            labels[node] = new char[children.size()];
+            targets[node] = new int[children.size()];
+            int i = 0;
+            for (Map.Entry<Character, Integer> child : children.entrySet()) {
+                labels[node][i] = child.getKey();
+                targets[node][i] = child.getValue();
+                i++;
+            }
+        }
+
+        List<List<Integer>> nodeOutputs = builder.outputs;
+        outputs[0] = NO_KEYWORDS;
+        Queue<Integer> queue = new ArrayDeque<>();
+        for (int child : targets[0]) {
+            failure[child] = 0;
+            queue.add(child);
+        }
+        while (!queue.isEmpty()) {
+            int node = queue.remove();
+            outputs[node] = merge(nodeOutputs.get(node), outputs[failure[node]]);
+            for (int i = 0; i < labels[node].length; i++) {
+                int child = targets[node][i];
+                int state = failure[node];
+                int next;
+                while ((next = next(state, labels[node][i])) < 0 && state != 0) {
+                    state = failure[state];
+                }
+                failure[child] = Math.max(next, 0);
+                queue.add(child);
+            }
+        }
+
+        keywordLengths = builder.keywordLengths.stream().mapToInt(Integer::intValue).toArray();
+        keywordRules = builder.keywordRules.stream().mapToInt(Integer::intValue).toArray();
+        patterns = List.copyOf(builder.patterns);
+        patternRules = builder.patternRules.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    /**
+     * @return true if there are no keywords to search for
+     */
+    boolean isEmpty() {
+        return keywordRules.length == 0 && patternRules.length == 0;
+    }
+
+    /**
+     * Sets the bits of all rules, whose keyword occurs in the text. A rule, whose pattern is aborted, is
+     * reported as an error and does not match.
+     *
+     * @param aborted counter of the aborted matches of the patterns, or null
+     */
+    void match(String text, BitSet matched, Counter aborted) {
+        if (Strings.isBlank(text)) {
+            return;
+        }
+
+        int state = 0;
+        for (int end = 0; end < text.length(); end++) {
+            char c = fold(text.charAt(end));
+            int next;
+            while ((next = next(state, c)) < 0 && state != 0) {
+                state = failure[state];
+            }
+            state = Math.max(next, 0);
+            for (int keyword : outputs[state]) {
+                int rule = keywordRules[keyword];
+                int start = end + 1 - keywordLengths[keyword];
+                if (!matched.get(rule) && isBoundary(text, start) && isBoundary(text, end + 1)) {
+                    matched.set(rule);
+                }
+            }
+        }
+
+        for (int i = 0; i < patternRules.length; i++) {
+            if (matched.get(patternRules[i])) {
+                continue;
+            }
+            try {
+                if (Patterns.matches(patterns.get(i), text, aborted)) {
+                    matched.set(patternRules[i]);
+                }
+            } catch (RegexBudgetExceededException e) {
+                // a single rule with a pathological pattern must not block the evaluation of all the others
+                LOG.errorf("Matching of the rule at position %d against [%s] has been aborted, as it takes too long",
+                        patternRules[i], patterns.get(i).pattern());
+            }
+        }
+    }
+
+    private int next(int state, char c) {
+        int i = Arrays.binarySearch(labels[state], c);
+        return i < 0 ? -1 : targets[state][i];
+    }
+
+    private static int[] merge(List<Integer> own, int[] inherited) {
+        if (own.isEmpty()) {
+            return inherited;
+        }
+        int[] merged = Arrays.copyOf(inherited, inherited.length + own.size());
+        for (int i = 0; i < own.size(); i++) {
+            merged[inherited.length + i] = own.get(i);
+        }
+        return merged;
+    }
+
+    // CASE_INSENSITIVE without UNICODE_CASE folds US-ASCII characters only
+    private static char fold(char c) {
+        return c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c;
+    }
+
+    /**
+     * @return true if there is a word boundary {@code \b} at the index
+     */
+    private static boolean isBoundary(String text, int index) {
+        char before = index > 0 ? text.charAt(index - 1) : ' ';
+        char after = index < text.length() ? text.charAt(index) : ' ';
+        if (before >= 0x80 || after >= 0x80) {
+            // let the regex engine decide on non-ASCII neighbours, e.g. non-spacing marks
+            return WORD_BOUNDARY.matcher(text).useTransparentBounds(true).region(index, index).lookingAt();
+        }
+        return isWord(before) != isWord(after);
+    }
+
+    private static boolean isWord(char c) {
+        return c == '_' || (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+
+    static Builder builder() {
+        return new Builder();
+    }
+
+    static final class Builder {
+
+        private final List<TreeMap<Character, Integer>> trie = new ArrayList<>();
+        private final List<List<Integer>> outputs = new ArrayList<>();
+        private final List<Integer> keywordLengths = new ArrayList<>();
+        private final List<Integer> keywordRules = new ArrayList<>();
+        private final List<Pattern> patterns = new ArrayList<>();
+        private final List<Integer> patternRules = new ArrayList<>();
+        private final Map<String, Pattern> compiled = new HashMap<>();
+
+        private Builder() {
+            addNode();
+        }
+
+        /**
+         * Adds the keyword of the rule, blank keywords are ignored.
+         */
+        Builder add(String keyword, int rule) {
+            if (Strings.isBlank(keyword)) {
+                return this;
+            }
+            if (isLiteral(keyword)) {
+                int node = 0;
+                for (int i = 0; i < keyword.length(); i++) {
+                    char c = fold(keyword.charAt(i));
+                    Integer child = trie.get(node).get(c);
+                    if (child == null) {
+                        child = addNode();
+                        trie.get(node).put(c, child);
+                    }
+                    node = child;
+                }
+                outputs.get(node).add(keywordRules.size());
+                keywordLengths.add(keyword.length());
+                keywordRules.add(rule);
+            } else {
+                patterns.add(compiled.computeIfAbsent(keyword, CompiledRule::compileKeyword));
+                patternRules.add(rule);
+            }
+            return this;
+        }
+
+        KeywordMatcher build() {
+            return new KeywordMatcher(this);
+        }
+
+        private int addNode() {
+            trie.add(new TreeMap<>());
+            outputs.add(new ArrayList<>());
+            return trie.size() - 1;
+        }
+
+        private static boolean isLiteral(String keyword) {
+            for (int i = 0; i < keyword.length(); i++) {
+                if (METACHARACTERS.indexOf(keyword.charAt(i)) >= 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
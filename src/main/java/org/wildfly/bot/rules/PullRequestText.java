@@ -0,0 +1,35 @@
+package org.wildfly.bot.rules;
+
+import org.kohsuke.github.GHPullRequest;
+
+/**
+ * Title and body of a pull request, retrieved only once and only when a rule asks for them.
+ */
+public final class PullRequestText {
+
+    private final GHPullRequest pullRequest;
+    private String title;
+    private String body;
+    private boolean titleRetrieved;
+    private boolean bodyRetrieved;
+
+    public PullRequestText(GHPullRequest pullRequest) {
+        this.pullRequest = pullRequest;
+    }
+
+    public String title() {
+        if (!titleRetrieved) {
+            title = pullRequest.getTitle();
+            titleRetrieved = true;
+        }
+        return title;
+    }
+
+    public String body() {
+        if (!bodyRetrieved) {
+            body = pullRequest.getBody();
+            bodyRetrieved = true;
+        }
+        return body;
+    }
+}
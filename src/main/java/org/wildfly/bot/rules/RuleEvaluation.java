@@ -0,0 +1,32 @@
+package org.wildfly.bot.rules;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.SequencedMap;
+import java.util.Set;
+
+/**
+ * Outcome of evaluating the rules against a pull request, before it is compared with the current state of
+ * the pull request, i.e. its labels, reviewers and comments.
+ *
+ * @param matchedRules {@link CompiledRule#index()}es of the matched rules
+ * @param ccMentionsWithRules users to mention, mapped to the ids of the rules mentioning them
+ * @param reviewers users to request a review from
+ * @param labels labels to add
+ */
+public record RuleEvaluation(BitSet matchedRules, SequencedMap<String, List<String>> ccMentionsWithRules,
+        Set<String> reviewers, Set<String> labels) {
+
+    /**
+     * @return deep copy of the evaluation, which can be modified without affecting this one
+     */
+    public RuleEvaluation copy() {
+        SequencedMap<String, List<String>> ccMentions = new LinkedHashMap<>();
+        ccMentionsWithRules.forEach((user, rules) -> ccMentions.put(user, new ArrayList<>(rules)));
+        return new RuleEvaluation((BitSet) matchedRules.clone(), ccMentions, new HashSet<>(reviewers),
+                new HashSet<>(labels));
+    }
+}
@@ -0,0 +1,128 @@
+package org.wildfly.bot.rules;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.vertx.core.json.JsonObject;
+import jakarta.annotation.PostConstruct;
+import jakarta.enterprise.context.ApplicationScoped;
+import jakarta.inject.Inject;
+import org.wildfly.bot.delivery.PullRequestLanes;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Remembers the {@link RuleEvaluation}s of the most recent pull requests by everything the evaluation depends
+ * on, i.e. the version of the rules, the title and body, the head commit and the base branch of the pull
+ * request. Events, which do not change any of these, e.g. {@code reopened}, {@code ready_for_review} or
+ * redeliveries, reuse the evaluation and only compare it with the current state of the pull request.
+ * <p>
+ * Lookups are counted by the {@code wildfly.bot.rules.evaluations} counter, tagged by {@code result}, which is
+ * either {@code hit} or {@code miss}.
+ */
+@ApplicationScoped
+public class RuleEvaluationCache {
+
+    static final int MAX_EVALUATIONS = 1024;
+
+    private final Map<String, RuleEvaluation> evaluations = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RuleEvaluation> eldest) {
+            return size() > MAX_EVALUATIONS;
+        }
+    };
+
+    private Counter hits;
+    private Counter misses;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    @PostConstruct
+    void init() {
+        hits = counter("hit");
+        misses = counter("miss");
+    }
+
+    /**
+     * @return copy of the remembered evaluation, or of the newly computed one if there is none
+     */
+    public RuleEvaluation get(GitHubEvent gitHubEvent, CompiledRuleSet ruleSet, Evaluation evaluation)
+            throws IOException {
+        String key = key(gitHubEvent, ruleSet);
+        if (key == null) {
+            return evaluation.evaluate();
+        }
+
+        RuleEvaluation result;
+        synchronized (evaluations) {
+            result = evaluations.get(key);
+        }
+        if (result != null) {
+            hits.increment();
+            return result.copy();
+        }
+
+        misses.increment();
+        result = evaluation.evaluate();
+        synchronized (evaluations) {
+            evaluations.put(key, result.copy());
+        }
+        return result;
+    }
+
+    /**
+     * Forgets all evaluations.
+     */
+    public void clear() {
+        synchronized (evaluations) {
+            evaluations.clear();
+        }
+    }
+
+    private Counter counter(String result) {
+        return Counter.builder("wildfly.bot.rules.evaluations")
+                .description("Number of rule evaluations looked up in the cache")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static String key(GitHubEvent gitHubEvent, CompiledRuleSet ruleSet) {
+        String pullRequestKey = PullRequestLanes.pullRequestKey(gitHubEvent);
+        if (pullRequestKey == null) {
+            return null;
+        }
+        JsonObject pullRequest = gitHubEvent.getParsedPayload().getJsonObject("pull_request");
+        String headSha = pullRequest.getValue("head") instanceof JsonObject head ? head.getString("sha") : null;
+        String baseRef = pullRequest.getValue("base") instanceof JsonObject base ? base.getString("ref") : null;
+        if (headSha == null || baseRef == null) {
+            return null;
+        }
+        return String.join("#", pullRequestKey, ruleSet.digest(), headSha, baseRef,
+                hash(pullRequest.getString("title")), hash(pullRequest.getString("body")));
+    }
+
+    private static String hash(String text) {
+        if (text == null) {
+            return "";
+        }
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Evaluation {
+
+        RuleEvaluation evaluate() throws IOException;
+    }
+}
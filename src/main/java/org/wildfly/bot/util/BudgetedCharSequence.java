@@ -0,0 +1,80 @@
+package org.wildfly.bot.util;
+
+import io.micrometer.core.instrument.Counter;
+
+/**
+ * Character sequence, which allows only a limited number of characters to be read. The regex engine reads
+ * the text character by character, thus a pattern backtracking catastrophically exceeds the budget and is
+ * aborted by {@link RegexBudgetExceededException}, instead of blocking the thread for minutes or hours.
+ * <p>
+ * Every aborted match increments the counter given, see {@link Patterns#abortedCounter}.
+ */
+final class BudgetedCharSequence implements CharSequence {
+
+    private final String text;
+    private final int offset;
+    private final int length;
+    private final Budget budget;
+
+    /**
+     * @param aborted counter of the aborted matches, or null if the aborted match should not be counted, e.g.
+     *        when estimating the cost
+     */
+    BudgetedCharSequence(String text, long steps, Counter aborted) {
+        this(text, 0, text.length(), new Budget(steps, aborted));
+    }
+
+    private BudgetedCharSequence(String text, int offset, int length, Budget budget) {
+        this.text = text;
+        this.offset = offset;
+        this.length = length;
+        this.budget = budget;
+    }
+
+    /**
+     * @return number of characters read so far by this sequence and all its subsequences
+     */
+    long used() {
+        return budget.steps - Math.max(budget.remaining, 0);
+    }
+
+    @Override
+    public int length() {
+        return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (--budget.remaining < 0) {
+            if (budget.aborted != null) {
+                budget.aborted.increment();
+            }
+            throw new RegexBudgetExceededException(budget.steps);
+        }
+        return text.charAt(offset + index);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return new BudgetedCharSequence(text, offset + start, end - start, budget);
+    }
+
+    @Override
+    public String toString() {
+        return text.substring(offset, offset + length);
+    }
+
+    // shared by the sequence and all its subsequences
+    private static final class Budget {
+
+        private final long steps;
+        private final Counter aborted;
+        private long remaining;
+
+        private Budget(long steps, Counter aborted) {
+            this.steps = steps;
+            this.aborted = aborted;
+            this.remaining = steps;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package org.wildfly.bot.util;
 
+import io.quarkiverse.githubapp.GitHubEvent;
 import io.quarkus.mailer.Mail;
 import io.quarkus.mailer.Mailer;
 import jakarta.annotation.PostConstruct;
@@ -7,9 +8,9 @@ import jakarta.enterprise.context.Dependent;
 import jakarta.inject.Inject;
 import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.jboss.logging.Logger;
-import org.kohsuke.github.GHCommit;
 import org.kohsuke.github.GHCommitQueryBuilder;
 import org.kohsuke.github.GHCommitState;
+import org.kohsuke.github.GHCompare;
 import org.kohsuke.github.GHIssueComment;
 import org.kohsuke.github.GHLabel;
 import org.kohsuke.github.GHPerson;
@@ -21,6 +22,8 @@ import org.kohsuke.github.GitHub;
 import org.kohsuke.github.HttpException;
 import org.kohsuke.github.PagedIterable;
 import org.wildfly.bot.config.WildFlyBotConfig;
+import org.wildfly.bot.history.BaseBranchIndex;
+import org.wildfly.bot.history.GitMirror;
 import org.wildfly.bot.model.RuntimeConstants;
 import org.wildfly.bot.model.WildFlyConfigFile;
 
@@ -28,7 +31,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
@@ -67,6 +70,12 @@ public class GithubProcessor {
     @Inject
     Mailer mailer;
 
+    @Inject
+    BaseBranchIndex baseBranchIndex;
+
+    @Inject
+    GitMirror gitMirror;
+
     @ConfigProperty(name = "quarkus.mailer.username")
     Optional<String> username;
 
@@ -397,28 +406,84 @@ public class GithubProcessor {
                 .toList());
     }
 
-    public boolean hasDuplicateCommitInBase(GHPullRequest pullRequest, GHRepository repository)
+    /**
+     * Looks the commits of the pull request up in the {@link BaseBranchIndex}. The history of the base branch is
+     * listed only if the branch has not been indexed yet. If another event is indexing the branch at the moment,
+     * the oldest commit of the pull request is compared with the base branch instead, as any commit in the base
+     * branch implies that its ancestors are there as well. If the {@link GitMirror} is enabled, it answers instead
+     * of the index.
+     */
+    public boolean hasDuplicateCommitInBase(GHPullRequest pullRequest, GHRepository repository, GitHubEvent gitHubEvent)
             throws IOException {
         String baseBranch = pullRequest.getBase().getRef();
-        GHCommitQueryBuilder commitQuery = repository.queryCommits();
-        if (commitQuery == null) {
-            return false;
+        String repositoryName = gitHubEvent.getRepository().orElse(null);
+        if (gitMirror.isEnabled()) {
+            Boolean duplicate = hasDuplicateCommitInMirror(pullRequest, repositoryName, baseBranch,
+                    GitMirror.sha(gitHubEvent, "base"));
+            if (duplicate != null) {
+                return duplicate;
+            }
         }
 
-        Set<String> baseCommitSHAs = new HashSet<>();
-        for (GHCommit commit : commitQuery.from(baseBranch).pageSize(100).list()) {
-            baseCommitSHAs.add(commit.getSHA1());
+        BaseBranchIndex.Commits baseCommits = baseBranchIndex.get(repositoryName, baseBranch);
+        if (baseCommits == null) {
+            GHCommitQueryBuilder commitQuery = repository.queryCommits();
+            if (commitQuery == null) {
+                return false;
+            }
+            baseCommits = baseBranchIndex.seed(repositoryName, baseBranch,
+                    commitQuery.from(baseBranch).pageSize(100).list());
+        } else {
+            baseCommits = baseBranchIndex.catchUp(repositoryName, baseBranch, baseCommits,
+                    GitMirror.sha(gitHubEvent, "base"), repository);
         }
 
         for (GHPullRequestCommitDetail prCommit : pullRequest.listCommits()) {
             String prSha = prCommit.getSha();
-            if (baseCommitSHAs.contains(prSha)) {
-                LOG.infof("Skipping rules due to incorrect rebase detected: commit %s is already in the base branch %s",
-                        prSha,
-                        baseBranch);
+            boolean inBase = baseCommits != null ? baseCommits.contains(prSha) : isInBranch(repository, prSha, baseBranch);
+            if (inBase) {
+                logDuplicateCommit(prSha, baseBranch);
                 return true;
             }
+            if (baseCommits == null) {
+                // commits are listed from the oldest one, the following ones can not be in the base branch either
+                return false;
+            }
         }
         return false;
     }
+
+    private static boolean isInBranch(GHRepository repository, String sha, String branch) throws IOException {
+        GHCompare compare = repository.getCompare(sha, branch);
+        return compare.getStatus() == GHCompare.Status.ahead || compare.getStatus() == GHCompare.Status.identical;
+    }
+
+    /**
+     * Checks the oldest commit of the pull request only, as any commit in the base branch implies that its
+     * ancestors are there as well. Thus only the first page of the commits is listed and the history is walked once.
+     *
+     * @return null if the mirror is unable to tell, e.g. it failed to fetch the commits
+     */
+    private Boolean hasDuplicateCommitInMirror(GHPullRequest pullRequest, String repositoryName, String baseBranch,
+            String baseSha) {
+        Iterator<GHPullRequestCommitDetail> prCommits = pullRequest.listCommits().iterator();
+        if (!prCommits.hasNext()) {
+            return false;
+        }
+        String oldestSha = prCommits.next().getSha();
+        Optional<Boolean> inBase = gitMirror.isMerged(repositoryName, oldestSha, baseSha);
+        if (inBase.isEmpty()) {
+            return null;
+        }
+        if (inBase.get()) {
+            logDuplicateCommit(oldestSha, baseBranch);
+        }
+        return inBase.get();
+    }
+
+    private void logDuplicateCommit(String sha, String baseBranch) {
+        LOG.infof("Skipping rules due to incorrect rebase detected: commit %s is already in the base branch %s",
+                sha,
+                baseBranch);
+    }
 }
@@ -1,49 +1,114 @@
 package org.wildfly.bot.util;
 
-import org.wildfly.bot.model.WildFlyConfigFile.WildFlyRule;
+import org.kohsuke.github.GHCommit;
+import org.kohsuke.github.GHCompare;
 import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHPullRequestFileDetail;
+import org.kohsuke.github.GHRepository;
+import org.wildfly.bot.rules.CompiledRule;
+import org.wildfly.bot.rules.CompiledRuleSet;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Optional;
 
 public class Matcher {
 
-    public static boolean notifyComment(GHPullRequest pullRequest, WildFlyRule rule) {
-        if (Strings.isNotBlank(rule.title)) {
-            if (Patterns.find(regexWordWrap(rule.title), pullRequest.getTitle())) {
-                return true;
-            }
-        }
+    // the compare API lists at most 300 files, longer lists are truncated
+    private static final int MAX_COMPARED_FILES = 300;
 
-        if (Strings.isNotBlank(rule.body)) {
-            if (Patterns.find(regexWordWrap(rule.body), pullRequest.getBody())) {
-                return true;
+    private static final String REMOVED = "removed";
+
+    /**
+     * Lists the changed files of the pull request once for all rules, and only if any rule has directories.
+     *
+     * @return {@link CompiledRule#index()}es of the rules with a directory containing any of the changed files
+     */
+    public static BitSet notifyRequestReview(GHPullRequest pullRequest, CompiledRuleSet ruleSet) {
+        BitSet matched = new BitSet();
+        if (ruleSet.hasDirectoryRules()) {
+            for (GHPullRequestFileDetail changedFile : pullRequest.listFiles()) {
+                if (ruleSet.matchFile(changedFile.getFilename(), matched)) {
+                    break;
+                }
             }
         }
 
-        if (Strings.isNotBlank(rule.titleBody)) {
-            if (Patterns.find(regexWordWrap(rule.titleBody), pullRequest.getTitle()) ||
-                    Patterns.find(regexWordWrap(rule.titleBody), pullRequest.getBody())) {
-                return true;
+        return matched;
+    }
+
+    /**
+     * Same as {@link #notifyRequestReview(GHPullRequest, CompiledRuleSet)}, but with the changed files already known,
+     * e.g. from a {@link org.wildfly.bot.history.GitMirror}.
+     */
+    public static BitSet notifyRequestReview(Iterable<String> changedFiles, CompiledRuleSet ruleSet) {
+        BitSet matched = new BitSet();
+        if (ruleSet.hasDirectoryRules()) {
+            for (String changedFile : changedFiles) {
+                if (ruleSet.matchFile(changedFile, matched)) {
+                    break;
+                }
             }
         }
 
-        return false;
+        return matched;
     }
 
-    public static boolean notifyRequestReview(GHPullRequest pullRequest, WildFlyRule rule) {
-        if (!rule.directories.isEmpty()) {
-            for (GHPullRequestFileDetail changedFile : pullRequest.listFiles()) {
-                for (String directory : rule.directories) {
-                    if (changedFile.getFilename().startsWith(directory.endsWith("/") ? directory : directory + "/")) {
-                        return true;
-                    }
-                }
+    /**
+     * Adds the rules matched by the files changed between the previous and the new head of the pull request
+     * to the rules matched by the previous head. The files changed between the heads can only add rules, they
+     * do not tell whether a file, which is part of the pull request already, has been reverted or removed, and
+     * thus whether a rule matched by the previous head is not matched anymore.
+     *
+     * @return empty if the files changed between the heads do not tell the files of the pull request, i.e. the
+     *         history has been rewritten, the base branch has been merged in, the list of commits or files is
+     *         truncated, or a removed file or a file of a rule matched by the previous head has been changed
+     */
+    public static Optional<BitSet> notifyRequestReview(GHRepository repository, String before, String after,
+            CompiledRuleSet ruleSet, BitSet previous) throws IOException {
+        BitSet matched = (BitSet) previous.clone();
+        if (!ruleSet.hasDirectoryRules()) {
+            return Optional.of(matched);
+        }
+
+        GHCompare compare = repository.getCompare(before, after);
+        if (compare.getStatus() != GHCompare.Status.ahead) {
+            return Optional.empty();
+        }
+        // the compare API lists at most 250 commits, a merge commit may be among the ones left out
+        if (compare.getTotalCommits() != compare.getCommits().length) {
+            return Optional.empty();
+        }
+        for (GHCompare.Commit commit : compare.getCommits()) {
+            if (commit.getParentSHA1s().size() > 1) {
+                return Optional.empty();
             }
         }
+        GHCommit.File[] files = compare.getFiles();
+        if (files.length >= MAX_COMPARED_FILES) {
+            return Optional.empty();
+        }
 
-        return false;
+        for (GHCommit.File file : files) {
+            if (REMOVED.equals(file.getStatus()) || matchesAny(ruleSet, file.getFileName(), previous)
+                    || matchesAny(ruleSet, file.getPreviousFilename(), previous)) {
+                return Optional.empty();
+            }
+        }
+        for (GHCommit.File file : files) {
+            if (ruleSet.matchFile(file.getFileName(), matched)) {
+                break;
+            }
+        }
+        return Optional.of(matched);
     }
 
-    private static String regexWordWrap(String word) {
-        return "\\b(" + word + ")\\b";
+    private static boolean matchesAny(CompiledRuleSet ruleSet, String filename, BitSet rules) {
+        if (filename == null) {
+            return false;
+        }
+        BitSet matched = new BitSet();
+        ruleSet.matchFile(filename, matched);
+        return matched.intersects(rules);
     }
 }
@@ -0,0 +1,277 @@
+package org.wildfly.bot.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * Estimates the cost of matching user supplied patterns, so that the configuration file check is able to
+ * reject patterns, which would be aborted by {@link Patterns} in production.
+ * <ul>
+ * <li>{@link #findProblems(Pattern)} looks for the constructs prone to catastrophic backtracking, i.e. a
+ * quantified group containing an unbounded quantifier, e.g. {@code (a+)+}, or containing alternatives, which
+ * may start with the same character, e.g. {@code (\w|\d)*}</li>
+ * <li>{@link #worstCaseSteps(Pattern)} matches the pattern against synthetic bodies of
+ * {@value #SYNTHETIC_LENGTH} characters and returns the highest number of steps needed</li>
+ * </ul>
+ */
+public final class PatternAnalyzer {
+
+    public static final int SYNTHETIC_LENGTH = 10_000;
+
+    /**
+     * Worst-case cost is considered too high above this number of steps per character of the synthetic body.
+     * It is a tenth of the budget {@link Patterns} allows in production.
+     */
+    public static final long MAX_STEPS_PER_CHARACTER = Patterns.STEPS_PER_CHARACTER / 10;
+
+    private static final List<String> SYNTHETIC_BODIES = List.of(
+            "a".repeat(SYNTHETIC_LENGTH - 1) + "!",
+            "a ".repeat(SYNTHETIC_LENGTH / 2 - 1) + "a!",
+            synthetic("aA1_-. \n"),
+            synthetic("Fixes https://redhat.atlassian.net/browse/WFLY-12345 by updating the subsystem model. "));
+
+    // printable ASCII characters used to check, whether two alternatives may start with the same character
+    private static final String ALPHABET;
+
+    static {
+        StringBuilder alphabet = new StringBuilder(" \t\n");
+        for (char c = '!'; c <= '~'; c++) {
+            alphabet.append(c);
+        }
+        ALPHABET = alphabet.toString();
+    }
+
+    /**
+     * @return descriptions of the constructs prone to catastrophic backtracking, empty if there are none
+     */
+    public static List<String> findProblems(Pattern pattern) {
+        List<String> problems = new ArrayList<>();
+        String regex = pattern.pattern();
+        Deque<Group> groups = new ArrayDeque<>();
+        Group current = new Group(0);
+        int i = 0;
+        while (i < regex.length()) {
+            char c = regex.charAt(i);
+            int atomEnd;
+            switch (c) {
+                case '(' -> {
+                    groups.push(current);
+                    current = new Group(i);
+                    i = skipGroupModifiers(regex, i + 1);
+                    continue;
+                }
+                case ')' -> {
+                    if (groups.isEmpty()) {
+                        // unbalanced, Pattern.compile would have failed already
+                        return problems;
+                    }
+                    Group group = current;
+                    current = groups.pop();
+                    current.addAtom(null);
+                    int quantifierEnd = quantifierEnd(regex, i + 1);
+                    boolean unbounded = isUnbounded(regex, i + 1, quantifierEnd);
+                    if (unbounded && group.containsUnbounded) {
+                        problems.add("nested quantifier in " + regex.substring(group.start, quantifierEnd));
+                    } else if (unbounded && group.hasOverlappingAlternatives(pattern.flags())) {
+                        problems.add("overlapping alternatives under a quantifier in "
+                                + regex.substring(group.start, quantifierEnd));
+                    }
+                    current.containsUnbounded |= unbounded || group.containsUnbounded;
+                    i = quantifierEnd;
+                    continue;
+                }
+                case '|' -> {
+                    current.newAlternative();
+                    i++;
+                    continue;
+                }
+                case '\\' -> atomEnd = escapeEnd(regex, i);
+                case '[' -> atomEnd = classEnd(regex, i);
+                default -> atomEnd = i + 1;
+            }
+            current.addAtom(regex.substring(i, atomEnd));
+            int quantifierEnd = quantifierEnd(regex, atomEnd);
+            current.containsUnbounded |= isUnbounded(regex, atomEnd, quantifierEnd);
+            i = quantifierEnd;
+        }
+        return problems;
+    }
+
+    /**
+     * @return highest number of steps needed to match the pattern against any of the synthetic bodies, or -1 if
+     *         the matching would be aborted by {@link Patterns} or overflows the stack
+     */
+    public static long worstCaseSteps(Pattern pattern) {
+        long worst = 0;
+        for (String body : SYNTHETIC_BODIES) {
+            BudgetedCharSequence sequence = new BudgetedCharSequence(body,
+                    Math.max(Patterns.MIN_STEPS, Patterns.STEPS_PER_CHARACTER * body.length()), null);
+            try {
+                pattern.matcher(sequence).find();
+            } catch (RegexBudgetExceededException | StackOverflowError e) {
+                // a group repeated once per character, e.g. (\w|\d)*, recurses as deep as the body is long
+                return -1;
+            }
+            worst = Math.max(worst, sequence.used());
+        }
+        return worst;
+    }
+
+    private static String synthetic(String sentence) {
+        return sentence.repeat(SYNTHETIC_LENGTH / sentence.length() + 1).substring(0, SYNTHETIC_LENGTH);
+    }
+
+    private static int skipGroupModifiers(String regex, int i) {
+        if (i < regex.length() && regex.charAt(i) == '?') {
+            // (?:, (?=, (?!, (?>, (?<=, (?<!, (?<name>, (?i) and (?i:
+            int end = i + 1;
+            if (end < regex.length() && regex.charAt(end) == '<') {
+                int close = regex.indexOf('>', end);
+                if (end + 1 < regex.length() && regex.charAt(end + 1) != '=' && regex.charAt(end + 1) != '!'
+                        && close > 0) {
+                    return close + 1;
+                }
+                return end + 2;
+            }
+            while (end < regex.length() && "=!>:".indexOf(regex.charAt(end)) < 0 && regex.charAt(end) != ')') {
+                end++;
+            }
+            return end < regex.length() && regex.charAt(end) != ')' ? end + 1 : end;
+        }
+        return i;
+    }
+
+    private static int escapeEnd(String regex, int i) {
+        if (regex.startsWith("\\Q", i)) {
+            int end = regex.indexOf("\\E", i + 2);
+            return end < 0 ? regex.length() : end + 2;
+        }
+        return Math.min(i + 2, regex.length());
+    }
+
+    private static int classEnd(String regex, int i) {
+        int depth = 0;
+        for (int j = i; j < regex.length(); j++) {
+            char c = regex.charAt(j);
+            if (c == '\\') {
+                j++;
+            } else if (c == '[') {
+                depth++;
+            } else if (c == ']' && j > i + 1 && --depth == 0) {
+                return j + 1;
+            }
+        }
+        return regex.length();
+    }
+
+    private static int quantifierEnd(String regex, int i) {
+        if (i >= regex.length()) {
+            return i;
+        }
+        int end = i;
+        char c = regex.charAt(i);
+        if (c == '*' || c == '+' || c == '?') {
+            end = i + 1;
+        } else if (c == '{') {
+            int close = regex.indexOf('}', i);
+            if (close < 0) {
+                return i;
+            }
+            end = close + 1;
+        } else {
+            return i;
+        }
+        // lazy or possessive
+        if (end < regex.length() && (regex.charAt(end) == '?' || regex.charAt(end) == '+')) {
+            end++;
+        }
+        return end;
+    }
+
+    // possessive quantifiers never backtrack, thus are not considered unbounded
+    private static boolean isUnbounded(String regex, int start, int end) {
+        if (start == end || regex.charAt(end - 1) == '+' && end - start > 1) {
+            return false;
+        }
+        char c = regex.charAt(start);
+        if (c == '*' || c == '+') {
+            return true;
+        }
+        if (c == '{') {
+            String range = regex.substring(start + 1, regex.indexOf('}', start));
+            int comma = range.indexOf(',');
+            if (comma < 0) {
+                return false;
+            }
+            String max = range.substring(comma + 1).trim();
+            try {
+                return max.isEmpty() || Integer.parseInt(max) > 100;
+            } catch (NumberFormatException e) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class Group {
+
+        private final int start;
+        private final List<String> firstAtoms = new ArrayList<>();
+        private boolean alternativeStarted;
+        private boolean containsUnbounded;
+
+        private Group(int start) {
+            this.start = start;
+        }
+
+        // the first atom of every alternative, null if it is a group
+        private void addAtom(String atom) {
+            if (!alternativeStarted) {
+                firstAtoms.add(atom);
+                alternativeStarted = true;
+            }
+        }
+
+        private void newAlternative() {
+            if (!alternativeStarted) {
+                // an empty alternative
+                firstAtoms.add(null);
+            }
+            alternativeStarted = false;
+        }
+
+        private boolean hasOverlappingAlternatives(int flags) {
+            if (firstAtoms.size() < 2) {
+                return false;
+            }
+            List<Pattern> atoms = new ArrayList<>();
+            for (String atom : firstAtoms) {
+                if (atom == null) {
+                    continue;
+                }
+                try {
+                    atoms.add(Pattern.compile(atom, flags));
+                } catch (PatternSyntaxException e) {
+                    // e.g. a back reference, which can not be compiled on its own
+                }
+            }
+            for (int c = 0; c < ALPHABET.length(); c++) {
+                String character = String.valueOf(ALPHABET.charAt(c));
+                int matching = 0;
+                for (Pattern atom : atoms) {
+                    if (atom.matcher(character).matches() && ++matching > 1) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+
+    private PatternAnalyzer() {
+    }
+}
@@ -1,12 +1,24 @@
 package org.wildfly.bot.util;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Originally from https://github.com/quarkusio/quarkus-github-bot
+ * <p>
+ * The patterns come from the configuration file and may backtrack catastrophically, therefore matching is
+ * limited to {@value #MIN_STEPS} steps or {@value #STEPS_PER_CHARACTER} steps per character of the text,
+ * whichever is more, and aborted by {@link RegexBudgetExceededException} afterwards. The aborted matches are
+ * counted by the {@code wildfly.bot.regex.aborted} counter, see {@link #abortedCounter(MeterRegistry)}.
  */
 public class Patterns {
 
+    static final long MIN_STEPS = 1_000_000;
+    static final long STEPS_PER_CHARACTER = 1_000;
+
     public static boolean find(String pattern, String string) {
         if (Strings.isBlank(pattern)) {
             return false;
@@ -15,16 +27,38 @@ public class Patterns {
             return false;
         }
 
-        return Pattern.compile(pattern, Pattern.DOTALL | Pattern.CASE_INSENSITIVE).matcher(string)
+        return matcher(Pattern.compile(pattern, Pattern.DOTALL | Pattern.CASE_INSENSITIVE), string, null)
                 .find();
     }
 
-    public static boolean matches(Pattern pattern, String string) {
+    /**
+     * @param aborted counter incremented if the match is aborted, or null
+     */
+    public static boolean matches(Pattern pattern, String string, Counter aborted) {
         if (Strings.isBlank(string)) {
             return false;
         }
 
-        return pattern.matcher(string).find();
+        return matcher(pattern, string, aborted).find();
+    }
+
+    /**
+     * @param aborted counter incremented if the match is aborted, or null
+     * @return matcher of the pattern, which throws {@link RegexBudgetExceededException} if matching takes too
+     *         many steps
+     */
+    public static Matcher matcher(Pattern pattern, String string, Counter aborted) {
+        long steps = Math.max(MIN_STEPS, STEPS_PER_CHARACTER * string.length());
+        return pattern.matcher(new BudgetedCharSequence(string, steps, aborted));
+    }
+
+    /**
+     * @return counter of the aborted matches registered in the registry
+     */
+    public static Counter abortedCounter(MeterRegistry meterRegistry) {
+        return Counter.builder("wildfly.bot.regex.aborted")
+                .description("Number of matches of user supplied patterns aborted, as they took too many steps")
+                .register(meterRegistry);
     }
 
     private Patterns() {
@@ -40,14 +40,23 @@ public final class PullRequestDescriptionHandler {
     private final SequencedSet<String> missingIssueLinksWithinUserBody;
 
     public PullRequestDescriptionHandler(GHPullRequest pullRequest, Pattern issueKeyPattern, String githubAppName) {
+        this(pullRequest, issueKeyPattern, commitIssueKeys(pullRequest, issueKeyPattern), githubAppName);
+    }
+
+    /**
+     * @param commitIssueKeys issue keys found in the commit messages, see
+     *        {@link #commitIssueKeys(GHPullRequest, Pattern)}
+     */
+    public PullRequestDescriptionHandler(GHPullRequest pullRequest, Pattern issueKeyPattern,
+            List<String> commitIssueKeys, String githubAppName) {
         requireNonNull(pullRequest, "Pull request must not be null");
         requireNonNull(issueKeyPattern, "Issue link pattern must not be null");
 
         this.gitHubAppName = githubAppName;
 
         String body = pullRequest.getBody();
-        final String normalizedFullBody = (body != null) ? body.replaceAll("\\r", "") : "";
-        final int startOfBotBodyIndex = normalizedFullBody.lastIndexOf("\n" + BOT_MESSAGE_DELIMITER);
+        final String normalizedFullBody = normalize(body);
+        final int startOfBotBodyIndex = startOfBotBody(normalizedFullBody);
 
         if (startOfBotBodyIndex != -1) {
             this.userBody = normalizedFullBody.substring(0, startOfBotBodyIndex);
@@ -57,18 +66,61 @@ public final class PullRequestDescriptionHandler {
             this.botBody = ""; // Empty
         }
 
-        List<String> textSources = new ArrayList<>(); // title + commit messages
-        textSources.add(pullRequest.getTitle());
-        for (var commit : pullRequest.listCommits()) {
-            textSources.add(commit.getCommit().getMessage());
-        }
-        this.missingIssueLinksWithinUserBody = textSources.stream()
-                .flatMap(text -> issueKeyPattern.matcher(text).results().map(MatchResult::group))
+        List<String> issueKeys = new ArrayList<>(); // title + commit messages
+        issueKeyPattern.matcher(pullRequest.getTitle()).results().map(MatchResult::group).forEach(issueKeys::add);
+        issueKeys.addAll(commitIssueKeys);
+        this.missingIssueLinksWithinUserBody = issueKeys.stream()
                 .distinct()
                 .filter(issueKey -> !userBody.contains(BOT_JIRA_LINK_TEMPLATE.formatted(issueKey)))
                 .collect(Collectors.toCollection(LinkedHashSet::new));
     }
 
+    /**
+     * Lists the commits of the pull request.
+     *
+     * @return issue keys found in the commit messages, in the order of the commits, without duplicates
+     */
+    public static List<String> commitIssueKeys(GHPullRequest pullRequest, Pattern issueKeyPattern) {
+        requireNonNull(pullRequest, "Pull request must not be null");
+        requireNonNull(issueKeyPattern, "Issue link pattern must not be null");
+
+        SequencedSet<String> issueKeys = new LinkedHashSet<>();
+        for (var commit : pullRequest.listCommits()) {
+            issueKeyPattern.matcher(commit.getCommit().getMessage()).results().map(MatchResult::group)
+                    .forEach(issueKeys::add);
+        }
+        return List.copyOf(issueKeys);
+    }
+
+    /**
+     * Returns the user-provided section of the description body, i.e. the body without
+     * the bot-generated section.
+     *
+     * @param body the full description body, may be null
+     * @return the user-provided section of the body
+     */
+    public static String userBody(String body) {
+        String normalizedFullBody = normalize(body);
+        int startOfBotBodyIndex = startOfBotBody(normalizedFullBody);
+        return startOfBotBodyIndex != -1 ? normalizedFullBody.substring(0, startOfBotBodyIndex) : normalizedFullBody;
+    }
+
+    /**
+     * @param body the full description body, may be null
+     * @return true if the body contains the bot-generated section
+     */
+    public static boolean hasBotBody(String body) {
+        return startOfBotBody(normalize(body)) != -1;
+    }
+
+    private static String normalize(String body) {
+        return (body != null) ? body.replaceAll("\\r", "") : "";
+    }
+
+    private static int startOfBotBody(String normalizedFullBody) {
+        return normalizedFullBody.lastIndexOf("\n" + BOT_MESSAGE_DELIMITER);
+    }
+
     /**
      * Generates the full description body for the pull request.
      * <p>
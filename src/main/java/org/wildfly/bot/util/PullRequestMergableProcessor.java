@@ -1,7 +1,12 @@
 package org.wildfly.bot.util;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.smallrye.mutiny.Uni;
 import io.smallrye.mutiny.infrastructure.Infrastructure;
+import io.smallrye.mutiny.subscription.Cancellable;
+import jakarta.annotation.PostConstruct;
 import jakarta.inject.Inject;
 import jakarta.inject.Singleton;
 import org.jboss.logging.Logger;
@@ -10,15 +15,18 @@ import org.kohsuke.github.GHIssueState;
 import org.kohsuke.github.GHPullRequest;
 import org.kohsuke.github.GHRepository;
 import org.wildfly.bot.config.WildFlyBotConfig;
+import org.wildfly.bot.history.GitMirror;
 import org.wildfly.bot.model.RuntimeConstants;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Function;
 
 /**
@@ -32,6 +40,17 @@ import java.util.function.Function;
  * <p>
  * In case a re-queried pull request fails, it will be only logged.
  * <p>
+ * If {@link WildFlyBotConfig#mergableStatusUpdateLocal()} is set and the {@link GitMirror} is enabled, the
+ * mergeable status is computed by merging every pull request into the new head in the local mirror instead,
+ * in parallel on the worker pool, thus without waiting for GitHub.
+ * <p>
+ * At most one scan runs per repository. Pushes arriving while a scan is running are coalesced into a single scan
+ * of the latest head, and a push of a new head cancels the running scan, which then neither merges nor labels
+ * any further pull request, even those handed to the worker pool already. Whether a scan is running or pending is
+ * exposed by the {@code wildfly.bot.mergeable.scans.running} and {@code wildfly.bot.mergeable.scans.pending} gauges
+ * per repository, started, coalesced, cancelled and failed scans are counted by the
+ * {@code wildfly.bot.mergeable.scans} counter, tagged by {@code result}.
+ * <p>
  * Note: Do not call githubProcessor.LOG.setPullRequest inside parallel
  * Uni-s, i.e. inside the parameter `uniToExecute` in method
  * {@code combineUnis(Function<GHPullRequest, Uni<?>> uniToExecute)}
@@ -41,8 +60,13 @@ import java.util.function.Function;
 public class PullRequestMergableProcessor {
 
     private static final Logger LOGGER = Logger.getLogger(PullRequestMergableProcessor.class);
-    private static final Queue<Uni<List<GHPullRequest>>> pushPayloadsQueue = new LinkedList<>();
-    private boolean currentlyExecuting = false;
+
+    private final Map<String, RepositoryScans> repositories = new ConcurrentHashMap<>();
+
+    private Counter started;
+    private Counter coalesced;
+    private Counter cancelled;
+    private Counter failed;
 
     @Inject
     GithubProcessor githubProcessor;
@@ -50,57 +74,97 @@ public class PullRequestMergableProcessor {
     @Inject
     WildFlyBotConfig wildFlyBotConfig;
 
-    private final Function<GHPullRequest, Uni<GHPullRequest>> pollGitHub = pullRequest -> Uni.createFrom()
-            .item(pullRequest)
-            .invoke(pullRequest1 -> {
-                try {
-                    if (wildFlyBotConfig.isDryRun()) {
-                        LOGGER.info(
-                                RuntimeConstants.DRY_RUN_PREPEND.formatted("Sending a request to GitHub for mergeable status"));
-                    } else {
-                        pullRequest1.getMergeable();
+    @Inject
+    GitMirror gitMirror;
+
+    @Inject
+    MeterRegistry meterRegistry;
+
+    private Function<GHPullRequest, Uni<?>> pollGitHub(Scan scan) {
+        return pullRequest -> Uni.createFrom()
+                .item(pullRequest)
+                .invoke(pullRequest1 -> {
+                    if (scan.isCancelled()) {
+                        return;
                     }
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            })
-            .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
-
-    private final Function<GHPullRequest, Uni<Void>> applyLabels = pullRequest -> {
-        try {
-            List<String> labelsToAdd = new ArrayList<>();
-            List<String> labelsToRemove = new ArrayList<>();
-            if (wildFlyBotConfig.isDryRun()) {
-                LOGGER.info(RuntimeConstants.DRY_RUN_PREPEND
-                        .formatted("Retrieving mergeable status and then we would apply labels accordingly"));
-            } else {
-                Optional<Boolean> mergeable = Optional.ofNullable(pullRequest.getMergeable());
-                if (mergeable.isPresent()) {
-                    if (mergeable.get()) {
-                        labelsToRemove.add(RuntimeConstants.LABEL_NEEDS_REBASE);
-                    } else {
-                        labelsToAdd.add(RuntimeConstants.LABEL_NEEDS_REBASE);
+                    try {
+                        if (wildFlyBotConfig.isDryRun()) {
+                            LOGGER.info(RuntimeConstants.DRY_RUN_PREPEND
+                                    .formatted("Sending a request to GitHub for mergeable status"));
+                        } else {
+                            pullRequest1.getMergeable();
+                        }
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+    }
+
+    private Function<GHPullRequest, Uni<?>> applyLabels(Scan scan) {
+        return pullRequest -> {
+            if (scan.isCancelled()) {
+                return Uni.createFrom().voidItem();
+            }
+            try {
+                List<String> labelsToAdd = new ArrayList<>();
+                List<String> labelsToRemove = new ArrayList<>();
+                if (wildFlyBotConfig.isDryRun()) {
+                    LOGGER.info(RuntimeConstants.DRY_RUN_PREPEND
+                            .formatted("Retrieving mergeable status and then we would apply labels accordingly"));
+                } else {
+                    Optional<Boolean> mergeable = Optional.ofNullable(pullRequest.getMergeable());
+                    if (mergeable.isPresent()) {
+                        if (mergeable.get()) {
+                            labelsToRemove.add(RuntimeConstants.LABEL_NEEDS_REBASE);
+                        } else {
+                            labelsToAdd.add(RuntimeConstants.LABEL_NEEDS_REBASE);
+                        }
                     }
                 }
+
+                return Uni.createFrom().voidItem().invoke(() -> {
+                    if (scan.isCancelled()) {
+                        return;
+                    }
+                    try {
+                        githubProcessor.updateLabels(pullRequest, labelsToAdd, labelsToRemove);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+            } catch (IOException e) {
+                throw new RuntimeException(e);
             }
+        };
+    }
 
-            return Uni.createFrom().voidItem().invoke(() -> {
-                try {
-                    githubProcessor.updateLabels(pullRequest, labelsToAdd, labelsToRemove);
-                } catch (IOException e) {
-                    throw new RuntimeException(e);
-                }
-            });
-        } catch (IOException e) {
-            throw new RuntimeException(e);
+    /**
+     * Schedules a scan of the open pull requests for the new head of the main branch. At most one scan runs
+     * per repository, pushes arriving meanwhile are coalesced into a single scan of the latest head.
+     */
+    public void addPushPayload(GHEventPayload.Push pushPayload, String repositoryName) {
+        GHEventPayload.Push.PushCommit headCommit = pushPayload.getHeadCommit();
+        if (headCommit == null) {
+            return;
         }
-    };
+        boolean local = wildFlyBotConfig.mergableStatusUpdateLocal() && gitMirror.isEnabled();
+        repositories.computeIfAbsent(repositoryName, this::register)
+                .schedule(new Scan(pushPayload.getRepository(), repositoryName, headCommit, local));
+    }
 
-    public void addPushPayload(GHEventPayload.Push pushPayload) {
-        GHRepository repository = pushPayload.getRepository();
-        GHEventPayload.Push.PushCommit headCommit = pushPayload.getHeadCommit();
+    @PostConstruct
+    void init() {
+        started = counter("started");
+        coalesced = counter("coalesced");
+        cancelled = counter("cancelled");
+        failed = counter("failed");
+    }
 
-        Uni<List<GHPullRequest>> mergeableStatusUpdateUni = Uni.createFrom()
+    private Uni<List<GHPullRequest>> restMergeableStatusUpdate(Scan scan) {
+        GHRepository repository = scan.repository();
+        GHEventPayload.Push.PushCommit headCommit = scan.headCommit();
+        return Uni.createFrom()
                 // Collect all Pull Requests
                 .item(repository.queryPullRequests().state(GHIssueState.OPEN).base(RuntimeConstants.MAIN_BRANCH).list())
                 .invoke(() -> LOGGER.infof(
@@ -114,37 +178,80 @@ public class PullRequestMergableProcessor {
                     }
                 })
                 // Prompt GitHub to recalculate mergeable status
-                .call(combineUnis(pollGitHub::apply)::apply)
+                .call(combineUnis(pollGitHub(scan))::apply)
                 // Give GitHub some time
                 .onItem().delayIt().by(Duration.ofSeconds(wildFlyBotConfig.timeout()))
                 // Retrieve the results from GitHub and apply labels accordingly
-                .call(combineUnis(pollGitHub::apply)::apply)
+                .call(combineUnis(pollGitHub(scan))::apply)
                 // Filter failed Pull Requests
-                .call(combineUnis(applyLabels::apply)::apply);
-
-        pushPayloadsQueue.add(mergeableStatusUpdateUni);
-        subscription(null, headCommit);
+                .call(combineUnis(applyLabels(scan))::apply);
     }
 
     /**
-     * Subscribes to the Uni<List<GHPullRequest>> and after the execution it subscribes to the next
-     * such Uni, if available.
-     *
-     * @param ghPullRequests List<GHPullRequest> return from the Uni
-     * @param headCommit Commit from the pushPayload prompting this invocation
-     * @implNote We do not need any synchronization, as this bean is defined as {@code jakarta.inject.Singleton}
+     * Merges every open pull request into the new head in the local mirror and applies labels accordingly.
+     * Pull requests, which the mirror is unable to merge, e.g. as their commits could not be fetched, keep
+     * their labels.
      */
-    private void subscription(List<GHPullRequest> ghPullRequests, GHEventPayload.Push.PushCommit headCommit) {
-        if (ghPullRequests != null && headCommit != null) {
-            logResult(ghPullRequests, headCommit);
-        }
-        if (pushPayloadsQueue.peek() != null && !currentlyExecuting) {
-            currentlyExecuting = true;
-            pushPayloadsQueue.poll().subscribe().with(list -> {
-                currentlyExecuting = false;
-                this.subscription(list, headCommit);
-            });
-        }
+    private Uni<List<GHPullRequest>> localMergeableStatusUpdate(Scan scan) {
+        GHRepository repository = scan.repository();
+        String repositoryName = scan.repositoryName();
+        GHEventPayload.Push.PushCommit headCommit = scan.headCommit();
+        Set<String> unknownPullRequests = ConcurrentHashMap.newKeySet();
+        Function<GHPullRequest, Uni<?>> mergeLocally = pullRequest -> Uni.createFrom()
+                .item(pullRequest)
+                .invoke(pullRequest1 -> {
+                    if (scan.isCancelled()) {
+                        return;
+                    }
+                    Optional<Boolean> mergeable = gitMirror.isMergeable(repositoryName, headCommit.getSha(),
+                            pullRequest1.getHead().getSha());
+                    if (mergeable.isEmpty()) {
+                        unknownPullRequests.add("#%d".formatted(pullRequest1.getNumber()));
+                        return;
+                    }
+                    List<String> labelsToAdd = new ArrayList<>();
+                    List<String> labelsToRemove = new ArrayList<>();
+                    if (mergeable.get()) {
+                        labelsToRemove.add(RuntimeConstants.LABEL_NEEDS_REBASE);
+                    } else {
+                        labelsToAdd.add(RuntimeConstants.LABEL_NEEDS_REBASE);
+                    }
+                    // the merge may have taken long enough for a new head to arrive
+                    if (scan.isCancelled()) {
+                        return;
+                    }
+                    try {
+                        githubProcessor.updateLabels(pullRequest1, labelsToAdd, labelsToRemove);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .runSubscriptionOn(Infrastructure.getDefaultWorkerPool());
+
+        return Uni.createFrom()
+                .item(repository.queryPullRequests().state(GHIssueState.OPEN).base(RuntimeConstants.MAIN_BRANCH).list())
+                .invoke(() -> LOGGER.infof(
+                        "Computing the mergeable status of open pull requests locally for new head [%s - \"%s\"]",
+                        headCommit.getSha(), headCommit.getMessage()))
+                .map(ghPullRequests -> {
+                    try {
+                        return ghPullRequests.toList();
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                })
+                .call(combineUnis(mergeLocally)::apply)
+                .invoke(() -> {
+                    if (unknownPullRequests.isEmpty()) {
+                        LOGGER.infof("Successfully merged all pull requests locally into new %s branch head [%s - \"%s\"] "
+                                + "and updated '%s' label accordingly.", RuntimeConstants.MAIN_BRANCH_REF,
+                                headCommit.getSha(), headCommit.getMessage(), RuntimeConstants.LABEL_NEEDS_REBASE);
+                    } else {
+                        LOGGER.warnf("Unable to merge locally into new %s branch head [%s - \"%s\"] the following "
+                                + "pull requests: %s", RuntimeConstants.MAIN_BRANCH_REF, headCommit.getSha(),
+                                headCommit.getMessage(), String.join(", ", unknownPullRequests));
+                    }
+                });
     }
 
     private void logResult(List<GHPullRequest> ghPullRequests, GHEventPayload.Push.PushCommit headCommit) {
@@ -181,4 +288,125 @@ public class PullRequestMergableProcessor {
                     .discardItems();
         };
     }
+
+    private RepositoryScans register(String repositoryName) {
+        RepositoryScans scans = new RepositoryScans(repositoryName);
+        Gauge.builder("wildfly.bot.mergeable.scans.pending", scans, scans1 -> scans1.pending == null ? 0 : 1)
+                .description("Whether a mergeable status scan of the repository is waiting for the running one")
+                .tag("repository", repositoryName)
+                .register(meterRegistry);
+        Gauge.builder("wildfly.bot.mergeable.scans.running", scans, scans1 -> scans1.running == null ? 0 : 1)
+                .description("Whether a mergeable status scan of the repository is running")
+                .tag("repository", repositoryName)
+                .register(meterRegistry);
+        return scans;
+    }
+
+    private Counter counter(String result) {
+        return Counter.builder("wildfly.bot.mergeable.scans")
+                .description("Number of mergeable status scans")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scan of the open pull requests for a new head of the main branch. Cancelling the scan stops its pull
+     * requests, which have been handed to the worker pool already, before they merge or update labels.
+     */
+    private record Scan(GHRepository repository, String repositoryName, GHEventPayload.Push.PushCommit headCommit,
+            boolean local, AtomicBoolean cancelled) {
+
+        private Scan(GHRepository repository, String repositoryName, GHEventPayload.Push.PushCommit headCommit,
+                boolean local) {
+            this(repository, repositoryName, headCommit, local, new AtomicBoolean());
+        }
+
+        private boolean isCancelled() {
+            return cancelled.get();
+        }
+
+        private void cancel() {
+            cancelled.set(true);
+        }
+    }
+
+    /**
+     * Scans of a single repository. At most one scan is running and at most one is pending, a newer push replaces
+     * the pending scan. A push of a different head cancels the running scan, as its result would be outdated anyway,
+     * while a push of the same head, e.g. a redelivery, is scanned again after the running scan finishes.
+     */
+    private final class RepositoryScans {
+
+        private final String repositoryName;
+        private volatile Scan running;
+        private volatile Scan pending;
+        private Cancellable subscription;
+
+        private RepositoryScans(String repositoryName) {
+            this.repositoryName = repositoryName;
+        }
+
+        private synchronized void schedule(Scan scan) {
+            if (running == null) {
+                start(scan);
+                return;
+            }
+            if (pending != null) {
+                coalesced.increment();
+            }
+            pending = scan;
+            if (!running.headCommit().getSha().equals(scan.headCommit().getSha())) {
+                LOGGER.infof("Cancelling the mergeable status update of %s for head [%s], as the new head [%s] arrived",
+                        repositoryName, running.headCommit().getSha(), scan.headCommit().getSha());
+                cancelled.increment();
+                // the pull requests handed to the worker pool already are stopped by the flag
+                running.cancel();
+                subscription.cancel();
+                start(scan);
+            }
+        }
+
+        private synchronized void start(Scan scan) {
+            running = scan;
+            pending = null;
+            subscription = null;
+            started.increment();
+            Uni<List<GHPullRequest>> uni;
+            try {
+                uni = scan.local() ? localMergeableStatusUpdate(scan) : restMergeableStatusUpdate(scan);
+            } catch (RuntimeException e) {
+                uni = Uni.createFrom().failure(e);
+            }
+            Cancellable cancellable = uni.subscribe().with(
+                    pullRequests -> finished(scan, pullRequests, null),
+                    failure -> finished(scan, null, failure));
+            // the scan may have finished already, e.g. without any open pull requests
+            if (running == scan) {
+                subscription = cancellable;
+            }
+        }
+
+        private void finished(Scan scan, List<GHPullRequest> pullRequests, Throwable failure) {
+            if (running != scan) {
+                return;
+            }
+            if (failure != null) {
+                failed.increment();
+                LOGGER.errorf(failure, "Mergeable status update of %s for new head [%s - \"%s\"] failed",
+                        repositoryName, scan.headCommit().getSha(), scan.headCommit().getMessage());
+            } else if (!scan.local()) {
+                logResult(pullRequests, scan.headCommit());
+            }
+            synchronized (this) {
+                if (running != scan) {
+                    return;
+                }
+                running = null;
+                subscription = null;
+                if (pending != null) {
+                    start(pending);
+                }
+            }
+        }
+    }
 }
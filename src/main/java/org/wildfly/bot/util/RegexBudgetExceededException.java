@@ -0,0 +1,11 @@
+package org.wildfly.bot.util;
+
+/**
+ * Thrown when matching a pattern takes more steps than allowed, see {@link Patterns#matcher}.
+ */
+public class RegexBudgetExceededException extends RuntimeException {
+
+    public RegexBudgetExceededException(long budget) {
+        super("Matching has been aborted after " + budget + " steps");
+    }
+}
@@ -0,0 +1,81 @@
+package org.wildfly.bot;
+
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkiverse.githubapp.testing.GitHubAppTest;
+import io.quarkus.test.junit.QuarkusTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHRepository;
+import org.wildfly.bot.utils.TestConstants;
+import org.wildfly.bot.utils.WildflyGitHubBotTesting;
+import org.wildfly.bot.utils.mocking.MockedGHPullRequest;
+import org.wildfly.bot.utils.model.Action;
+import org.wildfly.bot.utils.testing.PullRequestJson;
+import org.wildfly.bot.utils.testing.internal.TestModel;
+
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Tests that an edit of the description only reuses the results computed from the commits and files of the
+ * same head commit, instead of listing them again.
+ */
+@QuarkusTest
+@GitHubAppTest
+public class PRBodyEditTest {
+
+    private static final String WILDFLY_CONFIG_FILE = """
+            wildfly:
+              rules:
+                - id: "Title"
+                  title: "Title"
+                  notify: [Tadpole,Duke]
+                - id: "Directory"
+                  directories: [src]
+                  notify: [Butterfly]
+            """;
+
+    private PullRequestJson pullRequestJson;
+
+    @BeforeEach
+    void setPullRequestJson() throws Exception {
+        pullRequestJson = TestModel.defaultBeforeEachJsons();
+    }
+
+    @Test
+    void testBodyEditDoesNotListCommitsAndFiles() throws Throwable {
+        TestModel.given(mocks -> WildflyGitHubBotTesting.mockRepo(mocks, WILDFLY_CONFIG_FILE, pullRequestJson,
+                mockedPullRequest()))
+                .pullRequestEvent(pullRequestJson)
+                .then(mocks -> {
+                    GHPullRequest mockedPR = mocks.pullRequest(pullRequestJson.id());
+                    verify(mockedPR, atLeastOnce()).listCommits();
+                    verify(mockedPR, atLeastOnce()).listFiles();
+                });
+
+        ObjectNode payload = (ObjectNode) pullRequestJson.payload();
+        payload.put(PullRequestJson.ACTION, Action.EDITED.getValue());
+        payload.putObject("changes").putObject(PullRequestJson.BODY).put("from", "Previous description");
+        ((ObjectNode) payload.get(PullRequestJson.PULL_REQUEST)).put(PullRequestJson.BODY,
+                "Updated description, JIRA: https://redhat.atlassian.net/browse/WFLY-123");
+
+        TestModel.given(mocks -> WildflyGitHubBotTesting.mockRepo(mocks, WILDFLY_CONFIG_FILE, pullRequestJson,
+                mockedPullRequest()))
+                .pullRequestEvent(pullRequestJson)
+                .then(mocks -> {
+                    GHPullRequest mockedPR = mocks.pullRequest(pullRequestJson.id());
+                    verify(mockedPR, never()).listCommits();
+                    verify(mockedPR, never()).listFiles();
+                    GHRepository repo = mocks.repository(TestConstants.TEST_REPO);
+                    WildflyGitHubBotTesting.verifyFormatSuccess(repo, pullRequestJson);
+                });
+    }
+
+    private MockedGHPullRequest mockedPullRequest() {
+        return MockedGHPullRequest.builder(pullRequestJson.id())
+                .commit("[WFLY-123] Valid commit message")
+                .files("src/main/java/Changed.java");
+    }
+}
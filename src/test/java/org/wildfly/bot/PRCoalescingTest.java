@@ -0,0 +1,87 @@
+package org.wildfly.bot;
+
+import io.quarkiverse.githubapp.testing.GitHubAppTest;
+import io.quarkus.test.junit.QuarkusTest;
+import io.quarkus.test.junit.QuarkusTestProfile;
+import io.quarkus.test.junit.TestProfile;
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHCommitState;
+import org.kohsuke.github.GHContent;
+import org.kohsuke.github.GHRepository;
+import org.wildfly.bot.model.RuntimeConstants;
+import org.wildfly.bot.utils.TestConstants;
+import org.wildfly.bot.utils.WildflyGitHubBotTesting;
+import org.wildfly.bot.utils.mocking.MockedGHPullRequest;
+import org.wildfly.bot.utils.testing.PullRequestJson;
+import org.wildfly.bot.utils.testing.internal.TestModel;
+
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the processors coalescing pull request events with a non-zero quiet window, i.e. their checks run
+ * after the webhook request has ended.
+ */
+@QuarkusTest
+@GitHubAppTest
+@TestProfile(PRCoalescingTest.QuietWindowProfile.class)
+public class PRCoalescingTest {
+
+    private static final String WILDFLY_CONFIG_FILE = """
+            wildfly:
+              rules:
+                - id: "Title"
+                  title: "Title"
+                  notify: [Tadpole,Duke]
+            """;
+
+    private static PullRequestJson pullRequestJson;
+
+    @BeforeAll
+    static void setPullRequestJson() throws Exception {
+        pullRequestJson = TestModel.defaultBeforeEachJsons();
+    }
+
+    @Test
+    void testDeferredChecks() throws Throwable {
+        TestModel.given(mocks -> {
+            GHRepository repo = mocks.repository(TestConstants.TEST_REPO);
+            GHContent content = mock(GHContent.class);
+            when(repo.getFileContent(".github/" + RuntimeConstants.CONFIG_FILE_NAME, pullRequestJson.commitSHA()))
+                    .thenReturn(content);
+            when(content.read()).thenReturn(IOUtils.toInputStream(WILDFLY_CONFIG_FILE, "UTF-8"));
+
+            WildflyGitHubBotTesting.mockRepo(mocks, WILDFLY_CONFIG_FILE, pullRequestJson,
+                    MockedGHPullRequest.builder(pullRequestJson.id())
+                            .commit("[WFLY-123] Valid commit message")
+                            .files(".github/" + RuntimeConstants.CONFIG_FILE_NAME));
+        })
+                .pullRequestEvent(pullRequestJson)
+                .then(mocks -> {
+                    GHRepository repo = mocks.repository(TestConstants.TEST_REPO);
+                    // PullRequestRuleProcessor
+                    verify(mocks.pullRequest(pullRequestJson.id()), timeout(10_000))
+                            .comment("/cc @Tadpole [Title], @Duke [Title]");
+                    // PullRequestFormatProcessor
+                    verify(repo, timeout(10_000)).createCommitStatus(pullRequestJson.commitSHA(),
+                            GHCommitState.SUCCESS, "", "Valid", "Format");
+                    // ConfigFileChangeProcessor
+                    verify(repo, timeout(10_000)).createCommitStatus(pullRequestJson.commitSHA(),
+                            GHCommitState.SUCCESS, "", "Valid", "Configuration File");
+                });
+    }
+
+    public static class QuietWindowProfile implements QuarkusTestProfile {
+
+        @Override
+        public Map<String, String> getConfigOverrides() {
+            return Map.of("wildfly-bot.coalescing.quiet-window", "1");
+        }
+    }
+}
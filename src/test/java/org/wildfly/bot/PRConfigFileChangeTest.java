@@ -3,13 +3,17 @@ package org.wildfly.bot;
 import io.quarkiverse.githubapp.testing.GitHubAppTest;
 import io.quarkus.test.junit.QuarkusTest;
 import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.kohsuke.github.GHCommitState;
 import org.kohsuke.github.GHContent;
 import org.kohsuke.github.GHRepository;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.wildfly.bot.model.RuntimeConstants;
+import org.wildfly.bot.rules.CompiledRule;
+import org.wildfly.bot.util.PatternAnalyzer;
 import org.wildfly.bot.utils.TestConstants;
 import org.wildfly.bot.utils.mocking.MockedGHPullRequest;
 import org.wildfly.bot.utils.testing.PullRequestJson;
@@ -157,4 +161,84 @@ public class PRConfigFileChangeTest {
                             "Configuration File");
                 });
     }
+
+    @Test
+    void testUpdateWithBacktrackingPatterns() throws Throwable {
+        TestModel.given(mocks -> {
+            GHRepository repo = mocks.repository(TestConstants.TEST_REPO);
+            GHContent mockGHContent = mock(GHContent.class);
+            when(repo.getFileContent(".github/" + RuntimeConstants.CONFIG_FILE_NAME, pullRequestJson.commitSHA()))
+                    .thenReturn(mockGHContent);
+            when(mockGHContent.read()).thenReturn(IOUtils.toInputStream("""
+                    wildfly:
+                      rules:
+                        - id: "nested"
+                          title: '(a+)+'
+                        - id: "overlapping"
+                          body: 'WFLY-(\\w|\\d)*'
+                        - id: "aborted"
+                          titleBody: '(a+)+$'
+                      emails:
+                        - foo@bar.baz""",
+                    "UTF-8"));
+
+            MockedGHPullRequest.builder(pullRequestJson.id())
+                    .files(".github/wildfly-bot.yml")
+                    .mock(mocks);
+        })
+                .pullRequestEvent(pullRequestJson)
+                .then(mocks -> {
+                    long nestedSteps = PatternAnalyzer.worstCaseSteps(CompiledRule.compileKeyword("(a+)+"));
+                    long overlappingSteps = PatternAnalyzer.worstCaseSteps(CompiledRule.compileKeyword("WFLY-(\\w|\\d)*"));
+                    ArgumentCaptor<String> comment = ArgumentCaptor.forClass(String.class);
+                    verify(mocks.pullRequest(pullRequestJson.id())).comment(comment.capture());
+                    Assertions.assertTrue(comment.getValue().contains("- [WARN] - Rule [id=nested, title=(a+)+] has a "
+                            + "regex pattern prone to catastrophic backtracking, nested quantifier in (a+)+, its worst-case "
+                            + "cost on a body of 10000 characters is %d steps".formatted(nestedSteps)));
+                    Assertions.assertTrue(comment.getValue().contains("- [WARN] - Rule [id=overlapping, body=WFLY-(\\w|\\d)*] "
+                            + "has a regex pattern prone to catastrophic backtracking, overlapping alternatives under a "
+                            + "quantifier in (\\w|\\d)*, its worst-case cost on a body of 10000 characters is %d steps"
+                                    .formatted(overlappingSteps)));
+                    Assertions.assertTrue(comment.getValue().contains("- [ERROR] - Rule [id=aborted, titleBody=(a+)+$] has "
+                            + "a regex pattern [\\b((a+)+$)\\b], which would be aborted on a body of 10000 characters"));
+                    Assertions.assertFalse(comment.getValue().contains("Title and commit message regex"));
+                    GHRepository repo = mocks.repository(TestConstants.TEST_REPO);
+                    Mockito.verify(repo).createCommitStatus(pullRequestJson.commitSHA(),
+                            GHCommitState.ERROR, "",
+                            "One or multiple rules are invalid, please see the comment stating the problems",
+                            "Configuration File");
+                });
+    }
+
+    @Test
+    void testUpdateWithAbortedProjectKeyPattern() throws Throwable {
+        TestModel.given(mocks -> {
+            GHRepository repo = mocks.repository(TestConstants.TEST_REPO);
+            GHContent mockGHContent = mock(GHContent.class);
+            when(repo.getFileContent(".github/" + RuntimeConstants.CONFIG_FILE_NAME, pullRequestJson.commitSHA()))
+                    .thenReturn(mockGHContent);
+            when(mockGHContent.read()).thenReturn(IOUtils.toInputStream("""
+                    wildfly:
+                      projectKey: '(a+)+'
+                      format:
+                        commit:
+                          enabled: false""",
+                    "UTF-8"));
+
+            MockedGHPullRequest.builder(pullRequestJson.id())
+                    .files(".github/wildfly-bot.yml")
+                    .mock(mocks);
+        })
+                .pullRequestEvent(pullRequestJson)
+                .then(mocks -> {
+                    verify(mocks.pullRequest(pullRequestJson.id())).comment(FAILED_CONFIGFILE_COMMENT.formatted(
+                            "- [ERROR] - Title and commit message regex has a regex pattern [(a+)+-\\d+], which would be "
+                                    + "aborted on a body of 10000 characters"));
+                    GHRepository repo = mocks.repository(TestConstants.TEST_REPO);
+                    Mockito.verify(repo).createCommitStatus(pullRequestJson.commitSHA(),
+                            GHCommitState.ERROR, "",
+                            "One or multiple rules are invalid, please see the comment stating the problems",
+                            "Configuration File");
+                });
+    }
 }
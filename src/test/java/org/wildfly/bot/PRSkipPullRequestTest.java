@@ -110,7 +110,7 @@ public class PRSkipPullRequestTest {
 
     @Test
     void testSkippingRulesOnIncorrectRebase() throws Throwable {
-        final String duplicateSHA = "sha1";
+        final String duplicateSHA = "1f2e3d4c5b6a79880716253443526170a9b8c7d6";
         final String baseBranch = "main";
         pullRequestJson = TestModel.setPullRequestJsonBuilder(pullRequestJsonBuilder -> pullRequestJsonBuilder);
         mockedContext = MockedGHPullRequest.builder(pullRequestJson.id());
@@ -121,7 +121,7 @@ public class PRSkipPullRequestTest {
                     GHCommit commit2 = mock(GHCommit.class);
 
                     when(commit1.getSHA1()).thenReturn(duplicateSHA);
-                    when(commit2.getSHA1()).thenReturn("sha2");
+                    when(commit2.getSHA1()).thenReturn("0a1b2c3d4e5f60718293a4b5c6d7e8f901234567");
 
                     // Create a fake PagedIterable for repository commits.
                     PagedIterable<GHCommit> fakeRepoCommits = mock(PagedIterable.class);
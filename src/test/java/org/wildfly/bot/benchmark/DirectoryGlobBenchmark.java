@@ -0,0 +1,140 @@
+package org.wildfly.bot.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.bot.model.WildFlyConfigFile;
+import org.wildfly.bot.rules.CompiledRuleSet;
+import org.wildfly.bot.rules.CompiledRuleSetCache;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Compares matching the changed files of a pull request against the globs in the directories of rules.
+ * The {@code regex} benchmark matches every file against one pattern per glob, while the {@code automaton}
+ * benchmark uses the combined automaton of the compiled rule set. Run with
+ * {@code mvn test -Pbenchmark -Dbenchmark=DirectoryGlobBenchmark}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DirectoryGlobBenchmark {
+
+    private static final String[] MODULES = { "ee", "ejb3", "jpa", "messaging", "microprofile", "undertow", "weld",
+            "clustering", "security", "transactions" };
+
+    private static final String[] GLOB_TEMPLATES = { "%s/src/main/java/**/%s*.java", "%s/*/src/test/**",
+            "%s/src/main/resources/%s?.xml", "**/%s/[a-m]*/%s/*", "testsuite/integration/%s/**/%s*" };
+
+    @Param({ "10000" })
+    public int files;
+
+    @Param({ "500" })
+    public int globs;
+
+    private List<String> changedFiles;
+    private List<Pattern> patterns;
+    private CompiledRuleSet ruleSet;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        changedFiles = new ArrayList<>(files);
+        for (int i = 0; i < files; i++) {
+            StringBuilder path = new StringBuilder(MODULES[random.nextInt(MODULES.length)]);
+            int depth = 2 + random.nextInt(6);
+            for (int segment = 0; segment < depth; segment++) {
+                path.append('/').append(word(random));
+            }
+            changedFiles.add(path.append('/').append(word(random)).append(".java").toString());
+        }
+
+        WildFlyConfigFile configFile = new WildFlyConfigFile();
+        patterns = new ArrayList<>(globs);
+        for (int i = 0; i < globs; i++) {
+            String glob = GLOB_TEMPLATES[i % GLOB_TEMPLATES.length].formatted(MODULES[random.nextInt(MODULES.length)],
+                    word(random));
+            WildFlyConfigFile.WildFlyRule rule = new WildFlyConfigFile.WildFlyRule();
+            rule.id = "rule-" + i;
+            rule.directories.add(glob);
+            configFile.wildfly.rules.add(rule);
+            patterns.add(Pattern.compile(regex(glob)));
+        }
+        ruleSet = new CompiledRuleSetCache().get(configFile);
+    }
+
+    @Benchmark
+    public BitSet regex() {
+        BitSet matched = new BitSet(globs);
+        for (String changedFile : changedFiles) {
+            for (int i = 0; i < patterns.size(); i++) {
+                if (patterns.get(i).matcher(changedFile).matches()) {
+                    matched.set(i);
+                }
+            }
+        }
+        return matched;
+    }
+
+    @Benchmark
+    public BitSet automaton() {
+        BitSet matched = new BitSet(globs);
+        BitSet fileMatches = new BitSet(globs);
+        for (String changedFile : changedFiles) {
+            fileMatches.clear();
+            ruleSet.matchFile(changedFile, fileMatches);
+            matched.or(fileMatches);
+        }
+        return matched;
+    }
+
+    private static String word(Random random) {
+        char[] word = new char[3 + random.nextInt(8)];
+        for (int i = 0; i < word.length; i++) {
+            word[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(word);
+    }
+
+    // the glob matches the file or any of its parent directories
+    private static String regex(String glob) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < glob.length(); i++) {
+            char c = glob.charAt(i);
+            if (glob.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 2;
+            } else if (glob.startsWith("**", i)) {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '[') {
+                int end = glob.indexOf(']', i);
+                regex.append(glob, i, end + 1);
+                i = end;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return regex.append("(?:/.*)?").toString();
+    }
+}
@@ -0,0 +1,118 @@
+package org.wildfly.bot.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
+import io.vertx.core.json.Json;
+import io.vertx.core.json.JsonObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.wildfly.bot.polling.GitHubEventEnvelope;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the cost of turning a polled event into a {@link GitHubEvent}. The {@code legacy} benchmarks
+ * replicate the pipeline before the introduction of {@link GitHubEventEnvelope}, where the payload was
+ * parsed and serialized again by every step. Both variants start from the raw event as returned by
+ * GitHub's events API. Run with {@code mvn test -Pbenchmark -Dbenchmark=EventEnvelopeBenchmark},
+ * the gc profiler reports the allocation rate per event.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EventEnvelopeBenchmark {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String ACTION = "action";
+    private static final String HEAD_COMMIT = "head_commit";
+    private static final String COMMITS = "commits";
+    private static final String HEAD = "head";
+    private static final String SHA = "sha";
+
+    @Param({ "events/raw_pr_template.json", "events/raw_push.json" })
+    public String event;
+
+    private String rawEvent;
+    private boolean push;
+
+    @Setup
+    public void setup() throws IOException {
+        try (InputStream inputStream = EventEnvelopeBenchmark.class.getClassLoader().getResourceAsStream(event)) {
+            rawEvent = new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+        }
+        push = "PushEvent".equals(objectMapper.readTree(rawEvent).path("type").asText());
+    }
+
+    @Benchmark
+    public GitHubEvent legacy() throws IOException {
+        String payload = objectMapper.readTree(rawEvent).path("payload").toString();
+
+        // EventPollingProcessor#getEventTuple
+        JsonNode actionNode = objectMapper.readTree(payload);
+        String action = actionNode.has(ACTION) ? actionNode.get(ACTION).asText() : null;
+
+        GitHubEvent gitHubEvent = new SimpleGitHubEvent(1L, null, null, "repository", "event", action, payload,
+                (JsonObject) Json.decodeValue(payload), true);
+
+        // DefaultGitHubEventPreprocessor#process
+        JsonNode defaultPayload = objectMapper.readTree(gitHubEvent.getPayload());
+        gitHubEvent = updatePayload(gitHubEvent, defaultPayload);
+
+        if (push) {
+            // PushEventPreprocessor#process
+            JsonNode pushPayload = objectMapper.readTree(gitHubEvent.getPayload());
+            ((ObjectNode) pushPayload).set(HEAD_COMMIT, headCommit(pushPayload));
+            gitHubEvent = updatePayload(gitHubEvent, pushPayload);
+        }
+        return gitHubEvent;
+    }
+
+    @Benchmark
+    public GitHubEvent envelope() throws IOException {
+        ObjectNode payload = (ObjectNode) objectMapper.readTree(rawEvent).path("payload");
+        String action = payload.has(ACTION) ? payload.get(ACTION).asText() : null;
+
+        GitHubEventEnvelope envelope = new GitHubEventEnvelope(1L, "repository", "event", action, payload,
+                () -> null);
+        if (push) {
+            envelope.payload().set(HEAD_COMMIT, headCommit(envelope.payload()));
+        }
+        return envelope.toGitHubEvent();
+    }
+
+    private static JsonNode headCommit(JsonNode payload) {
+        for (JsonNode commit : payload.get(COMMITS)) {
+            if (commit.has(SHA) && commit.get(SHA).asText().equals(payload.get(HEAD).asText())) {
+                return commit;
+            }
+        }
+        return null;
+    }
+
+    private static GitHubEvent updatePayload(GitHubEvent gitHubEvent, JsonNode payload) {
+        String prettyPayload = payload.toPrettyString();
+        return new SimpleGitHubEvent(gitHubEvent.getInstallationId(), gitHubEvent.getAppName().orElse(null),
+                gitHubEvent.getDeliveryId(), gitHubEvent.getRepository().orElse(null), gitHubEvent.getEvent(),
+                gitHubEvent.getAction(), prettyPayload, (JsonObject) Json.decodeValue(prettyPayload),
+                gitHubEvent.isReplayed());
+    }
+}
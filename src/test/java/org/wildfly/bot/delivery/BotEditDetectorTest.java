@@ -0,0 +1,100 @@
+package org.wildfly.bot.delivery;
+
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.wildfly.bot.util.GitHubBotContextProvider;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.wildfly.bot.model.RuntimeConstants.BOT_JIRA_LINKS_HEADER;
+import static org.wildfly.bot.model.RuntimeConstants.BOT_JIRA_LINK_COMMENT_TEMPLATE;
+import static org.wildfly.bot.model.RuntimeConstants.BOT_MESSAGE_DELIMITER;
+
+/**
+ * Tests the recognition of the edits of a pull request, which the processors skip.
+ */
+public class BotEditDetectorTest {
+
+    private static final String BOT_NAME = "wildfly-bot[bot]";
+
+    private static final String USER_BODY = "Fixes the timer service of EJBs";
+
+    private BotEditDetector botEditDetector;
+
+    @BeforeEach
+    void setup() {
+        botEditDetector = new BotEditDetector();
+        botEditDetector.botContextProvider = mock(GitHubBotContextProvider.class);
+        when(botEditDetector.botContextProvider.getBotName()).thenReturn(BOT_NAME);
+    }
+
+    @Test
+    void testEditBySender() {
+        Assertions.assertTrue(botEditDetector.isBotEdit(edit(BOT_NAME, USER_BODY, withLinks(USER_BODY, "WFLY-123"))));
+        // whatever the bot changes
+        Assertions.assertTrue(botEditDetector.isBotEdit(edit(BOT_NAME, withLinks(USER_BODY, "WFLY-123"), USER_BODY)));
+    }
+
+    @Test
+    void testEditOfBotSectionOnly() {
+        Assertions.assertTrue(botEditDetector.isBotEdit(edit("Tadpole", withLinks(USER_BODY, "WFLY-123"),
+                withLinks(USER_BODY, "WFLY-123", "WFLY-456"))));
+    }
+
+    @Test
+    void testEditOfUserSection() {
+        Assertions.assertFalse(botEditDetector.isBotEdit(edit("Tadpole", withLinks(USER_BODY, "WFLY-123"),
+                withLinks(USER_BODY + ", see WFLY-456", "WFLY-123"))));
+    }
+
+    @Test
+    void testDeletionOfBotSection() {
+        // the links are restored by evaluating the event again
+        Assertions.assertFalse(botEditDetector.isBotEdit(edit("Tadpole", withLinks(USER_BODY, "WFLY-123"), USER_BODY)));
+    }
+
+    @Test
+    void testEditOfTitle() {
+        GitHubEvent gitHubEvent = edit("Tadpole", withLinks(USER_BODY, "WFLY-123"),
+                withLinks(USER_BODY, "WFLY-123", "WFLY-456"));
+        gitHubEvent.getParsedPayload().getJsonObject("changes")
+                .put("title", new JsonObject().put("from", "WFLY-123 Fix timers"));
+        Assertions.assertFalse(botEditDetector.isBotEdit(gitHubEvent));
+    }
+
+    @Test
+    void testOtherAction() {
+        JsonObject payload = new JsonObject()
+                .put("action", "synchronize")
+                .put("sender", new JsonObject().put("login", BOT_NAME))
+                .put("pull_request", new JsonObject().put("number", 1).put("body", USER_BODY));
+        Assertions.assertFalse(botEditDetector.isBotEdit(event("synchronize", payload)));
+    }
+
+    private static String withLinks(String userBody, String... issueKeys) {
+        StringBuilder body = new StringBuilder(userBody).append("\n").append(BOT_MESSAGE_DELIMITER).append("\n\n")
+                .append(BOT_JIRA_LINKS_HEADER);
+        for (String issueKey : issueKeys) {
+            body.append(BOT_JIRA_LINK_COMMENT_TEMPLATE.formatted(issueKey));
+        }
+        return body.toString();
+    }
+
+    private static GitHubEvent edit(String sender, String previousBody, String body) {
+        JsonObject payload = new JsonObject()
+                .put("action", "edited")
+                .put("sender", new JsonObject().put("login", sender))
+                .put("changes", new JsonObject().put("body", new JsonObject().put("from", previousBody)))
+                .put("pull_request", new JsonObject().put("number", 1).put("body", body));
+        return event("edited", payload);
+    }
+
+    private static GitHubEvent event(String action, JsonObject payload) {
+        return new SimpleGitHubEvent(1L, null, "72d3162e-cc78-11e3-81ab-4c9367dc0958", "wildfly/wildfly",
+                "pull_request", action, payload.encode(), payload, false);
+    }
+}
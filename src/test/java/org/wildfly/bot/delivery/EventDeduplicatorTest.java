@@ -0,0 +1,146 @@
+package org.wildfly.bot.delivery;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the logical keys of events, which must tell apart distinct events of the same second, and the
+ * webhook deliveries, whose handling is deferred beyond the response.
+ */
+public class EventDeduplicatorTest {
+
+    private static final String UPDATED_AT = "2024-05-02T10:00:00Z";
+
+    @Test
+    void testLabelsOfTheSameSecond() {
+        String first = EventDeduplicator.logicalKey(pullRequestEvent("labeled",
+                new JsonObject().put("label", new JsonObject().put("name", "bug"))));
+        String second = EventDeduplicator.logicalKey(pullRequestEvent("labeled",
+                new JsonObject().put("label", new JsonObject().put("name", "rebase-this"))));
+
+        Assertions.assertNotNull(first);
+        Assertions.assertNotEquals(first, second);
+    }
+
+    @Test
+    void testReviewersOfTheSameSecond() {
+        String user = EventDeduplicator.logicalKey(pullRequestEvent("review_requested",
+                new JsonObject().put("requested_reviewer", new JsonObject().put("login", "user1"))));
+        String otherUser = EventDeduplicator.logicalKey(pullRequestEvent("review_requested",
+                new JsonObject().put("requested_reviewer", new JsonObject().put("login", "user2"))));
+        String team = EventDeduplicator.logicalKey(pullRequestEvent("review_requested",
+                new JsonObject().put("requested_team", new JsonObject().put("slug", "user1"))));
+
+        Assertions.assertNotEquals(user, otherUser);
+        Assertions.assertNotEquals(user, team);
+    }
+
+    @Test
+    void testHeadsOfTheSameSecond() {
+        JsonObject firstHead = pullRequest();
+        firstHead.getJsonObject("head").put("sha", "8c3a7e5b1d2f");
+        JsonObject secondHead = pullRequest();
+        secondHead.getJsonObject("head").put("sha", "f2d1b5e7a3c8");
+
+        Assertions.assertNotEquals(
+                EventDeduplicator.logicalKey(event("synchronize", new JsonObject().put("pull_request", firstHead))),
+                EventDeduplicator.logicalKey(event("synchronize", new JsonObject().put("pull_request", secondHead))));
+    }
+
+    @Test
+    void testEditsOfTheSameSecond() {
+        JsonObject title = pullRequest().put("title", "[WFLY-1] First");
+        JsonObject otherTitle = pullRequest().put("title", "[WFLY-1] Second");
+
+        Assertions.assertNotEquals(
+                EventDeduplicator.logicalKey(event("edited", new JsonObject().put("pull_request", title))),
+                EventDeduplicator.logicalKey(event("edited", new JsonObject().put("pull_request", otherTitle))));
+    }
+
+    @Test
+    void testRedeliveryHasTheSameKey() {
+        JsonObject label = new JsonObject().put("label", new JsonObject().put("name", "bug"));
+
+        Assertions.assertEquals(EventDeduplicator.logicalKey(pullRequestEvent("labeled", label)),
+                EventDeduplicator.logicalKey(pullRequestEvent("labeled", label.copy())));
+    }
+
+    @Test
+    void testPolledAndWebhookPush() {
+        GitHubEvent webhook = new SimpleGitHubEvent(1L, null, null, "wildfly/wildfly", "push", null, "{}",
+                new JsonObject().put("ref", "refs/heads/main").put("after", "8c3a7e5b1d2f"), false);
+        GitHubEvent polled = new SimpleGitHubEvent(1L, null, null, "wildfly/wildfly", "push", null, "{}",
+                new JsonObject().put("ref", "refs/heads/main").put("head", "8c3a7e5b1d2f"), true);
+
+        Assertions.assertEquals(EventDeduplicator.logicalKey(webhook), EventDeduplicator.logicalKey(polled));
+    }
+
+    @Test
+    void testDeferredDeliveryIsRememberedAfterItsTasks() {
+        EventDeduplicator eventDeduplicator = eventDeduplicator();
+        Assertions.assertTrue(eventDeduplicator.beginDelivery("delivery"));
+        eventDeduplicator.deferDelivery("delivery");
+        eventDeduplicator.deferDelivery("delivery");
+        eventDeduplicator.completeDelivery("delivery", true);
+
+        // redeliveries are skipped while the tasks are running
+        Assertions.assertFalse(eventDeduplicator.beginDelivery("delivery"));
+        eventDeduplicator.finishDeferredDelivery("delivery", true);
+        Assertions.assertFalse(eventDeduplicator.beginDelivery("delivery"));
+        eventDeduplicator.finishDeferredDelivery("delivery", true);
+
+        Assertions.assertFalse(eventDeduplicator.beginDelivery("delivery"));
+    }
+
+    @Test
+    void testFailedDeferredDeliveryIsForgotten() {
+        EventDeduplicator eventDeduplicator = eventDeduplicator();
+        Assertions.assertTrue(eventDeduplicator.beginDelivery("delivery"));
+        eventDeduplicator.completeDelivery("delivery", true);
+        // the response has been sent before the task was deferred
+        eventDeduplicator.deferDelivery("delivery");
+        eventDeduplicator.deferDelivery("delivery");
+
+        eventDeduplicator.finishDeferredDelivery("delivery", false);
+        eventDeduplicator.finishDeferredDelivery("delivery", true);
+
+        Assertions.assertTrue(eventDeduplicator.beginDelivery("delivery"));
+    }
+
+    private static EventDeduplicator eventDeduplicator() {
+        EventDeduplicator eventDeduplicator = new EventDeduplicator();
+        eventDeduplicator.wildFlyBotConfig = mock(WildFlyBotConfig.class);
+        when(eventDeduplicator.wildFlyBotConfig.deduplicationEnabled()).thenReturn(true);
+        when(eventDeduplicator.wildFlyBotConfig.deduplicationWindow()).thenReturn(3600L);
+        when(eventDeduplicator.wildFlyBotConfig.deduplicationMaxEntries()).thenReturn(100);
+        eventDeduplicator.meterRegistry = new SimpleMeterRegistry();
+        return eventDeduplicator;
+    }
+
+    private static GitHubEvent pullRequestEvent(String action, JsonObject payload) {
+        return event(action, payload.put("pull_request", pullRequest()));
+    }
+
+    private static GitHubEvent event(String action, JsonObject payload) {
+        return new SimpleGitHubEvent(1L, null, null, "wildfly/wildfly", "pull_request", action, payload.encode(),
+                payload.put("action", action), false);
+    }
+
+    private static JsonObject pullRequest() {
+        return new JsonObject()
+                .put("number", 1)
+                .put("updated_at", UPDATED_AT)
+                .put("title", "[WFLY-1] Title")
+                .put("body", "Body")
+                .put("head", new JsonObject().put("sha", "8c3a7e5b1d2f"))
+                .put("base", new JsonObject().put("ref", "main"));
+    }
+}
@@ -0,0 +1,168 @@
+package org.wildfly.bot.delivery;
+
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.error.ErrorHandler;
+import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the coalescing with a non-zero quiet window, which is disabled for the other tests.
+ */
+public class PullRequestEventCoalescerTest {
+
+    private static final String DELIVERY_ID = "72d3162e-cc78-11e3-81ab-4c9367dc0958";
+
+    private final List<String> handled = new CopyOnWriteArrayList<>();
+
+    private PullRequestEventCoalescer coalescer;
+
+    @BeforeEach
+    void setup() {
+        coalescer = new PullRequestEventCoalescer();
+        coalescer.wildFlyBotConfig = mock(WildFlyBotConfig.class);
+        when(coalescer.wildFlyBotConfig.coalescingQuietWindow()).thenReturn(1L);
+        coalescer.botEditDetector = mock(BotEditDetector.class);
+        when(coalescer.botEditDetector.isBotEdit(any())).thenReturn(false);
+        coalescer.eventDeduplicator = mock(EventDeduplicator.class);
+        coalescer.errorHandler = mock(ErrorHandler.class);
+    }
+
+    @AfterEach
+    void close() {
+        coalescer.shutdown();
+    }
+
+    @Test
+    void testSupersededEventIsDropped() throws Exception {
+        CountDownLatch decided = new CountDownLatch(2);
+        long start = System.nanoTime();
+        coalescer.whenLatest(event("synchronize", "8c3a7e5b1d2f", 1, false), null,
+                () -> done("synchronize", decided), () -> done("superseded synchronize", decided));
+        coalescer.whenLatest(event("edited", "8c3a7e5b1d2f", 1, false), null,
+                () -> done("edited", decided), () -> done("superseded edited", decided));
+
+        // the quiet window is not awaited by the caller
+        Assertions.assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 500);
+        Assertions.assertTrue(handled.isEmpty());
+
+        Assertions.assertTrue(decided.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, handled.size());
+        Assertions.assertTrue(handled.containsAll(List.of("superseded synchronize", "edited")));
+    }
+
+    @Test
+    void testEventsOfDifferentPullRequests() throws Exception {
+        CountDownLatch decided = new CountDownLatch(2);
+        coalescer.whenLatest(event("synchronize", "8c3a7e5b1d2f", 1, false), null,
+                () -> done("#1", decided), () -> done("superseded #1", decided));
+        coalescer.whenLatest(event("synchronize", "8c3a7e5b1d2f", 2, false), null,
+                () -> done("#2", decided), () -> done("superseded #2", decided));
+
+        Assertions.assertTrue(decided.await(5, TimeUnit.SECONDS));
+        Assertions.assertEquals(2, handled.size());
+        Assertions.assertTrue(handled.containsAll(List.of("#1", "#2")));
+    }
+
+    @Test
+    void testPolledEventsDoNotWait() throws Exception {
+        GitHubEvent older = event("synchronize", "8c3a7e5b1d2f", 1, true);
+        GitHubEvent newer = event("synchronize", "f2d1b5e7a3c8", 1, true);
+        coalescer.announce(older);
+        coalescer.announce(newer);
+
+        coalescer.whenLatest(older, null, () -> handled.add("older"), () -> handled.add("superseded older"));
+        coalescer.whenLatest(newer, null, () -> handled.add("newer"), () -> handled.add("superseded newer"));
+
+        Assertions.assertEquals(List.of("superseded older", "newer"), handled);
+    }
+
+    @Test
+    void testFailureIsReportedAndDeliveryNotRemembered() throws Exception {
+        GitHubEvent gitHubEvent = event("synchronize", "8c3a7e5b1d2f", 1, false);
+        IOException failure = new IOException("GitHub is unavailable");
+        coalescer.whenLatest(gitHubEvent, null, () -> {
+            throw failure;
+        }, () -> handled.add("superseded"));
+
+        verify(coalescer.eventDeduplicator).deferDelivery(DELIVERY_ID);
+        verify(coalescer.errorHandler, timeout(5_000)).handleError(eq(gitHubEvent), isNull(), eq(failure));
+        verify(coalescer.eventDeduplicator, timeout(5_000)).finishDeferredDelivery(DELIVERY_ID, false);
+        verify(coalescer.eventDeduplicator, after(500).never()).finishDeferredDelivery(eq(DELIVERY_ID), eq(true));
+        Assertions.assertTrue(handled.isEmpty());
+    }
+
+    @Test
+    void testSupersededDeliveryIsFinished() throws Exception {
+        CountDownLatch decided = new CountDownLatch(2);
+        coalescer.whenLatest(event("synchronize", "8c3a7e5b1d2f", 1, false), null,
+                () -> done("synchronize", decided), () -> done("superseded synchronize", decided));
+        coalescer.whenLatest(event("synchronize", "f2d1b5e7a3c8", 1, false), null,
+                () -> done("newer synchronize", decided), () -> done("superseded newer synchronize", decided));
+
+        Assertions.assertTrue(decided.await(5, TimeUnit.SECONDS));
+        verify(coalescer.eventDeduplicator, timeout(5_000).times(2)).finishDeferredDelivery(DELIVERY_ID, true);
+        verify(coalescer.eventDeduplicator, never()).finishDeferredDelivery(eq(DELIVERY_ID), eq(false));
+    }
+
+    @Test
+    void testTasksOfSameEventRunTogether() throws Exception {
+        GitHubEvent gitHubEvent = event("synchronize", "8c3a7e5b1d2f", 1, false);
+        IOException failure = new IOException("GitHub is unavailable");
+        List<Thread> threads = new CopyOnWriteArrayList<>();
+        CountDownLatch decided = new CountDownLatch(1);
+        coalescer.whenLatest(gitHubEvent, null, () -> {
+            threads.add(Thread.currentThread());
+            throw failure;
+        }, () -> handled.add("superseded rules"));
+        coalescer.whenLatest(gitHubEvent, null, () -> {
+            threads.add(Thread.currentThread());
+            done("format", decided);
+        }, () -> handled.add("superseded format"));
+
+        Assertions.assertTrue(decided.await(5, TimeUnit.SECONDS));
+        // the failure of the first task does not prevent the second one, both run in the same request
+        Assertions.assertEquals(List.of("format"), handled);
+        Assertions.assertEquals(2, threads.size());
+        Assertions.assertSame(threads.get(0), threads.get(1));
+        verify(coalescer.errorHandler, timeout(5_000)).handleError(eq(gitHubEvent), isNull(), eq(failure));
+        verify(coalescer.eventDeduplicator, timeout(5_000)).finishDeferredDelivery(DELIVERY_ID, false);
+        verify(coalescer.eventDeduplicator, timeout(5_000)).finishDeferredDelivery(DELIVERY_ID, true);
+    }
+
+    private void done(String outcome, CountDownLatch decided) {
+        handled.add(outcome);
+        decided.countDown();
+    }
+
+    private static GitHubEvent event(String action, String headSha, int number, boolean replayed) {
+        JsonObject payload = new JsonObject()
+                .put("action", action)
+                .put("pull_request", new JsonObject()
+                        .put("number", number)
+                        .put("updated_at", "2024-05-02T10:00:00Z")
+                        .put("head", new JsonObject().put("sha", headSha)));
+        return new SimpleGitHubEvent(1L, null, DELIVERY_ID, "wildfly/wildfly", "pull_request", action,
+                payload.encode(), payload, replayed);
+    }
+}
@@ -0,0 +1,168 @@
+package org.wildfly.bot.delivery;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the events of the same pull request being handled one by one, and the events of different pull requests
+ * in parallel.
+ */
+public class PullRequestLanesTest {
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    private SimpleMeterRegistry meterRegistry;
+    private PullRequestLanes lanes;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        lanes = new PullRequestLanes();
+        lanes.meterRegistry = meterRegistry;
+        lanes.init();
+    }
+
+    @AfterEach
+    void close() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testEventsOfSamePullRequestAreSerialized() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> first = executor.submit(() -> {
+            lanes.run(event(1), () -> {
+                entered.countDown();
+                await(release);
+            }, null);
+            return null;
+        });
+        Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch secondRan = new CountDownLatch(1);
+        Future<?> second = executor.submit(() -> {
+            lanes.run(event(1), secondRan::countDown, null);
+            return null;
+        });
+
+        Assertions.assertFalse(secondRan.await(500, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(1, queue());
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        second.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(0, secondRan.getCount());
+        Assertions.assertEquals(0, queue());
+    }
+
+    @Test
+    void testEventsOfDifferentPullRequestsRunInParallel() throws Exception {
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> first = executor.submit(() -> {
+            lanes.run(event(1), () -> {
+                entered.countDown();
+                await(release);
+            }, null);
+            return null;
+        });
+        Assertions.assertTrue(entered.await(5, TimeUnit.SECONDS));
+
+        CountDownLatch secondRan = new CountDownLatch(1);
+        executor.submit(() -> {
+            lanes.run(event(2), secondRan::countDown, null);
+            return null;
+        }).get(5, TimeUnit.SECONDS);
+
+        Assertions.assertEquals(0, secondRan.getCount());
+        Assertions.assertEquals(0, queue());
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    void testFailureIsThrownAndLaneLeft() throws Exception {
+        IOException failure = new IOException("GitHub is unavailable");
+        IOException thrown = Assertions.assertThrows(IOException.class, () -> lanes.run(event(1), () -> {
+            throw failure;
+        }, null));
+        Assertions.assertSame(failure, thrown);
+
+        CountDownLatch nextRan = new CountDownLatch(1);
+        executor.submit(() -> {
+            lanes.run(event(1), nextRan::countDown, null);
+            return null;
+        }).get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(0, nextRan.getCount());
+    }
+
+    @Test
+    void testEventEntersLaneOnce() throws Exception {
+        EventLanes eventLanes = new EventLanes();
+        CountDownLatch processed = new CountDownLatch(2);
+        // the second processor of the event does not wait for the event itself
+        lanes.run(event(1), processed::countDown, eventLanes);
+        lanes.run(event(1), processed::countDown, eventLanes);
+        Assertions.assertEquals(0, processed.getCount());
+
+        // the event is in the lane until its request ends
+        CountDownLatch nextRan = new CountDownLatch(1);
+        Future<?> next = executor.submit(() -> {
+            lanes.run(event(1), nextRan::countDown, null);
+            return null;
+        });
+        Assertions.assertFalse(nextRan.await(500, TimeUnit.MILLISECONDS));
+        Assertions.assertEquals(1, queue());
+
+        eventLanes.leave();
+        next.get(5, TimeUnit.SECONDS);
+        Assertions.assertEquals(0, nextRan.getCount());
+    }
+
+    @Test
+    void testEventWithoutPullRequestRunsDirectly() throws Exception {
+        JsonObject payload = new JsonObject().put("action", "created");
+        GitHubEvent gitHubEvent = new SimpleGitHubEvent(1L, null, "72d3162e-cc78-11e3-81ab-4c9367dc0958",
+                "wildfly/wildfly", "issue_comment", "created", payload.encode(), payload, false);
+        CountDownLatch ran = new CountDownLatch(1);
+        lanes.run(gitHubEvent, ran::countDown, null);
+        Assertions.assertEquals(0, ran.getCount());
+    }
+
+    private double queue() {
+        return meterRegistry.get("wildfly.bot.lanes.queue").gauge().value();
+    }
+
+    private static void await(CountDownLatch latch) throws IOException {
+        try {
+            if (!latch.await(5, TimeUnit.SECONDS)) {
+                throw new IOException("Not released");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private static GitHubEvent event(int number) {
+        JsonObject payload = new JsonObject()
+                .put("action", "synchronize")
+                .put("pull_request", new JsonObject().put("number", number));
+        return new SimpleGitHubEvent(1L, null, "72d3162e-cc78-11e3-81ab-4c9367dc0958", "wildfly/wildfly",
+                "pull_request", "synchronize", payload.encode(), payload, false);
+    }
+}
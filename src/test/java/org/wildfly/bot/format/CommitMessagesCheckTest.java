@@ -0,0 +1,83 @@
+package org.wildfly.bot.format;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHPullRequestCommitDetail;
+import org.kohsuke.github.GHUser;
+import org.kohsuke.github.PagedIterable;
+import org.kohsuke.github.PagedIterator;
+import org.wildfly.bot.history.GitMirror;
+import org.wildfly.bot.model.RegexDefinition;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the commits from the {@link GitMirror} are checked like the commits listed by the REST API.
+ */
+public class CommitMessagesCheckTest {
+
+    private static final RegexDefinition DESCRIPTION = new RegexDefinition(Pattern.compile("\\[WFLY-\\d+]\\s+.*"),
+            "The commit message must start with the Jira issue, e.g. [WFLY-1] Fix, pattern: %s");
+
+    private static final List<List<GitMirror.Commit>> COMMITS = List.of(
+            List.of(new GitMirror.Commit("sha1", "[WFLY-1] Fix")),
+            List.of(new GitMirror.Commit("sha1", "Fix"), new GitMirror.Commit("sha2", "[WFLY-2] Fix")),
+            List.of(new GitMirror.Commit("sha1", "Fix"), new GitMirror.Commit("sha2", "Fix again")),
+            List.of(new GitMirror.Commit("sha1", "Fix"), new GitMirror.Commit("sha2", "")),
+            List.of(new GitMirror.Commit("sha1", "[WFLY-1] Fix"), new GitMirror.Commit("sha2", "")),
+            List.of());
+
+    @Test
+    void testSameResultAsRestApi() throws Exception {
+        for (List<GitMirror.Commit> commits : COMMITS) {
+            String mirrored = new CommitMessagesCheck(DESCRIPTION, null, () -> Optional.of(commits))
+                    .check(pullRequest(List.of()));
+            String listed = new CommitMessagesCheck(DESCRIPTION).check(pullRequest(commits));
+
+            Assertions.assertEquals(listed, mirrored, "Check of " + commits);
+        }
+    }
+
+    @Test
+    void testListingStopsAtMatchingCommit() throws Exception {
+        GHPullRequest pullRequest = pullRequest(List.of(new GitMirror.Commit("sha1", "[WFLY-1] Fix"),
+                new GitMirror.Commit("sha2", "Fix")));
+
+        Assertions.assertNull(new CommitMessagesCheck(DESCRIPTION).check(pullRequest));
+        verify(pullRequest.listCommits().iterator(), times(1)).next();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static GHPullRequest pullRequest(List<GitMirror.Commit> commits) {
+        GHPullRequest pullRequest = mock(GHPullRequest.class);
+        GHUser user = mock(GHUser.class);
+        when(user.getLogin()).thenReturn("user");
+        when(pullRequest.getUser()).thenReturn(user);
+
+        Iterator<GitMirror.Commit> iterator = commits.iterator();
+        PagedIterator<GHPullRequestCommitDetail> details = mock(PagedIterator.class);
+        when(details.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(details.next()).thenAnswer(invocation -> {
+            GitMirror.Commit commit = iterator.next();
+            GHPullRequestCommitDetail detail = mock(GHPullRequestCommitDetail.class);
+            GHPullRequestCommitDetail.Commit data = mock(GHPullRequestCommitDetail.Commit.class);
+            when(detail.getSha()).thenReturn(commit.sha());
+            when(detail.getCommit()).thenReturn(data);
+            when(data.getMessage()).thenReturn(commit.message());
+            return detail;
+        });
+        PagedIterable<GHPullRequestCommitDetail> listed = mock(PagedIterable.class);
+        when(listed.iterator()).thenReturn(details);
+        when(pullRequest.listCommits()).thenReturn(listed);
+        return pullRequest;
+    }
+}
@@ -0,0 +1,177 @@
+package org.wildfly.bot.history;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHCommit;
+import org.kohsuke.github.GHCompare;
+import org.kohsuke.github.GHRepository;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests extending the index of a branch by the payloads of webhook and polled push events.
+ */
+public class BaseBranchIndexTest {
+
+    private static final String REPOSITORY = "wildfly/wildfly";
+    private static final String BRANCH = "main";
+
+    private BaseBranchIndex baseBranchIndex;
+    private GHRepository repository;
+
+    @BeforeEach
+    void setup() throws Exception {
+        WildFlyBotConfig wildFlyBotConfig = mock(WildFlyBotConfig.class);
+        when(wildFlyBotConfig.baseIndexDirectory()).thenReturn(Optional.empty());
+        baseBranchIndex = new BaseBranchIndex();
+        baseBranchIndex.meterRegistry = new SimpleMeterRegistry();
+        baseBranchIndex.wildFlyBotConfig = wildFlyBotConfig;
+        baseBranchIndex.init();
+        repository = mock(GHRepository.class);
+
+        List<GHCommit> history = new ArrayList<>();
+        for (int i = 2; i >= 0; i--) {
+            GHCommit commit = mock(GHCommit.class);
+            when(commit.getSHA1()).thenReturn(sha(i));
+            history.add(commit);
+        }
+        baseBranchIndex.seed(REPOSITORY, BRANCH, history);
+    }
+
+    @AfterEach
+    void cleanup() {
+        baseBranchIndex.clear();
+    }
+
+    @Test
+    void testWebhookPayload() throws Exception {
+        JsonObject payload = new JsonObject()
+                .put("ref", "refs/heads/" + BRANCH)
+                .put("before", sha(2))
+                .put("after", sha(4))
+                .put("forced", false)
+                .put("deleted", false)
+                .put("commits", commits("id", 3, 5));
+
+        baseBranchIndex.update(push(payload), repository);
+
+        assertIndexed(0, 5);
+        verify(repository, never()).getCompare(anyString(), anyString());
+    }
+
+    @Test
+    void testPolledPayload() throws Exception {
+        JsonObject payload = new JsonObject()
+                .put("ref", "refs/heads/" + BRANCH)
+                .put("before", sha(2))
+                .put("head", sha(4))
+                .put("size", 2)
+                .put("commits", commits("sha", 3, 5));
+        compare(sha(2), sha(4), 3, 5);
+
+        baseBranchIndex.update(push(payload), repository);
+
+        assertIndexed(0, 5);
+    }
+
+    @Test
+    void testTruncatedPolledPayload() throws Exception {
+        // the events API lists the 20 most recent commits of a push only
+        JsonObject payload = new JsonObject()
+                .put("ref", "refs/heads/" + BRANCH)
+                .put("before", sha(2))
+                .put("head", sha(27))
+                .put("size", 25)
+                .put("commits", commits("sha", 8, 28));
+        compare(sha(2), sha(27), 3, 28);
+
+        baseBranchIndex.update(push(payload), repository);
+
+        assertIndexed(0, 28);
+    }
+
+    @Test
+    void testForcedWebhookPayload() throws Exception {
+        JsonObject payload = new JsonObject()
+                .put("ref", "refs/heads/" + BRANCH)
+                .put("before", sha(2))
+                .put("after", sha(3))
+                .put("forced", true)
+                .put("deleted", false)
+                .put("commits", commits("id", 3, 4));
+
+        baseBranchIndex.update(push(payload), repository);
+
+        Assertions.assertNull(baseBranchIndex.get(REPOSITORY, BRANCH));
+    }
+
+    @Test
+    void testRewrittenPolledPayload() throws Exception {
+        JsonObject payload = new JsonObject()
+                .put("ref", "refs/heads/" + BRANCH)
+                .put("before", sha(2))
+                .put("head", sha(3))
+                .put("size", 1)
+                .put("commits", commits("sha", 3, 4));
+        GHCompare compare = mock(GHCompare.class);
+        when(compare.getStatus()).thenReturn(GHCompare.Status.diverged);
+        when(repository.getCompare(sha(2), sha(3))).thenReturn(compare);
+
+        baseBranchIndex.update(push(payload), repository);
+
+        Assertions.assertNull(baseBranchIndex.get(REPOSITORY, BRANCH));
+    }
+
+    private void assertIndexed(int from, int to) {
+        BaseBranchIndex.Commits commits = baseBranchIndex.get(REPOSITORY, BRANCH);
+        Assertions.assertNotNull(commits);
+        for (int i = from; i < to; i++) {
+            Assertions.assertTrue(commits.contains(sha(i)), "Commit " + i + " is indexed");
+        }
+        Assertions.assertFalse(commits.contains(sha(to)));
+    }
+
+    private void compare(String base, String head, int from, int to) throws Exception {
+        GHCompare compare = mock(GHCompare.class);
+        GHCompare.Commit[] commits = IntStream.range(from, to).mapToObj(i -> {
+            GHCompare.Commit commit = mock(GHCompare.Commit.class);
+            when(commit.getSHA1()).thenReturn(sha(i));
+            return commit;
+        }).toArray(GHCompare.Commit[]::new);
+        when(compare.getStatus()).thenReturn(GHCompare.Status.ahead);
+        when(compare.getTotalCommits()).thenReturn(commits.length);
+        when(compare.getCommits()).thenReturn(commits);
+        when(repository.getCompare(base, head)).thenReturn(compare);
+    }
+
+    private static JsonArray commits(String field, int from, int to) {
+        JsonArray commits = new JsonArray();
+        IntStream.range(from, to).forEach(i -> commits.add(new JsonObject().put(field, sha(i))));
+        return commits;
+    }
+
+    private static GitHubEvent push(JsonObject payload) {
+        return new SimpleGitHubEvent(1L, null, null, REPOSITORY, "push", null, payload.encode(), payload, false);
+    }
+
+    private static String sha(int i) {
+        return "%040x".formatted(0x5eedL * 1_000 + i);
+    }
+}
@@ -0,0 +1,132 @@
+package org.wildfly.bot.history;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Tests the sorted file of SHAs with its Bloom filter, and the delta of commits added later.
+ */
+public class CommitSetTest {
+
+    private static final String LOWEST = "0".repeat(40);
+    private static final String HIGHEST = "f".repeat(40);
+
+    @Test
+    void testRoundTrip() throws IOException {
+        List<String> shas = shas(new Random(1), 10_000);
+        // the builder gets them unsorted and with duplicates
+        List<String> added = new ArrayList<>(shas);
+        added.addAll(shas.subList(0, 100));
+        added.add(HIGHEST);
+        added.add(LOWEST);
+
+        try (CommitSet commitSet = build(added)) {
+            Assertions.assertEquals(shas.size() + 2, commitSet.size());
+            for (String sha : shas) {
+                Assertions.assertTrue(commitSet.contains(sha), sha);
+            }
+            Assertions.assertTrue(commitSet.contains(LOWEST));
+            Assertions.assertTrue(commitSet.contains(HIGHEST));
+            Assertions.assertTrue(commitSet.contains(shas.get(0).toUpperCase()));
+        }
+    }
+
+    @Test
+    void testAbsentCommits() throws IOException {
+        try (CommitSet commitSet = build(shas(new Random(1), 10_000))) {
+            for (String sha : shas(new Random(2), 10_000)) {
+                Assertions.assertFalse(commitSet.contains(sha), sha);
+            }
+            Assertions.assertFalse(commitSet.contains(LOWEST));
+            Assertions.assertFalse(commitSet.contains(HIGHEST));
+            Assertions.assertFalse(commitSet.contains("sha1"));
+            Assertions.assertFalse(commitSet.contains(null));
+        }
+    }
+
+    @Test
+    void testEmptySet() throws IOException {
+        try (CommitSet commitSet = build(List.of())) {
+            Assertions.assertEquals(0, commitSet.size());
+            Assertions.assertFalse(commitSet.contains(LOWEST));
+
+            commitSet.add(HIGHEST);
+            Assertions.assertTrue(commitSet.contains(HIGHEST));
+            Assertions.assertEquals(1, commitSet.size());
+        }
+    }
+
+    @Test
+    void testCompaction() throws IOException {
+        List<String> history = shas(new Random(1), 1_000);
+        List<String> pushed = shas(new Random(2), CommitSet.MAX_DELTA);
+
+        try (CommitSet commitSet = build(history)) {
+            for (String sha : pushed.subList(0, CommitSet.MAX_DELTA - 1)) {
+                commitSet.add(sha);
+            }
+            commitSet.add(history.get(0));
+            Assertions.assertEquals(CommitSet.MAX_DELTA - 1, commitSet.deltaSize());
+
+            commitSet.add(pushed.get(CommitSet.MAX_DELTA - 1));
+            Assertions.assertEquals(0, commitSet.deltaSize());
+            Assertions.assertEquals(history.size() + pushed.size(), commitSet.size());
+            for (String sha : history) {
+                Assertions.assertTrue(commitSet.contains(sha), sha);
+            }
+            for (String sha : pushed) {
+                Assertions.assertTrue(commitSet.contains(sha), sha);
+            }
+            for (String sha : shas(new Random(3), 1_000)) {
+                Assertions.assertFalse(commitSet.contains(sha), sha);
+            }
+        }
+    }
+
+    @Test
+    void testMalformedSha() throws IOException {
+        try (CommitSet.Builder builder = CommitSet.builder(null)) {
+            Assertions.assertThrows(IllegalArgumentException.class, () -> builder.add("sha1"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> builder.add("z".repeat(40)));
+            try (CommitSet commitSet = builder.build()) {
+                Assertions.assertThrows(IllegalArgumentException.class, () -> commitSet.add("sha2"));
+            }
+        }
+    }
+
+    @Test
+    void testClose() throws IOException {
+        List<String> shas = shas(new Random(1), 100);
+        CommitSet commitSet = build(shas);
+
+        commitSet.close();
+        commitSet.add(HIGHEST);
+
+        Assertions.assertEquals(0, commitSet.size());
+        Assertions.assertFalse(commitSet.contains(shas.get(0)));
+        Assertions.assertFalse(commitSet.contains(HIGHEST));
+    }
+
+    private static CommitSet build(List<String> shas) throws IOException {
+        try (CommitSet.Builder builder = CommitSet.builder(null)) {
+            shas.forEach(builder::add);
+            return builder.build();
+        }
+    }
+
+    private static List<String> shas(Random random, int count) {
+        List<String> shas = new ArrayList<>(count);
+        byte[] sha = new byte[20];
+        for (int i = 0; i < count; i++) {
+            random.nextBytes(sha);
+            shas.add(HexFormat.of().formatHex(sha));
+        }
+        return shas;
+    }
+}
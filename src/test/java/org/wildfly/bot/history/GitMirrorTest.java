@@ -0,0 +1,109 @@
+package org.wildfly.bot.history;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that the mirrors are cloned and fetched in the background, while the queries fall back to the REST API.
+ */
+public class GitMirrorTest {
+
+    private static final String REPOSITORY = "wildfly/wildfly";
+
+    @TempDir
+    Path directory;
+
+    private Git origin;
+    private RevCommit base;
+    private GitMirror gitMirror;
+
+    @BeforeEach
+    void setup() throws Exception {
+        origin = Git.init().setDirectory(directory.resolve(REPOSITORY).toFile()).setInitialBranch("main").call();
+        base = commit("ee/src/main/java/Base.java", "[WFLY-1] Base");
+
+        WildFlyBotConfig wildFlyBotConfig = mock(WildFlyBotConfig.class);
+        when(wildFlyBotConfig.mirrorEnabled()).thenReturn(true);
+        when(wildFlyBotConfig.mirrorUrl()).thenReturn(directory.toUri() + "%s");
+        when(wildFlyBotConfig.mirrorDirectory()).thenReturn(directory.resolve("mirrors").toString());
+        gitMirror = new GitMirror();
+        gitMirror.wildFlyBotConfig = wildFlyBotConfig;
+    }
+
+    @AfterEach
+    void close() {
+        gitMirror.close();
+        origin.close();
+    }
+
+    @Test
+    void testUnknownUntilCloned() throws Exception {
+        Assertions.assertEquals(Optional.empty(), gitMirror.isMerged(REPOSITORY, base.name(), base.name()));
+
+        await(() -> gitMirror.isMerged(REPOSITORY, base.name(), base.name()), true);
+        Assertions.assertTrue(Files.isDirectory(directory.resolve("mirrors/" + REPOSITORY + ".git/objects")));
+    }
+
+    @Test
+    void testFetchOfPushedCommits() throws Exception {
+        await(() -> gitMirror.exists(REPOSITORY, "ee"), true);
+        commit("jpa/src/main/java/Pushed.java", "[WFLY-2] Pushed");
+        Assertions.assertEquals(Optional.of(false), gitMirror.exists(REPOSITORY, "jpa"));
+
+        gitMirror.fetch(REPOSITORY);
+
+        await(() -> gitMirror.exists(REPOSITORY, "jpa"), true);
+    }
+
+    @Test
+    void testFetchOfMissingCommits() throws Exception {
+        await(() -> gitMirror.exists(REPOSITORY, "ee"), true);
+        RevCommit pushed = commit("jpa/src/main/java/Pushed.java", "[WFLY-3] Pushed");
+
+        // the missing commit is fetched in the background, the query does not wait for it
+        Assertions.assertEquals(Optional.empty(), gitMirror.isMerged(REPOSITORY, base.name(), pushed.name()));
+        await(() -> gitMirror.isMerged(REPOSITORY, base.name(), pushed.name()), true);
+    }
+
+    @Test
+    void testDisabled() {
+        when(gitMirror.wildFlyBotConfig.mirrorEnabled()).thenReturn(false);
+
+        gitMirror.fetch(REPOSITORY);
+
+        Assertions.assertEquals(Optional.empty(), gitMirror.isMerged(REPOSITORY, base.name(), base.name()));
+        Assertions.assertFalse(Files.exists(directory.resolve("mirrors")));
+    }
+
+    private static <T> void await(Supplier<Optional<T>> query, T expected) throws InterruptedException {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        Optional<T> result = query.get();
+        while (!result.equals(Optional.of(expected)) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            result = query.get();
+        }
+        Assertions.assertEquals(Optional.of(expected), result);
+    }
+
+    private RevCommit commit(String file, String message) throws Exception {
+        Path path = directory.resolve(REPOSITORY).resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, message);
+        origin.add().addFilepattern(file).call();
+        return origin.commit().setMessage(message).call();
+    }
+}
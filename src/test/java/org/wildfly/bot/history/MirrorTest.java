@@ -0,0 +1,174 @@
+package org.wildfly.bot.history;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries a mirror of a local repository, thus no network is needed.
+ */
+public class MirrorTest {
+
+    @TempDir
+    Path directory;
+
+    private Git origin;
+    private RevCommit base;
+    private Mirror mirror;
+
+    @BeforeEach
+    void setup() throws Exception {
+        origin = Git.init().setDirectory(directory.resolve("origin").toFile()).setInitialBranch("main").call();
+        base = commit("ee/src/main/java/Base.java", "[WFLY-1] Base");
+        mirror = new Mirror(directory.resolve("origin").toUri().toString(), directory.resolve("mirrors/wildfly.git"));
+    }
+
+    @AfterEach
+    void close() {
+        mirror.close();
+        origin.close();
+    }
+
+    @Test
+    void testMergedCommits() throws Exception {
+        origin.checkout().setCreateBranch(true).setName("feature").call();
+        RevCommit feature = commit("ejb3/src/main/java/Feature.java", "[WFLY-2] Feature");
+
+        Assertions.assertTrue(mirror.isMerged(base.name(), feature.name()));
+        Assertions.assertFalse(mirror.isMerged(feature.name(), base.name()));
+    }
+
+    @Test
+    void testFetchOfMissingCommits() throws Exception {
+        mirror.fetch();
+        RevCommit pushed = commit("jpa/src/main/java/Pushed.java", "[WFLY-3] Pushed");
+
+        Assertions.assertNull(mirror.isMerged(pushed.name(), pushed.name()));
+        mirror.fetch();
+        Assertions.assertTrue(mirror.isMerged(base.name(), pushed.name()));
+    }
+
+    @Test
+    void testPullRequestFilesAndCommits() throws Exception {
+        origin.checkout().setCreateBranch(true).setName("feature").call();
+        RevCommit first = commit("ejb3/src/main/java/First.java", "[WFLY-4] First");
+        RevCommit second = commit("weld/src/main/java/Second.java", "");
+        origin.checkout().setName("main").call();
+        RevCommit main = commit("jpa/src/main/java/Main.java", "[WFLY-5] Main");
+
+        Assertions.assertEquals(List.of("ejb3/src/main/java/First.java", "weld/src/main/java/Second.java"),
+                mirror.changedFiles(main.name(), second.name()));
+        Assertions.assertEquals(List.of(new GitMirror.Commit(first.name(), "[WFLY-4] First"),
+                new GitMirror.Commit(second.name(), "")), mirror.commits(main.name(), second.name()));
+    }
+
+    @Test
+    void testRenamedAndDeletedFiles() throws Exception {
+        commit("ejb3/src/main/java/Deleted.java", "[WFLY-9] Deleted");
+        RevCommit main = commit("ejb3/src/main/java/Moved.java", "[WFLY-9] Moved");
+        origin.checkout().setCreateBranch(true).setName("feature").call();
+        Files.createDirectories(directory.resolve("origin/ee/src/main/java"));
+        Files.move(directory.resolve("origin/ejb3/src/main/java/Moved.java"),
+                directory.resolve("origin/ee/src/main/java/Moved.java"));
+        Files.delete(directory.resolve("origin/ejb3/src/main/java/Deleted.java"));
+        origin.add().addFilepattern("ee").call();
+        origin.rm().addFilepattern("ejb3/src/main/java/Moved.java").addFilepattern("ejb3/src/main/java/Deleted.java").call();
+        RevCommit feature = origin.commit().setMessage("[WFLY-10] Move").call();
+
+        // the moved file is reported by its new path only, like by the REST API
+        Assertions.assertEquals(List.of("ee/src/main/java/Moved.java", "ejb3/src/main/java/Deleted.java"),
+                mirror.changedFiles(main.name(), feature.name()));
+    }
+
+    @Test
+    void testClone() throws Exception {
+        Assertions.assertFalse(mirror.isCloned());
+        mirror.fetch();
+
+        Assertions.assertTrue(mirror.isCloned());
+        Assertions.assertFalse(Files.exists(directory.resolve("mirrors/wildfly.git.tmp")));
+        Assertions.assertTrue(mirror.isMerged(base.name(), base.name()));
+    }
+
+    @Test
+    void testQueryDuringFetch() throws Exception {
+        mirror.fetch();
+        RevCommit pushed = commit("jpa/src/main/java/Pushed.java", "[WFLY-11] Pushed");
+        CountDownLatch fetching = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> running = CompletableFuture.runAsync(() -> {
+            mirror.fetchLock.lock();
+            try {
+                fetching.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                mirror.fetchLock.unlock();
+            }
+        });
+        Assertions.assertTrue(fetching.await(5, TimeUnit.SECONDS));
+        CompletableFuture<Void> waiting = CompletableFuture.runAsync(() -> {
+            try {
+                mirror.fetch();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+
+        // the fetches wait for each other, the query does not wait for them
+        Assertions.assertTrue(CompletableFuture.supplyAsync(() -> {
+            try {
+                return mirror.isMerged(base.name(), base.name());
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(5, TimeUnit.SECONDS));
+        Assertions.assertFalse(waiting.isDone());
+
+        release.countDown();
+        running.get(5, TimeUnit.SECONDS);
+        waiting.get(10, TimeUnit.SECONDS);
+        Assertions.assertTrue(mirror.isMerged(base.name(), pushed.name()));
+    }
+
+    @Test
+    void testMergeability() throws Exception {
+        origin.checkout().setCreateBranch(true).setName("clean").call();
+        RevCommit clean = commit("ejb3/src/main/java/Clean.java", "[WFLY-6] Clean");
+        origin.checkout().setName("main").setCreateBranch(false).call();
+        origin.checkout().setCreateBranch(true).setName("conflict").setStartPoint(base).call();
+        RevCommit conflict = commit("ee/src/main/java/Base.java", "[WFLY-7] Conflict");
+        origin.checkout().setName("main").call();
+        RevCommit main = commit("ee/src/main/java/Base.java", "[WFLY-8] Main");
+
+        Assertions.assertTrue(mirror.isMergeable(main.name(), clean.name()));
+        Assertions.assertFalse(mirror.isMergeable(main.name(), conflict.name()));
+    }
+
+    @Test
+    void testExistingDirectories() throws Exception {
+        Assertions.assertTrue(mirror.exists("ee/src/main"));
+        Assertions.assertTrue(mirror.exists("ee/src/main/"));
+        Assertions.assertFalse(mirror.exists("ejb3/src/main"));
+    }
+
+    private RevCommit commit(String file, String message) throws Exception {
+        Path path = directory.resolve("origin").resolve(file);
+        Files.createDirectories(path.getParent());
+        Files.writeString(path, message);
+        origin.add().addFilepattern(file).call();
+        return origin.commit().setMessage(message).setAllowEmpty(true).call();
+    }
+}
@@ -0,0 +1,113 @@
+package org.wildfly.bot.polling;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the polling interval backing off while a repository is quiet and snapping back once it is active again.
+ */
+public class AdaptivePollingSchedulerTest {
+
+    private static final String REPOSITORY = "wildfly/wildfly";
+
+    private static final long MIN_INTERVAL = 30L;
+    private static final long MAX_INTERVAL = 200L;
+
+    private static final long POLLED_AT = 1_700_000_000_000L;
+
+    @TempDir
+    Path directory;
+
+    private SimpleMeterRegistry meterRegistry;
+    private AdaptivePollingScheduler scheduler;
+
+    @BeforeEach
+    void setup() {
+        WildFlyBotConfig wildFlyBotConfig = mock(WildFlyBotConfig.class);
+        when(wildFlyBotConfig.pollingMinInterval()).thenReturn(MIN_INTERVAL);
+        when(wildFlyBotConfig.pollingMaxInterval()).thenReturn(MAX_INTERVAL);
+        when(wildFlyBotConfig.pollingStateFile()).thenReturn(directory.resolve("polling-state.json").toString());
+
+        PollingStateStore pollingStateStore = new PollingStateStore();
+        pollingStateStore.wildFlyBotConfig = wildFlyBotConfig;
+        pollingStateStore.load();
+
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new AdaptivePollingScheduler();
+        scheduler.wildFlyBotConfig = wildFlyBotConfig;
+        scheduler.pollingStateStore = pollingStateStore;
+        scheduler.meterRegistry = meterRegistry;
+    }
+
+    @Test
+    void testQuietRepositoryBacksOffUpToMaximum() {
+        for (long expected : List.of(MIN_INTERVAL, 60L, 120L, MAX_INTERVAL, MAX_INTERVAL)) {
+            scheduler.reschedule(REPOSITORY, events(0), false, POLLED_AT);
+
+            Assertions.assertEquals(expected, state().interval());
+            Assertions.assertEquals(POLLED_AT + expected * 1000L, state().notBefore());
+        }
+        Assertions.assertEquals(MAX_INTERVAL, intervalGauge());
+    }
+
+    @Test
+    void testActivityResetsToMinimum() {
+        scheduler.reschedule(REPOSITORY, events(0), false, POLLED_AT);
+        scheduler.reschedule(REPOSITORY, events(0), false, POLLED_AT);
+        scheduler.reschedule(REPOSITORY, events(0), false, POLLED_AT);
+        Assertions.assertEquals(120L, state().interval());
+
+        scheduler.reschedule(REPOSITORY, events(0), true, POLLED_AT);
+
+        Assertions.assertEquals(MIN_INTERVAL, state().interval());
+        Assertions.assertEquals(POLLED_AT + MIN_INTERVAL * 1000L, state().notBefore());
+        Assertions.assertEquals(MIN_INTERVAL, intervalGauge());
+    }
+
+    @Test
+    void testPollIntervalOfGitHubIsNeverUndercut() {
+        scheduler.reschedule(REPOSITORY, events(60), true, POLLED_AT);
+
+        // the backoff continues from its own interval, only the next poll is delayed
+        Assertions.assertEquals(MIN_INTERVAL, state().interval());
+        Assertions.assertEquals(POLLED_AT + 60_000L, state().notBefore());
+
+        scheduler.reschedule(REPOSITORY, events(60), false, POLLED_AT);
+        scheduler.reschedule(REPOSITORY, events(60), false, POLLED_AT);
+
+        Assertions.assertEquals(120L, state().interval());
+        Assertions.assertEquals(POLLED_AT + 120_000L, state().notBefore());
+    }
+
+    @Test
+    void testIsDue() {
+        long now = System.currentTimeMillis();
+        scheduler.reschedule(REPOSITORY, events(0), true, now);
+        Assertions.assertFalse(scheduler.isDue(REPOSITORY));
+
+        scheduler.reschedule(REPOSITORY, events(0), true, now - MIN_INTERVAL * 1000L);
+        Assertions.assertTrue(scheduler.isDue(REPOSITORY));
+    }
+
+    private RepositoryPollingState state() {
+        return scheduler.pollingStateStore.get(REPOSITORY);
+    }
+
+    private double intervalGauge() {
+        return meterRegistry.get("wildfly.bot.polling.interval").tag("repository", REPOSITORY).gauge().value();
+    }
+
+    private static RepositoryEvents events(int pollInterval) {
+        return new RepositoryEvents(true, List.of(), "\"etag\"", pollInterval);
+    }
+}
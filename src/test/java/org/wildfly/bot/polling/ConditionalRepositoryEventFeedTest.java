@@ -0,0 +1,153 @@
+package org.wildfly.bot.polling;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.quarkiverse.githubapp.runtime.github.GitHubService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHAppInstallation;
+import org.kohsuke.github.GHEvent;
+import org.kohsuke.github.GHRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the conditional requests against a local server standing in for GitHub's events API.
+ */
+public class ConditionalRepositoryEventFeedTest {
+
+    private static final String ETAG = "\"a18c3bded88eb5dbb5c849a489412bf3\"";
+    private static final String EVENTS = """
+            [
+              {"id": "2", "type": "PullRequestEvent", "created_at": "2024-05-02T10:00:00Z", "payload": {"action": "opened"}},
+              {"id": "1", "type": "PushEvent", "created_at": "2024-05-01T10:00:00Z", "payload": {"ref": "refs/heads/main"}}
+            ]
+            """;
+
+    private final Queue<Response> responses = new ConcurrentLinkedQueue<>();
+    private final List<String> ifNoneMatch = new ArrayList<>();
+    private final List<String> authorization = new ArrayList<>();
+
+    private HttpServer server;
+    private ConditionalRepositoryEventFeed feed;
+    private GHAppInstallation installation;
+    private GHRepository repository;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        server.createContext("/repos/wildfly/wildfly/events", this::respond);
+        server.start();
+
+        feed = new ConditionalRepositoryEventFeed();
+        feed.gitHubService = mock(GitHubService.class);
+        when(feed.gitHubService.getInstallationToken(1L)).thenReturn("installation-token");
+        installation = mock(GHAppInstallation.class);
+        when(installation.getId()).thenReturn(1L);
+        repository = mock(GHRepository.class);
+        when(repository.getFullName()).thenReturn("wildfly/wildfly");
+        when(repository.getUrl()).thenReturn(URI.create("http://%s:%d/repos/wildfly/wildfly"
+                .formatted(server.getAddress().getHostString(), server.getAddress().getPort())).toURL());
+    }
+
+    @AfterEach
+    void close() {
+        server.stop(0);
+    }
+
+    @Test
+    void testNotModifiedResponse() throws IOException {
+        responses.add(new Response(200, ETAG, "60", EVENTS));
+        responses.add(new Response(304, ETAG, "60", null));
+
+        RepositoryEvents modified = feed.fetch(installation, repository, RepositoryPollingState.EMPTY);
+        Assertions.assertTrue(modified.modified());
+        Assertions.assertEquals(ETAG, modified.etag());
+        Assertions.assertEquals(60, modified.pollInterval());
+        List<PolledEvent> events = new ArrayList<>();
+        modified.events().forEach(events::add);
+        Assertions.assertEquals(List.of(2L, 1L), events.stream().map(PolledEvent::id).toList());
+        Assertions.assertEquals(GHEvent.PULL_REQUEST, events.get(0).type());
+        Assertions.assertEquals(GHEvent.PUSH, events.get(1).type());
+        Assertions.assertEquals("opened", events.get(0).payload().get("action").asText());
+
+        RepositoryEvents notModified = feed.fetch(installation, repository,
+                RepositoryPollingState.EMPTY.withFeed(modified.etag(), 0L, 60L));
+        Assertions.assertFalse(notModified.modified());
+        Assertions.assertEquals(ETAG, notModified.etag());
+        Assertions.assertFalse(notModified.events().iterator().hasNext());
+
+        Assertions.assertEquals(List.of("", ETAG), ifNoneMatch);
+        Assertions.assertEquals(List.of("Bearer installation-token", "Bearer installation-token"), authorization);
+    }
+
+    @Test
+    void testModifiedResponseReplacesETag() throws IOException {
+        responses.add(new Response(200, "\"new\"", null, EVENTS));
+
+        RepositoryEvents events = feed.fetch(installation, repository,
+                RepositoryPollingState.EMPTY.withFeed(ETAG, 0L, 60L));
+        Assertions.assertTrue(events.modified());
+        Assertions.assertEquals("\"new\"", events.etag());
+        Assertions.assertEquals(0, events.pollInterval());
+        Assertions.assertEquals(List.of(ETAG), ifNoneMatch);
+    }
+
+    @Test
+    void testMalformedPollInterval() throws IOException {
+        responses.add(new Response(304, ETAG, "soon", null));
+
+        RepositoryEvents events = feed.fetch(installation, repository,
+                RepositoryPollingState.EMPTY.withFeed(ETAG, 0L, 60L));
+        Assertions.assertFalse(events.modified());
+        Assertions.assertEquals(0, events.pollInterval());
+    }
+
+    @Test
+    void testUnexpectedResponse() {
+        responses.add(new Response(500, null, null, "{}"));
+
+        Assertions.assertThrows(IOException.class,
+                () -> feed.fetch(installation, repository, RepositoryPollingState.EMPTY));
+    }
+
+    private void respond(HttpExchange exchange) throws IOException {
+        ifNoneMatch.add(exchange.getRequestHeaders().getFirst("If-None-Match") == null ? ""
+                : exchange.getRequestHeaders().getFirst("If-None-Match"));
+        authorization.add(exchange.getRequestHeaders().getFirst("Authorization"));
+        Response response = responses.remove();
+        if (response.etag() != null) {
+            exchange.getResponseHeaders().add("ETag", response.etag());
+        }
+        if (response.pollInterval() != null) {
+            exchange.getResponseHeaders().add("X-Poll-Interval", response.pollInterval());
+        }
+        if (response.body() == null) {
+            exchange.sendResponseHeaders(response.status(), -1);
+        } else {
+            byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(response.status(), body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    private record Response(int status, String etag, String pollInterval, String body) {
+    }
+}
@@ -0,0 +1,63 @@
+package org.wildfly.bot.polling;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.InjectableValues;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHEventInfo;
+import org.kohsuke.github.GitHub;
+
+/**
+ * Tests reading the payload of events deserialized the same way github-api deserializes them, i.e. by their fields.
+ * The test fails once an upgrade of github-api renames or removes the field.
+ */
+public class GHEventInfoPayloadAccessorTest {
+
+    private static final ObjectReader EVENT_INFO_READER = JsonMapper.builder()
+            .visibility(PropertyAccessor.ALL, JsonAutoDetect.Visibility.NONE)
+            .visibility(PropertyAccessor.FIELD, JsonAutoDetect.Visibility.ANY)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build()
+            .readerFor(GHEventInfo.class)
+            .with(new InjectableValues.Std().addValue(GitHub.class, GitHub.offline()));
+
+    @Test
+    void testInitialize() {
+        Assertions.assertDoesNotThrow(GHEventInfoPayloadAccessor::initialize);
+    }
+
+    @Test
+    void testPayloadOfDeserializedEvent() throws Exception {
+        GHEventInfo eventInfo = EVENT_INFO_READER.readValue("""
+                {
+                  "id": "22249084947",
+                  "type": "PullRequestEvent",
+                  "created_at": "2024-05-02T10:00:00Z",
+                  "payload": {
+                    "action": "opened",
+                    "number": 42,
+                    "pull_request": {"head": {"sha": "8c3a7e5b1d2f"}}
+                  }
+                }
+                """);
+
+        JsonNode payload = GHEventInfoPayloadAccessor.payload(eventInfo);
+        Assertions.assertEquals("opened", payload.path("action").asText());
+        Assertions.assertEquals(42, payload.path("number").asInt());
+        Assertions.assertEquals("8c3a7e5b1d2f", payload.path("pull_request").path("head").path("sha").asText());
+    }
+
+    @Test
+    void testEventWithoutPayload() throws Exception {
+        GHEventInfo eventInfo = EVENT_INFO_READER.readValue("""
+                {"id": "22249084948", "type": "PushEvent", "created_at": "2024-05-02T10:00:00Z"}
+                """);
+
+        Assertions.assertNull(GHEventInfoPayloadAccessor.payload(eventInfo));
+    }
+}
@@ -0,0 +1,105 @@
+package org.wildfly.bot.polling;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.wildfly.bot.config.WildFlyBotConfig;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the persistence of the polling cursors across restarts, i.e. across instances of the store.
+ */
+public class PollingStateStoreTest {
+
+    private static final String REPOSITORY = "wildfly/wildfly";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testRestartWithExistingStateFile() {
+        Path stateFile = directory.resolve("state/polling-state.json");
+        PollingStateStore store = store(stateFile);
+        store.advance(REPOSITORY, 42L, 1_000L);
+        store.updateFeed(REPOSITORY, "\"etag\"", 5_000L, 60L);
+        Assertions.assertTrue(Files.isRegularFile(stateFile));
+
+        RepositoryPollingState state = store(stateFile).get(REPOSITORY);
+        Assertions.assertEquals(new RepositoryPollingState(42L, 1_000L, "\"etag\"", 5_000L, 60L), state);
+        Assertions.assertFalse(state.isAfterCursor(42L, 1_000L));
+        Assertions.assertTrue(state.isAfterCursor(43L, 1_000L));
+    }
+
+    @Test
+    void testAdvanceKeepsFeed() {
+        Path stateFile = directory.resolve("polling-state.json");
+        PollingStateStore store = store(stateFile);
+        store.updateFeed(REPOSITORY, "\"etag\"", 5_000L, 60L);
+        store.advance(REPOSITORY, 42L, 1_000L);
+        store.advance(REPOSITORY, 43L, 2_000L);
+        store.updateFeed(REPOSITORY, "\"etag\"", 5_000L, 60L);
+
+        RepositoryPollingState state = store(stateFile).get(REPOSITORY);
+        Assertions.assertEquals(43L, state.lastEventId());
+        Assertions.assertEquals(2_000L, state.lastEventCreatedAt());
+        Assertions.assertEquals("\"etag\"", state.etag());
+    }
+
+    @Test
+    void testCursorIsPersistedWithFeed() {
+        Path stateFile = directory.resolve("polling-state.json");
+        PollingStateStore store = store(stateFile);
+        store.updateFeed(REPOSITORY, "\"etag\"", 5_000L, 60L);
+        store.advance(REPOSITORY, 42L, 1_000L);
+        store.advance(REPOSITORY, 43L, 2_000L);
+
+        // the cursor is moved in memory only, until the poll of the repository finishes
+        Assertions.assertEquals(43L, store.get(REPOSITORY).lastEventId());
+        Assertions.assertFalse(store(stateFile).get(REPOSITORY).hasCursor());
+
+        // the ETag is unchanged, the moved cursor is persisted nevertheless
+        store.updateFeed(REPOSITORY, "\"etag\"", 10_000L, 60L);
+        Assertions.assertEquals(43L, store(stateFile).get(REPOSITORY).lastEventId());
+    }
+
+    @Test
+    void testRestartWithoutStateFile() {
+        PollingStateStore store = store(directory.resolve("missing.json"));
+
+        Assertions.assertSame(RepositoryPollingState.EMPTY, store.get(REPOSITORY));
+        Assertions.assertFalse(store.get(REPOSITORY).hasCursor());
+    }
+
+    @Test
+    void testRestartWithCorruptedStateFile() throws Exception {
+        Path stateFile = directory.resolve("polling-state.json");
+        Files.writeString(stateFile, "{\"wildfly/wildfly\": {\"lastEventId\": ");
+
+        Assertions.assertSame(RepositoryPollingState.EMPTY, store(stateFile).get(REPOSITORY));
+    }
+
+    @Test
+    void testClearDeletesStateFile() {
+        Path stateFile = directory.resolve("polling-state.json");
+        PollingStateStore store = store(stateFile);
+        store.advance(REPOSITORY, 42L, 1_000L);
+        store.clear();
+
+        Assertions.assertFalse(Files.exists(stateFile));
+        Assertions.assertSame(RepositoryPollingState.EMPTY, store(stateFile).get(REPOSITORY));
+    }
+
+    private static PollingStateStore store(Path stateFile) {
+        WildFlyBotConfig wildFlyBotConfig = mock(WildFlyBotConfig.class);
+        when(wildFlyBotConfig.pollingStateFile()).thenReturn(stateFile.toString());
+        PollingStateStore store = new PollingStateStore();
+        store.wildFlyBotConfig = wildFlyBotConfig;
+        store.load();
+        return store;
+    }
+}
@@ -0,0 +1,86 @@
+package org.wildfly.bot.polling;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkus.runtime.LaunchMode;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHEventPayload;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.GitHub;
+
+import java.io.StringReader;
+import java.net.URI;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the {@code repository} object grafted into polled payloads, which is skipped by the default
+ * preprocessor in the test mode.
+ */
+public class RepositoryNodeTest {
+
+    @Test
+    void testSnakeCaseFields() throws Exception {
+        RepositoryNode repositoryNode = new RepositoryNode(repository());
+        JsonNode node = repositoryNode.get();
+
+        Assertions.assertEquals(123L, node.get("id").asLong());
+        Assertions.assertEquals("wildfly", node.get("name").asText());
+        Assertions.assertEquals("wildfly/wildfly", node.get("full_name").asText());
+        Assertions.assertEquals("main", node.get("default_branch").asText());
+        Assertions.assertEquals("https://github.com/wildfly/wildfly", node.get("html_url").asText());
+        Assertions.assertEquals("wildfly", node.get("owner").get("login").asText());
+        Assertions.assertFalse(node.get("private").asBoolean());
+        Assertions.assertFalse(node.has("fullName"));
+    }
+
+    @Test
+    void testConvertedOncePerCycle() throws Exception {
+        GHRepository repository = repository();
+        RepositoryNode repositoryNode = new RepositoryNode(repository);
+
+        Assertions.assertSame(repositoryNode.get(), repositoryNode.get());
+        verify(repository, times(1)).getFullName();
+    }
+
+    @Test
+    void testPolledPayloadIsParsedLikeWebhookPayload() throws Exception {
+        GitHubEventPreprocessor.DefaultGitHubEventPreprocessor preprocessor =
+                new GitHubEventPreprocessor.DefaultGitHubEventPreprocessor();
+        preprocessor.launchMode = LaunchMode.NORMAL;
+        ObjectNode payload = GitHubEventPreprocessor.objectMapper.createObjectNode()
+                .put("ref", "refs/heads/main")
+                .put("head", "8c3a7e5b1d2f");
+        GitHubEventEnvelope envelope = new GitHubEventEnvelope(1L, "wildfly/wildfly", "push", null, payload,
+                new RepositoryNode(repository()));
+
+        preprocessor.process(envelope, null);
+        GitHubEvent gitHubEvent = envelope.toGitHubEvent();
+
+        JsonObject repository = gitHubEvent.getParsedPayload().getJsonObject("repository");
+        Assertions.assertEquals("wildfly/wildfly", repository.getString("full_name"));
+        GHEventPayload.Push push = GitHub.offline().parseEventPayload(new StringReader(gitHubEvent.getPayload()),
+                GHEventPayload.Push.class);
+        Assertions.assertEquals("wildfly/wildfly", push.getRepository().getFullName());
+        Assertions.assertEquals("main", push.getRepository().getDefaultBranch());
+    }
+
+    private static GHRepository repository() throws Exception {
+        GHRepository repository = mock(GHRepository.class);
+        when(repository.getId()).thenReturn(123L);
+        when(repository.getNodeId()).thenReturn("R_kgDOAAAAew");
+        when(repository.getName()).thenReturn("wildfly");
+        when(repository.getFullName()).thenReturn("wildfly/wildfly");
+        when(repository.getOwnerName()).thenReturn("wildfly");
+        when(repository.getDefaultBranch()).thenReturn("main");
+        when(repository.getUrl()).thenReturn(URI.create("https://api.github.com/repos/wildfly/wildfly").toURL());
+        when(repository.getHtmlUrl()).thenReturn(URI.create("https://github.com/wildfly/wildfly").toURL());
+        return repository;
+    }
+}
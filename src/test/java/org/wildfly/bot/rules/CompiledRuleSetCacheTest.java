@@ -0,0 +1,92 @@
+package org.wildfly.bot.rules;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.wildfly.bot.model.WildFlyConfigFile;
+import org.wildfly.bot.model.WildFlyConfigFile.WildFlyRule;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Tests the rule sets being compiled once per version of the rules.
+ */
+public class CompiledRuleSetCacheTest {
+
+    private CompiledRuleSetCache cache;
+
+    @BeforeEach
+    void setup() {
+        cache = new CompiledRuleSetCache();
+    }
+
+    @Test
+    void testSameRulesAreCompiledOnce() {
+        CompiledRuleSet ruleSet = cache.get(configFile(rule -> {
+        }));
+
+        Assertions.assertSame(ruleSet, cache.get(configFile(rule -> {
+        })));
+    }
+
+    @Test
+    void testDigestChangesWithEveryField() {
+        String digest = cache.get(configFile(rule -> {
+        })).digest();
+
+        List<Consumer<WildFlyRule>> changes = List.of(
+                rule -> rule.id = "jpa",
+                rule -> rule.title = "JPA",
+                rule -> rule.body = "JPA",
+                rule -> rule.titleBody = "JPA",
+                rule -> rule.directories.add("jpa"),
+                rule -> rule.notify.add("Duke"),
+                rule -> rule.labels.add("jpa"));
+        for (Consumer<WildFlyRule> change : changes) {
+            Assertions.assertNotEquals(digest, cache.get(configFile(change)).digest());
+        }
+    }
+
+    @Test
+    void testDigestDistinguishesNeighbouringFields() {
+        String titleDigest = cache.get(configFile(rule -> rule.title = "EJB")).digest();
+        String bodyDigest = cache.get(configFile(rule -> {
+            rule.title = null;
+            rule.body = "EJB";
+        })).digest();
+
+        Assertions.assertNotEquals(titleDigest, bodyDigest);
+    }
+
+    @Test
+    void testLeastRecentlyUsedRuleSetIsEvicted() {
+        CompiledRuleSet first = cache.get(configFile(rule -> rule.id = "first"));
+        CompiledRuleSet second = cache.get(configFile(rule -> rule.id = "second"));
+        for (int i = 0; i < CompiledRuleSetCache.MAX_RULE_SETS - 2; i++) {
+            String id = "rule" + i;
+            cache.get(configFile(rule -> rule.id = id));
+        }
+        // the first rule set is used again, thus the second one is the least recently used
+        Assertions.assertSame(first, cache.get(configFile(rule -> rule.id = "first")));
+        cache.get(configFile(rule -> rule.id = "last"));
+
+        Assertions.assertSame(first, cache.get(configFile(rule -> rule.id = "first")));
+        CompiledRuleSet recompiled = cache.get(configFile(rule -> rule.id = "second"));
+        Assertions.assertNotSame(second, recompiled);
+        Assertions.assertEquals(second.digest(), recompiled.digest());
+    }
+
+    private static WildFlyConfigFile configFile(Consumer<WildFlyRule> change) {
+        WildFlyRule rule = new WildFlyRule();
+        rule.id = "ejb";
+        rule.title = "EJB";
+        rule.directories.add("ejb3");
+        rule.notify.add("Tadpole");
+        change.accept(rule);
+
+        WildFlyConfigFile configFile = new WildFlyConfigFile();
+        configFile.wildfly.rules.add(rule);
+        return configFile;
+    }
+}
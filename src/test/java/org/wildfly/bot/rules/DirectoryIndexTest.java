@@ -0,0 +1,68 @@
+package org.wildfly.bot.rules;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Tests the trie of directories against the prefix check of every directory on its own.
+ */
+public class DirectoryIndexTest {
+
+    private static final List<String> DIRECTORIES = List.of("ejb3", "ejb3/src/main", "ejb3/src/main/", "ee",
+            "testsuite/integration/basic/", "testsuite/integration", "docs/src/main/asciidoc", "weld/common");
+
+    private static final List<String> FILES = List.of(
+            "ejb3/pom.xml",
+            "ejb3/src/main/java/org/jboss/as/ejb3/Component.java",
+            "ejb3/src/test/java/Test.java",
+            "ejb3",
+            "ejb3-client/pom.xml",
+            "ee/src/main/java/A.java",
+            "eesecurity/pom.xml",
+            "testsuite/integration/basic/pom.xml",
+            "testsuite/integration/pom.xml",
+            "testsuite/integration",
+            "testsuite/pom.xml",
+            "docs/src/main/asciidoc/guide.adoc",
+            "docs/src/main/asciidoc",
+            "weld/pom.xml",
+            "weld/common/src/main/java/Weld.java",
+            "pom.xml",
+            "");
+
+    @Test
+    void testSameMatchesAsPrefixes() {
+        DirectoryIndex directoryIndex = new DirectoryIndex();
+        for (int rule = 0; rule < DIRECTORIES.size(); rule++) {
+            directoryIndex.add(DIRECTORIES.get(rule), rule);
+        }
+
+        for (String file : FILES) {
+            BitSet expected = new BitSet();
+            for (int rule = 0; rule < DIRECTORIES.size(); rule++) {
+                String directory = DIRECTORIES.get(rule);
+                if (file.startsWith(directory.endsWith("/") ? directory : directory + "/")) {
+                    expected.set(rule);
+                }
+            }
+            BitSet matched = new BitSet();
+            directoryIndex.match(file, matched);
+            Assertions.assertEquals(expected, matched, "Directories containing [" + file + "]");
+        }
+    }
+
+    @Test
+    void testSeveralDirectoriesOfRule() {
+        DirectoryIndex directoryIndex = new DirectoryIndex();
+        directoryIndex.add("ejb3", 0);
+        directoryIndex.add("ee", 0);
+        directoryIndex.add("ee/src", 1);
+
+        BitSet matched = new BitSet();
+        directoryIndex.match("ee/src/main/java/A.java", matched);
+        Assertions.assertEquals(BitSet.valueOf(new long[] { 0b11 }), matched);
+    }
+}
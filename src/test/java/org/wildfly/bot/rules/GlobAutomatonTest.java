@@ -0,0 +1,158 @@
+package org.wildfly.bot.rules;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * Tests the combined glob automaton against a pattern per glob, which matches the file or any of its
+ * parent directories.
+ */
+public class GlobAutomatonTest {
+
+    private static final List<String> GLOBS = List.of(
+            "ejb3/src/main/java/**/*Bean.java",
+            "ejb3/*/src/test/**",
+            "**/resources/*.xml",
+            "**/weld/",
+            "testsuite/**",
+            "testsuite/**/messaging/?ms",
+            "clustering/[a-m]*/src",
+            "clustering/[!a-m]*/src",
+            "docs/[^0-9]*.adoc",
+            "literal\\*star/*",
+            "*",
+            "**");
+
+    private static final List<String> PATHS = List.of(
+            "ejb3/src/main/java/org/jboss/as/ejb3/ComponentBean.java",
+            "ejb3/src/main/java/ComponentBean.java",
+            "ejb3/src/main/java/org/Component.java",
+            "ejb3/src/main/javax/ComponentBean.java",
+            "ejb3/api/src/test/java/Test.java",
+            "ejb3/api/impl/src/test/java/Test.java",
+            "ee/src/main/resources/subsystem.xml",
+            "ee/src/main/resources/nested/subsystem.xml",
+            "resources/subsystem.xml",
+            "weld/common/pom.xml",
+            "weld",
+            "microprofile/weld/Weld.java",
+            "testsuite/pom.xml",
+            "testsuite",
+            "testsuite/integration/messaging/jms/Test.java",
+            "testsuite/messaging/jms",
+            "testsuite/messaging/jmsx",
+            "clustering/common/src/main/java/A.java",
+            "clustering/web/src/main/java/A.java",
+            "clustering/Web/src",
+            "docs/guide.adoc",
+            "docs/1guide.adoc",
+            "literal*star/file",
+            "literalxstar/file",
+            "pom.xml",
+            "");
+
+    @Test
+    void testSameMatchesAsPatterns() {
+        GlobAutomaton automaton = automaton(GLOBS);
+        List<Pattern> patterns = GLOBS.stream().map(GlobAutomatonTest::pattern).toList();
+
+        for (String path : PATHS) {
+            BitSet matched = new BitSet();
+            automaton.match(path, matched);
+            Assertions.assertEquals(expected(patterns, path), matched, "Globs matched by [" + path + "]");
+        }
+    }
+
+    @Test
+    void testDoubleStar() {
+        GlobAutomaton automaton = automaton(List.of("a/**/b", "a/**b", "a/**"));
+
+        Assertions.assertEquals(BitSet.valueOf(new long[] { 0b111 }), match(automaton, "a/b"));
+        Assertions.assertEquals(BitSet.valueOf(new long[] { 0b111 }), match(automaton, "a/x/y/b/file"));
+        Assertions.assertEquals(BitSet.valueOf(new long[] { 0b110 }), match(automaton, "a/xb"));
+        Assertions.assertEquals(new BitSet(), match(automaton, "a"));
+        Assertions.assertEquals(new BitSet(), match(automaton, "ab/b"));
+    }
+
+    @Test
+    void testStateLimit() {
+        List<String> globs = new ArrayList<>();
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            globs.add("module-%d/src/main/**/package%d/*.java".formatted(i, i));
+            paths.add("module-%d/src/main/java/org/package%d/Class.java".formatted(i, i));
+            paths.add("module-%d/src/main/package%d/sub/Class.java".formatted(i, i));
+            paths.add("module-%d/src/main/java/package%d.java".formatted(i, i));
+        }
+        GlobAutomaton automaton = automaton(globs);
+        List<Pattern> patterns = globs.stream().map(GlobAutomatonTest::pattern).toList();
+
+        // the second pass reuses the kept states, and builds the others for the current path only
+        for (int pass = 0; pass < 2; pass++) {
+            for (String path : paths) {
+                Assertions.assertEquals(expected(patterns, path), match(automaton, path), "Globs matched by [" + path + "]");
+            }
+        }
+        Assertions.assertEquals(GlobAutomaton.MAX_STATES, automaton.size());
+    }
+
+    private static GlobAutomaton automaton(List<String> globs) {
+        GlobAutomaton.Builder builder = GlobAutomaton.builder();
+        for (int rule = 0; rule < globs.size(); rule++) {
+            builder.add(globs.get(rule), rule);
+        }
+        return builder.build();
+    }
+
+    private static BitSet match(GlobAutomaton automaton, String path) {
+        BitSet matched = new BitSet();
+        automaton.match(path, matched);
+        return matched;
+    }
+
+    private static BitSet expected(List<Pattern> patterns, String path) {
+        BitSet expected = new BitSet();
+        for (int rule = 0; rule < patterns.size(); rule++) {
+            if (patterns.get(rule).matcher(path).matches()) {
+                expected.set(rule);
+            }
+        }
+        return expected;
+    }
+
+    // the glob matches the file or any of its parent directories
+    private static Pattern pattern(String glob) {
+        String pattern = glob.endsWith("/") ? glob.substring(0, glob.length() - 1) : glob;
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < pattern.length(); i++) {
+            char c = pattern.charAt(i);
+            if (c == '\\') {
+                regex.append(Pattern.quote(String.valueOf(pattern.charAt(++i))));
+            } else if (pattern.startsWith("**/", i)) {
+                regex.append("(?:.*/)?");
+                i += 2;
+            } else if (pattern.startsWith("**", i)) {
+                regex.append(".*");
+                i++;
+            } else if (c == '*') {
+                regex.append("[^/]*");
+            } else if (c == '?') {
+                regex.append("[^/]");
+            } else if (c == '[') {
+                int end = pattern.indexOf(']', i);
+                String members = pattern.substring(i + 1, end);
+                boolean negated = members.startsWith("!") || members.startsWith("^");
+                regex.append(negated ? "[^/" + members.substring(1) : "[" + members).append(']');
+                i = end;
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.append("(?:/.*)?").toString());
+    }
+}
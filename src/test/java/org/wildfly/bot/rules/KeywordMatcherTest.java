@@ -0,0 +1,112 @@
+package org.wildfly.bot.rules;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.wildfly.bot.util.Patterns;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Tests the single pass keyword matching against the pattern of every keyword matched on its own.
+ */
+public class KeywordMatcherTest {
+
+    private static final List<String> KEYWORDS = List.of("ejb", "EJB3", "jms", "jms bridge", "bridge", "c++", "ejb_",
+            "jpa|hibernate", "[Ww]eld", "élytron", "naïve", "security manager", "a", "fix.");
+
+    private static final List<String> TEXTS = List.of(
+            "EJB fix",
+            "ejb3 remoting",
+            "Ejb-client upgrade",
+            "the ejb_module is broken",
+            "ejbs are not ejb",
+            "(ejb)",
+            "xejb ejbx",
+            "JMS Bridge leaks connections",
+            "jmsbridge",
+            "Upgrade Hibernate ORM",
+            "weld and WELD",
+            "Élytron, élytron and ÉLYTRON",
+            "naïve ejb",
+            "ejb́ combining mark",
+            "security  manager",
+            "Security\nManager",
+            "a",
+            "ab a",
+            "c++ is not a keyword",
+            "fix. fix.",
+            "");
+
+    @Test
+    void testSameMatchesAsPatterns() {
+        KeywordMatcher.Builder builder = KeywordMatcher.builder();
+        for (int rule = 0; rule < KEYWORDS.size(); rule++) {
+            builder.add(KEYWORDS.get(rule), rule);
+        }
+        KeywordMatcher matcher = builder.build();
+
+        for (String text : TEXTS) {
+            BitSet expected = new BitSet();
+            for (int rule = 0; rule < KEYWORDS.size(); rule++) {
+                if (CompiledRule.compileKeyword(KEYWORDS.get(rule)).matcher(text).find()) {
+                    expected.set(rule);
+                }
+            }
+            BitSet matched = new BitSet();
+            matcher.match(text, matched, null);
+            Assertions.assertEquals(expected, matched, "Keywords matched in [" + text + "]");
+        }
+    }
+
+    @Test
+    void testWordBoundaries() {
+        KeywordMatcher matcher = KeywordMatcher.builder().add("ejb", 0).build();
+
+        Assertions.assertTrue(match(matcher, "[ejb] fix"));
+        Assertions.assertTrue(match(matcher, "ejb"));
+        Assertions.assertFalse(match(matcher, "ejb3"));
+        Assertions.assertFalse(match(matcher, "ejb_client"));
+        Assertions.assertFalse(match(matcher, "ejbejb"));
+    }
+
+    @Test
+    void testCaseFoldingOfAsciiOnly() {
+        KeywordMatcher matcher = KeywordMatcher.builder().add("naïve", 0).build();
+
+        Assertions.assertTrue(match(matcher, "Naïve"));
+        Assertions.assertTrue(match(matcher, "NAïVE"));
+        // CASE_INSENSITIVE without UNICODE_CASE does not fold Ï
+        Assertions.assertFalse(match(matcher, "NAÏVE"));
+    }
+
+    @Test
+    void testSameRuleWithSeveralKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.builder().add("ejb", 0).add("jms", 0).add(" ", 1).build();
+
+        BitSet matched = new BitSet();
+        matcher.match("jms", matched, null);
+        Assertions.assertEquals(BitSet.valueOf(new long[] { 1 }), matched);
+        Assertions.assertFalse(matcher.isEmpty());
+        Assertions.assertTrue(KeywordMatcher.builder().add(" ", 0).build().isEmpty());
+    }
+
+    @Test
+    void testAbortedPatternDoesNotBlockOtherRules() {
+        KeywordMatcher matcher = KeywordMatcher.builder().add("(a+)+$", 0).add("ejb", 1).add("ejb|jms", 2).build();
+        Counter aborted = Patterns.abortedCounter(new SimpleMeterRegistry());
+
+        BitSet matched = new BitSet();
+        matcher.match("ejb " + "a".repeat(5_000) + "!", matched, aborted);
+        Assertions.assertEquals(BitSet.valueOf(new long[] { 0b110 }), matched);
+        Assertions.assertEquals(1, aborted.count());
+    }
+
+    private static boolean match(KeywordMatcher matcher, String text) {
+        BitSet matched = new BitSet();
+        matcher.match(text, matched, null);
+        return matched.get(0);
+    }
+}
@@ -0,0 +1,153 @@
+package org.wildfly.bot.rules;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.wildfly.bot.model.WildFlyConfigFile;
+
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Tests the evaluations being reused only while nothing they depend on has changed.
+ */
+public class RuleEvaluationCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private RuleEvaluationCache cache;
+    private CompiledRuleSet ruleSet;
+    private int evaluated;
+
+    @BeforeEach
+    void setup() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new RuleEvaluationCache();
+        cache.meterRegistry = meterRegistry;
+        cache.init();
+        ruleSet = ruleSet("ejb");
+    }
+
+    @Test
+    void testSameEventIsEvaluatedOnce() throws IOException {
+        get(event(pullRequest -> {
+        }), ruleSet);
+        get(event(pullRequest -> {
+        }), ruleSet);
+
+        Assertions.assertEquals(1, evaluated);
+        Assertions.assertEquals(1, count("hit"));
+        Assertions.assertEquals(1, count("miss"));
+    }
+
+    @Test
+    void testKeyChangesWithEveryInput() throws IOException {
+        GitHubEvent gitHubEvent = event(pullRequest -> {
+        });
+        get(gitHubEvent, ruleSet);
+
+        List<Consumer<JsonObject>> changes = List.of(
+                pullRequest -> pullRequest.put("title", "WFLY-456 Fix timers"),
+                pullRequest -> pullRequest.put("body", "Fixes the timers of EJBs"),
+                pullRequest -> pullRequest.getJsonObject("head").put("sha", "f2d1b5e7a3c8"),
+                pullRequest -> pullRequest.getJsonObject("base").put("ref", "36.x"),
+                pullRequest -> pullRequest.put("number", 2));
+        for (Consumer<JsonObject> change : changes) {
+            int before = evaluated;
+            get(event(change), ruleSet);
+            Assertions.assertEquals(before + 1, evaluated);
+        }
+
+        int before = evaluated;
+        get(gitHubEvent, ruleSet("jpa"));
+        Assertions.assertEquals(before + 1, evaluated);
+
+        // the original inputs are still remembered
+        before = evaluated;
+        get(gitHubEvent, ruleSet);
+        Assertions.assertEquals(before, evaluated);
+    }
+
+    @Test
+    void testEventWithoutHeadIsNotRemembered() throws IOException {
+        GitHubEvent gitHubEvent = event(pullRequest -> pullRequest.remove("head"));
+        get(gitHubEvent, ruleSet);
+        get(gitHubEvent, ruleSet);
+
+        Assertions.assertEquals(2, evaluated);
+    }
+
+    @Test
+    void testRememberedEvaluationIsCopied() throws IOException {
+        GitHubEvent gitHubEvent = event(pullRequest -> {
+        });
+        get(gitHubEvent, ruleSet).labels().add("jpa");
+
+        Assertions.assertFalse(get(gitHubEvent, ruleSet).labels().contains("jpa"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEvaluationIsEvicted() throws IOException {
+        GitHubEvent first = event(pullRequest -> pullRequest.put("number", 1));
+        GitHubEvent second = event(pullRequest -> pullRequest.put("number", 2));
+        get(first, ruleSet);
+        get(second, ruleSet);
+        for (int i = 0; i < RuleEvaluationCache.MAX_EVALUATIONS - 2; i++) {
+            int number = 100 + i;
+            get(event(pullRequest -> pullRequest.put("number", number)), ruleSet);
+        }
+        // the first evaluation is used again, thus the second one is the least recently used
+        get(first, ruleSet);
+        get(event(pullRequest -> pullRequest.put("number", 3)), ruleSet);
+
+        int before = evaluated;
+        get(first, ruleSet);
+        Assertions.assertEquals(before, evaluated);
+        get(second, ruleSet);
+        Assertions.assertEquals(before + 1, evaluated);
+    }
+
+    private RuleEvaluation get(GitHubEvent gitHubEvent, CompiledRuleSet ruleSet) throws IOException {
+        return cache.get(gitHubEvent, ruleSet, () -> {
+            evaluated++;
+            BitSet matchedRules = new BitSet();
+            matchedRules.set(0);
+            return new RuleEvaluation(matchedRules, new LinkedHashMap<>(), new HashSet<>(), new HashSet<>());
+        });
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("wildfly.bot.rules.evaluations").tag("result", result).counter().count();
+    }
+
+    private static CompiledRuleSet ruleSet(String directory) {
+        WildFlyConfigFile.WildFlyRule rule = new WildFlyConfigFile.WildFlyRule();
+        rule.id = directory;
+        rule.directories.add(directory);
+        WildFlyConfigFile configFile = new WildFlyConfigFile();
+        configFile.wildfly.rules.add(rule);
+        return new CompiledRuleSetCache().get(configFile);
+    }
+
+    private static GitHubEvent event(Consumer<JsonObject> change) {
+        JsonObject pullRequest = new JsonObject()
+                .put("number", 1)
+                .put("title", "WFLY-123 Fix timers")
+                .put("body", "Fixes the timers")
+                .put("head", new JsonObject().put("sha", "8c3a7e5b1d2f"))
+                .put("base", new JsonObject().put("ref", "main"));
+        change.accept(pullRequest);
+        JsonObject payload = new JsonObject()
+                .put("action", "reopened")
+                .put("pull_request", pullRequest);
+        return new SimpleGitHubEvent(1L, null, "72d3162e-cc78-11e3-81ab-4c9367dc0958", "wildfly/wildfly",
+                "pull_request", "reopened", payload.encode(), payload, false);
+    }
+}
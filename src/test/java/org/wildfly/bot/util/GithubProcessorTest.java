@@ -0,0 +1,108 @@
+package org.wildfly.bot.util;
+
+import io.quarkiverse.githubapp.GitHubEvent;
+import io.quarkiverse.githubapp.runtime.SimpleGitHubEvent;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHCommitPointer;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHPullRequestCommitDetail;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.PagedIterable;
+import org.kohsuke.github.PagedIterator;
+import org.wildfly.bot.history.BaseBranchIndex;
+import org.wildfly.bot.history.GitMirror;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the lookup of commits of a pull request in its base branch through the {@link GitMirror}.
+ */
+public class GithubProcessorTest {
+
+    private static final String REPOSITORY = "wildfly/wildfly";
+    private static final String BASE_SHA = "5db0f8e923d84fe05a60658ed5bb95f7aa23b66f";
+    private static final String OLDEST_SHA = "1f2e3d4c5b6a79880716253443526170a9b8c7d6";
+    private static final String NEWEST_SHA = "0a1b2c3d4e5f60718293a4b5c6d7e8f901234567";
+
+    private GithubProcessor githubProcessor;
+    private GHPullRequest pullRequest;
+    private PagedIterator<GHPullRequestCommitDetail> prCommits;
+    private GHRepository repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() {
+        githubProcessor = new GithubProcessor();
+        githubProcessor.gitMirror = mock(GitMirror.class);
+        githubProcessor.baseBranchIndex = mock(BaseBranchIndex.class);
+        when(githubProcessor.gitMirror.isEnabled()).thenReturn(true);
+
+        pullRequest = mock(GHPullRequest.class);
+        GHCommitPointer base = mock(GHCommitPointer.class);
+        when(base.getRef()).thenReturn("main");
+        when(pullRequest.getBase()).thenReturn(base);
+
+        GHPullRequestCommitDetail oldest = mock(GHPullRequestCommitDetail.class);
+        when(oldest.getSha()).thenReturn(OLDEST_SHA);
+        GHPullRequestCommitDetail newest = mock(GHPullRequestCommitDetail.class);
+        when(newest.getSha()).thenReturn(NEWEST_SHA);
+        PagedIterable<GHPullRequestCommitDetail> commits = mock(PagedIterable.class);
+        prCommits = mock(PagedIterator.class);
+        when(prCommits.hasNext()).thenReturn(true, true, false);
+        when(prCommits.next()).thenReturn(oldest, newest);
+        when(commits.iterator()).thenReturn(prCommits);
+        when(pullRequest.listCommits()).thenReturn(commits);
+
+        repository = mock(GHRepository.class);
+    }
+
+    @Test
+    void testOldestCommitInBase() throws Exception {
+        when(githubProcessor.gitMirror.isMerged(REPOSITORY, OLDEST_SHA, BASE_SHA)).thenReturn(Optional.of(true));
+
+        Assertions.assertTrue(githubProcessor.hasDuplicateCommitInBase(pullRequest, repository, event()));
+        verifyOldestCommitOnly();
+    }
+
+    @Test
+    void testOldestCommitNotInBase() throws Exception {
+        when(githubProcessor.gitMirror.isMerged(REPOSITORY, OLDEST_SHA, BASE_SHA)).thenReturn(Optional.of(false));
+
+        Assertions.assertFalse(githubProcessor.hasDuplicateCommitInBase(pullRequest, repository, event()));
+        verifyOldestCommitOnly();
+        verifyNoMoreInteractions(repository);
+    }
+
+    @Test
+    void testFallbackToIndex() throws Exception {
+        when(githubProcessor.gitMirror.isMerged(anyString(), anyString(), anyString())).thenReturn(Optional.empty());
+
+        Assertions.assertFalse(githubProcessor.hasDuplicateCommitInBase(pullRequest, repository, event()));
+        verify(githubProcessor.baseBranchIndex).get(REPOSITORY, "main");
+        verify(repository).queryCommits();
+    }
+
+    private void verifyOldestCommitOnly() {
+        verify(prCommits, times(1)).next();
+        verify(githubProcessor.gitMirror).isEnabled();
+        verify(githubProcessor.gitMirror).isMerged(REPOSITORY, OLDEST_SHA, BASE_SHA);
+        verifyNoMoreInteractions(githubProcessor.gitMirror, githubProcessor.baseBranchIndex);
+    }
+
+    private static GitHubEvent event() {
+        JsonObject payload = new JsonObject().put("pull_request", new JsonObject()
+                .put("base", new JsonObject().put("sha", BASE_SHA)));
+        return new SimpleGitHubEvent(1L, null, null, REPOSITORY, "pull_request", "synchronize", payload.encode(),
+                payload, false);
+    }
+}
@@ -0,0 +1,109 @@
+package org.wildfly.bot.util;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHCommit;
+import org.kohsuke.github.GHCompare;
+import org.kohsuke.github.GHRepository;
+import org.wildfly.bot.model.WildFlyConfigFile;
+import org.wildfly.bot.rules.CompiledRuleSet;
+import org.wildfly.bot.rules.CompiledRuleSetCache;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests the directory rules matched incrementally by the files changed between two heads of a pull request.
+ */
+public class MatcherTest {
+
+    private static final String BEFORE = "5db0f8e923d84fe05a60658ed5bb95f7aa23b66f";
+    private static final String AFTER = "a6bdb7dcc0e85281a7c699efea03c1ddfba6391b";
+
+    private static final int EJB = 0;
+    private static final int JPA = 1;
+
+    private CompiledRuleSet ruleSet;
+    private GHRepository repository;
+    private BitSet previous;
+
+    @BeforeEach
+    void setup() {
+        WildFlyConfigFile configFile = new WildFlyConfigFile();
+        configFile.wildfly.rules.add(rule("ejb", "ejb3"));
+        configFile.wildfly.rules.add(rule("jpa", "jpa"));
+        ruleSet = new CompiledRuleSetCache().get(configFile);
+        repository = mock(GHRepository.class);
+        // the previous head changed ejb3/src/main/java/Feature.java
+        previous = new BitSet();
+        previous.set(EJB);
+    }
+
+    @Test
+    void testFileOfNewDirectory() throws Exception {
+        compare(file("jpa/src/main/java/Entity.java", "added", null));
+
+        BitSet expected = new BitSet();
+        expected.set(EJB);
+        expected.set(JPA);
+        Assertions.assertEquals(Optional.of(expected),
+                Matcher.notifyRequestReview(repository, BEFORE, AFTER, ruleSet, previous));
+    }
+
+    @Test
+    void testRevertedFile() throws Exception {
+        // the push reverts the only file of the ejb rule, which is thus not matched anymore
+        compare(file("ejb3/src/main/java/Feature.java", "modified", null),
+                file("jpa/src/main/java/Entity.java", "added", null));
+
+        Assertions.assertEquals(Optional.empty(),
+                Matcher.notifyRequestReview(repository, BEFORE, AFTER, ruleSet, previous));
+    }
+
+    @Test
+    void testRemovedFile() throws Exception {
+        compare(file("docs/Feature.adoc", "removed", null));
+
+        Assertions.assertEquals(Optional.empty(),
+                Matcher.notifyRequestReview(repository, BEFORE, AFTER, ruleSet, previous));
+    }
+
+    @Test
+    void testFileRenamedFromMatchedDirectory() throws Exception {
+        compare(file("docs/Feature.java", "renamed", "ejb3/src/main/java/Feature.java"));
+
+        Assertions.assertEquals(Optional.empty(),
+                Matcher.notifyRequestReview(repository, BEFORE, AFTER, ruleSet, previous));
+    }
+
+    private void compare(GHCommit.File... files) throws Exception {
+        GHCompare.Commit commit = mock(GHCompare.Commit.class);
+        when(commit.getParentSHA1s()).thenReturn(List.of(BEFORE));
+        GHCompare compare = mock(GHCompare.class);
+        when(compare.getStatus()).thenReturn(GHCompare.Status.ahead);
+        when(compare.getTotalCommits()).thenReturn(1);
+        when(compare.getCommits()).thenReturn(new GHCompare.Commit[] { commit });
+        when(compare.getFiles()).thenReturn(files);
+        when(repository.getCompare(BEFORE, AFTER)).thenReturn(compare);
+    }
+
+    private static GHCommit.File file(String filename, String status, String previousFilename) {
+        GHCommit.File file = mock(GHCommit.File.class);
+        when(file.getFileName()).thenReturn(filename);
+        when(file.getStatus()).thenReturn(status);
+        when(file.getPreviousFilename()).thenReturn(previousFilename);
+        return file;
+    }
+
+    private static WildFlyConfigFile.WildFlyRule rule(String id, String directory) {
+        WildFlyConfigFile.WildFlyRule rule = new WildFlyConfigFile.WildFlyRule();
+        rule.id = id;
+        rule.directories.add(directory);
+        return rule;
+    }
+}
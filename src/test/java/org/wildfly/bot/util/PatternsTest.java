@@ -0,0 +1,47 @@
+package org.wildfly.bot.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.regex.Pattern;
+
+/**
+ * Tests the step budget of matching user supplied patterns.
+ */
+public class PatternsTest {
+
+    private static final String NON_MATCHING = "a".repeat(5_000) + "!";
+
+    private Counter aborted;
+
+    @BeforeEach
+    void setup() {
+        aborted = Patterns.abortedCounter(new SimpleMeterRegistry());
+    }
+
+    @Test
+    void testCatastrophicBacktrackingIsAborted() {
+        Pattern pattern = Pattern.compile("(a+)+$");
+
+        RegexBudgetExceededException e = Assertions.assertThrows(RegexBudgetExceededException.class,
+                () -> Patterns.matches(pattern, NON_MATCHING, aborted));
+        Assertions.assertTrue(e.getMessage().contains(String.valueOf(Patterns.STEPS_PER_CHARACTER * NON_MATCHING.length())));
+        Assertions.assertEquals(1, aborted.count());
+    }
+
+    @Test
+    void testLinearPatternIsNotAborted() {
+        Assertions.assertFalse(Patterns.matches(Pattern.compile("^a+b"), NON_MATCHING, aborted));
+        Assertions.assertTrue(Patterns.matches(Pattern.compile("a+!"), NON_MATCHING, aborted));
+        Assertions.assertEquals(0, aborted.count());
+    }
+
+    @Test
+    void testAbortWithoutCounter() {
+        Assertions.assertThrows(RegexBudgetExceededException.class,
+                () -> Patterns.matcher(Pattern.compile("(a+)+$"), NON_MATCHING, null).find());
+    }
+}
@@ -0,0 +1,120 @@
+package org.wildfly.bot.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.kohsuke.github.GHCommitPointer;
+import org.kohsuke.github.GHEventPayload;
+import org.kohsuke.github.GHIssueState;
+import org.kohsuke.github.GHPullRequest;
+import org.kohsuke.github.GHPullRequestQueryBuilder;
+import org.kohsuke.github.GHRepository;
+import org.kohsuke.github.PagedIterable;
+import org.wildfly.bot.config.WildFlyBotConfig;
+import org.wildfly.bot.history.GitMirror;
+import org.wildfly.bot.model.RuntimeConstants;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests that a scan of the mergeable status, which is cancelled by a push of a new head, does not label pull
+ * requests anymore, even though their merges are running already.
+ */
+public class PullRequestMergableProcessorTest {
+
+    private static final String REPOSITORY = "wildfly/wildfly";
+    private static final String FIRST_HEAD = "5db0f8e923d84fe05a60658ed5bb95f7aa23b66f";
+    private static final String SECOND_HEAD = "a6bdb7dcc0e85281a7c699efea03c1ddfba6391b";
+    private static final String PULL_REQUEST_HEAD = "1f2e3d4c5b6a79880716253443526170a9b8c7d6";
+
+    private PullRequestMergableProcessor processor;
+    private SimpleMeterRegistry meterRegistry;
+    private GHPullRequest pullRequest;
+    private GHRepository repository;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setup() throws Exception {
+        processor = new PullRequestMergableProcessor();
+        processor.githubProcessor = mock(GithubProcessor.class);
+        processor.wildFlyBotConfig = mock(WildFlyBotConfig.class);
+        processor.gitMirror = mock(GitMirror.class);
+        meterRegistry = new SimpleMeterRegistry();
+        processor.meterRegistry = meterRegistry;
+        processor.init();
+        when(processor.wildFlyBotConfig.mergableStatusUpdateLocal()).thenReturn(true);
+        when(processor.gitMirror.isEnabled()).thenReturn(true);
+
+        pullRequest = mock(GHPullRequest.class);
+        GHCommitPointer head = mock(GHCommitPointer.class);
+        when(head.getSha()).thenReturn(PULL_REQUEST_HEAD);
+        when(pullRequest.getHead()).thenReturn(head);
+        when(pullRequest.getNumber()).thenReturn(1);
+
+        repository = mock(GHRepository.class);
+        GHPullRequestQueryBuilder query = mock(GHPullRequestQueryBuilder.class);
+        PagedIterable<GHPullRequest> pullRequests = mock(PagedIterable.class);
+        when(repository.queryPullRequests()).thenReturn(query);
+        when(query.state(GHIssueState.OPEN)).thenReturn(query);
+        when(query.base(RuntimeConstants.MAIN_BRANCH)).thenReturn(query);
+        when(query.list()).thenReturn(pullRequests);
+        when(pullRequests.toList()).thenReturn(List.of(pullRequest));
+    }
+
+    @Test
+    void testTwoQuickPushes() throws Exception {
+        GHEventPayload.Push secondPush = push(SECOND_HEAD);
+        // the second head is pushed while the pull request is being merged into the first one
+        when(processor.gitMirror.isMergeable(REPOSITORY, FIRST_HEAD, PULL_REQUEST_HEAD)).thenAnswer(invocation -> {
+            processor.addPushPayload(secondPush, REPOSITORY);
+            return Optional.of(false);
+        });
+        when(processor.gitMirror.isMergeable(REPOSITORY, SECOND_HEAD, PULL_REQUEST_HEAD)).thenReturn(Optional.of(true));
+
+        processor.addPushPayload(push(FIRST_HEAD), REPOSITORY);
+
+        verify(processor.githubProcessor, timeout(5_000)).updateLabels(pullRequest, List.of(),
+                List.of(RuntimeConstants.LABEL_NEEDS_REBASE));
+        verify(processor.githubProcessor, after(500).never()).updateLabels(eq(pullRequest),
+                eq(List.of(RuntimeConstants.LABEL_NEEDS_REBASE)), any());
+        Assertions.assertEquals(2, scans("started"));
+        Assertions.assertEquals(1, scans("cancelled"));
+    }
+
+    @Test
+    void testSinglePush() throws Exception {
+        when(processor.gitMirror.isMergeable(anyString(), anyString(), anyString())).thenReturn(Optional.of(false));
+
+        processor.addPushPayload(push(FIRST_HEAD), REPOSITORY);
+
+        verify(processor.githubProcessor, timeout(5_000)).updateLabels(pullRequest,
+                List.of(RuntimeConstants.LABEL_NEEDS_REBASE), List.of());
+        Assertions.assertEquals(1, scans("started"));
+        Assertions.assertEquals(0, scans("cancelled"));
+    }
+
+    private double scans(String result) {
+        return meterRegistry.get("wildfly.bot.mergeable.scans").tag("result", result).counter().count();
+    }
+
+    private GHEventPayload.Push push(String sha) {
+        GHEventPayload.Push.PushCommit headCommit = mock(GHEventPayload.Push.PushCommit.class);
+        when(headCommit.getSha()).thenReturn(sha);
+        when(headCommit.getMessage()).thenReturn("Merge pull request");
+        GHEventPayload.Push push = mock(GHEventPayload.Push.class);
+        when(push.getHeadCommit()).thenReturn(headCommit);
+        when(push.getRepository()).thenReturn(repository);
+        return push;
+    }
+}
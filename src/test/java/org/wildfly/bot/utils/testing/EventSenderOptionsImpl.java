@@ -7,7 +7,10 @@ import io.quarkiverse.githubapp.testing.dsl.EventHandlingResponse;
 import io.quarkus.arc.Arc;
 import io.quarkus.logging.Log;
 import org.kohsuke.github.GHEvent;
+import org.wildfly.bot.delivery.EventDeduplicator;
+import org.wildfly.bot.polling.EventPollingProcessor;
 import org.wildfly.bot.polling.GitHubEventEmitter;
+import org.wildfly.bot.polling.PollingStateStore;
 import org.wildfly.bot.utils.testing.dsl.EventSenderOptions;
 
 import java.io.IOException;
@@ -95,6 +98,12 @@ final class EventSenderOptionsImpl implements EventSenderOptions {
 
         testingContext.initEventStubs(installationId, adjustedPayload);
 
+        // every test sends events with the same ids, thus forget the cursors and handled events of the previous test
+        Arc.container().instance(PollingStateStore.class).get().clear();
+        Arc.container().instance(EventDeduplicator.class).get().clear();
+        // the repositories are mocked anew by every test
+        Arc.container().instance(EventPollingProcessor.class).get().refreshRepositories();
+
         testingContext.getTestingContext().errorHandler.captured = null;
 
         for (GitHubEventEmitter<?> dispatcher : Arc.container().instance(EventFiringBeansProvider.class).get().getBeans()) {
@@ -1,12 +1,17 @@
 package org.wildfly.bot.utils.testing.internal;
 
 import io.quarkiverse.githubapp.testing.dsl.GitHubMockSetup;
+import io.quarkus.arc.Arc;
 import io.quarkus.test.junit.callback.QuarkusTestAfterAllCallback;
 import io.quarkus.test.junit.callback.QuarkusTestBeforeEachCallback;
 import io.quarkus.test.junit.callback.QuarkusTestContext;
 import io.quarkus.test.junit.callback.QuarkusTestMethodContext;
 import org.eclipse.microprofile.config.ConfigProvider;
 import org.eclipse.microprofile.graphql.NonNull;
+import org.wildfly.bot.delivery.HeadResultCache;
+import org.wildfly.bot.delivery.PullRequestEventCoalescer;
+import org.wildfly.bot.history.BaseBranchIndex;
+import org.wildfly.bot.rules.RuleEvaluationCache;
 import org.wildfly.bot.utils.PullRequestJsonBuildable;
 import org.wildfly.bot.utils.TestConstants;
 import org.wildfly.bot.utils.model.SsePullRequestPayload;
@@ -31,12 +36,19 @@ public class TestModel implements QuarkusTestBeforeEachCallback, QuarkusTestAfte
 
     /**
      * @implNote Between tests we clear generated Json, corresponding Building
-     *           from {@code pullRequestJsonBuilderFunction} and triggers
+     *           from {@code pullRequestJsonBuilderFunction} and triggers. As tests send the same
+     *           pull request events, we also forget the events announced to {@code PullRequestEventCoalescer}
+     *           the results remembered by {@code HeadResultCache} and {@code RuleEvaluationCache} and the
+     *           commits of base branches indexed by {@code BaseBranchIndex}
      */
     @Override
     public void beforeEach(QuarkusTestMethodContext context) {
         pullRequestJson = null;
         TestModel.pullRequestJsonBuilderFunction = builder -> builder;
+        Arc.container().instance(PullRequestEventCoalescer.class).get().clear();
+        Arc.container().instance(HeadResultCache.class).get().clear();
+        Arc.container().instance(RuleEvaluationCache.class).get().clear();
+        Arc.container().instance(BaseBranchIndex.class).get().clear();
     }
 
     /**